@@ -0,0 +1,19 @@
+package com.builtbroken.wjlootboxes.core.loot;
+
+import java.util.Random;
+
+/**
+ * Decides if a picked entry drops, used to let entries check more than the
+ * table data such as the player or world
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public interface DropCheck
+{
+    /**
+     * @param index  - entry index
+     * @param random - random used by the roll
+     * @return true if the entry should drop
+     */
+    boolean shouldDrop(int index, Random random);
+}
@@ -0,0 +1,130 @@
+package com.builtbroken.wjlootboxes.core.loot;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Picks entries from a loot table. Shared by the game and the loot simulator so the
+ * odds of both match, including how entries are picked rather than only the chances.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public final class LootSampler
+{
+    /** Times an entry is picked before giving up on a slot */
+    public static final int PICK_TRIES = 6;
+
+    private static final int[] EMPTY = new int[0];
+
+    private LootSampler()
+    {
+    }
+
+    /**
+     * Selects random entries from the table using the table's own drop checks
+     *
+     * @param source - table to select from
+     * @param random - random to use
+     * @return indices of the entries to give
+     */
+    public static int[] select(LootSource source, Random random)
+    {
+        return select(source, source, random);
+    }
+
+    /**
+     * Selects random entries from the table
+     *
+     * @param source - table to select from
+     * @param check  - decides if a picked entry drops
+     * @param random - random to use
+     * @return indices of the entries to give
+     */
+    public static int[] select(LootSource source, DropCheck check, Random random)
+    {
+        final int[] picked = new int[getMaxPicks(source)];
+        final int count = select(source, check, random, picked);
+        return count == picked.length ? picked : count == 0 ? EMPTY : Arrays.copyOf(picked, count);
+    }
+
+    /**
+     * Selects random entries from the table into an existing array
+     *
+     * @param source - table to select from
+     * @param check  - decides if a picked entry drops
+     * @param random - random to use
+     * @param picked - filled with the indices of the entries to give, at least {@link #getMaxPicks(LootSource)} long
+     * @return number of entries picked
+     */
+    public static int select(LootSource source, DropCheck check, Random random, int[] picked)
+    {
+        //Get number of possible entries
+        final int possibleItems = source.size();
+
+        //Get items to spawn
+        final int itemsToSpawn = rollCount(source.getMinLootCount(), source.getMaxLootCount(), random);
+
+        //Check if we should care about duplicates
+        final boolean allowDuplicateEntries = source.allowDuplicateDrops();
+
+        int count = 0;
+        if (possibleItems > 0 && itemsToSpawn > 0)
+        {
+            //Get number of requested items to spawn
+            for (int i = 0; i < itemsToSpawn; i++)
+            {
+                //Loop a few times to get a random entry
+                for (int r = 0; r < PICK_TRIES; r++)
+                {
+                    //Never picks the last entry, kept as is so existing tables roll the same
+                    final int index = possibleItems > 1 ? random.nextInt(possibleItems - 1) : 0;
+
+                    //Duplication check
+                    if (check.shouldDrop(index, random) && (allowDuplicateEntries || !contains(picked, count, index)))
+                    {
+                        picked[count++] = index;
+                        break; //Exit loop
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the most entries a single roll can pick
+     *
+     * @param source
+     * @return size of the array needed by {@link #select(LootSource, DropCheck, Random, int[])}
+     */
+    public static int getMaxPicks(LootSource source)
+    {
+        return Math.max(0, Math.max(source.getMinLootCount(), source.getMaxLootCount()));
+    }
+
+    /**
+     * Rolls a count between min and max, used for both the number of entries and stack sizes.
+     * Max is never reached, kept as is so existing tables roll the same.
+     *
+     * @param min
+     * @param max
+     * @param random
+     * @return count, min if max is not larger
+     */
+    public static int rollCount(int min, int max, Random random)
+    {
+        return min < max ? min + random.nextInt(max - min) : min;
+    }
+
+    private static boolean contains(int[] array, int length, int value)
+    {
+        for (int i = 0; i < length; i++)
+        {
+            if (array[i] == value)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
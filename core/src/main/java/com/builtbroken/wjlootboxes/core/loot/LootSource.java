@@ -0,0 +1,33 @@
+package com.builtbroken.wjlootboxes.core.loot;
+
+import java.util.Random;
+
+/**
+ * Table that loot can be picked from by {@link LootSampler}
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public interface LootSource extends DropCheck
+{
+    /** Number of entries */
+    int size();
+
+    /** Min number of entries to give for each box */
+    int getMinLootCount();
+
+    /** Max number of entries to give for each box, not reached by rolls */
+    int getMaxLootCount();
+
+    /** Can the same entry be given more than once for a box */
+    boolean allowDuplicateDrops();
+
+    /**
+     * Rolls if the entry should drop once picked, using only the table data
+     *
+     * @param index  - entry index
+     * @param random - random to use
+     * @return true if it should drop
+     */
+    @Override
+    boolean shouldDrop(int index, Random random);
+}
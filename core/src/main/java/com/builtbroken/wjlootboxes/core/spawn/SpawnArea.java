@@ -0,0 +1,32 @@
+package com.builtbroken.wjlootboxes.core.spawn;
+
+/**
+ * Area of chunks boxes are allowed to spawn inside
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class SpawnArea
+{
+    public final int startX;
+    public final int startZ;
+    public final int endX;
+    public final int endZ;
+
+    public SpawnArea(int startX, int startZ, int endX, int endZ)
+    {
+        this.startX = startX;
+        this.startZ = startZ;
+        this.endX = endX;
+        this.endZ = endZ;
+    }
+
+    /**
+     * @param x - chunk x
+     * @param z - chunk z
+     * @return true if the chunk is inside the area
+     */
+    public boolean isInside(int x, int z)
+    {
+        return x <= endX && x >= startX && z <= endZ && z >= startZ;
+    }
+}
@@ -0,0 +1,81 @@
+package com.builtbroken.wjlootboxes.core.spawn;
+
+import java.util.Random;
+
+/**
+ * Picks positions for boxes inside a chunk. Used by the scanner thread and
+ * the spawn simulator, both of which supply the blocks through {@link SpawnTerrain}.
+ * <p>
+ * Not thread safe, each thread should use its own planner.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class SpawnPlanner
+{
+    /** Positions checked by the last chunk */
+    public int tries;
+    /** Positions found by the last chunk */
+    public int spawnPoints;
+
+    /**
+     * Looks for positions to place boxes in the chunk
+     *
+     * @param rules         - settings to use
+     * @param tiers         - number of box tiers
+     * @param chunkX
+     * @param chunkZ
+     * @param existingBoxes - boxes already in the chunk
+     * @param terrain       - blocks of the chunk
+     * @param random        - random used to pick positions
+     * @param sink          - receives the positions found
+     * @return number of positions found
+     */
+    public int planChunk(SpawnRules rules, int tiers, int chunkX, int chunkZ, int existingBoxes, SpawnTerrain terrain, Random random, SpawnPointSink sink)
+    {
+        tries = 0;
+        spawnPoints = 0;
+
+        if (existingBoxes < rules.boxesPerChunk)
+        {
+            //Try so many times to spawn boxes
+            for (int i = 0; i < rules.boxesPerChunk; i++)
+            {
+                //Get data
+                int tier = random.nextInt(tiers);
+                float chance = rules.getChance(tier);
+
+                //Randomize
+                if (chance > random.nextFloat())
+                {
+                    //try 3 times to find a usable block
+                    out:
+                    // exit point for loop
+                    for (int c = 0; c < rules.triesPerChunk; c++)
+                    {
+                        //random position inside chunk
+                        int x = 8 - random.nextInt(8) + random.nextInt(7);
+                        int z = 8 - random.nextInt(8) + random.nextInt(7);
+                        int y = random.nextInt(terrain.getHeight(x, z));
+
+                        //Offset by
+                        int xz = chunkX * 16 + x;
+                        int zz = chunkZ * 16 + z;
+
+                        //Allow a few up and down positions
+                        for (int yz = y - rules.placementCheckHeightAdjust; yz < (rules.placementCheckHeightAdjust + y); yz++)
+                        {
+                            tries++;
+                            if (terrain.check(xz, yz, zz) == null)
+                            {
+                                spawnPoints++;
+                                sink.onSpawnPoint(xz, yz, zz, tier);
+                                break out;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return spawnPoints;
+    }
+}
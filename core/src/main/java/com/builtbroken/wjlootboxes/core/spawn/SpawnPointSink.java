@@ -0,0 +1,19 @@
+package com.builtbroken.wjlootboxes.core.spawn;
+
+/**
+ * Receives the positions found by the {@link SpawnPlanner}
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public interface SpawnPointSink
+{
+    /**
+     * Called for each position found
+     *
+     * @param x    - world x
+     * @param y
+     * @param z    - world z
+     * @param tier - tier of box to place
+     */
+    void onSpawnPoint(int x, int y, int z, int tier);
+}
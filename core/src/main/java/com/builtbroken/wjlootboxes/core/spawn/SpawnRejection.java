@@ -0,0 +1,21 @@
+package com.builtbroken.wjlootboxes.core.spawn;
+
+/**
+ * Reasons a position is turned down for a box, see {@link SpawnTerrain#check(int, int, int)}
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public enum SpawnRejection
+{
+    /** World is not loaded */
+    NO_WORLD,
+    /** Position is outside the allowed spawn areas */
+    OUTSIDE_AREA,
+    /** Block at the position can't be replaced */
+    BLOCKED,
+    /** Block below is not a supported block */
+    UNSUPPORTED_GROUND;
+
+    /** Cached copy of {@link #values()}, which creates a new array each call */
+    public static final SpawnRejection[] VALUES = values();
+}
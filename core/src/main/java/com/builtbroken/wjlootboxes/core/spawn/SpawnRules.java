@@ -0,0 +1,86 @@
+package com.builtbroken.wjlootboxes.core.spawn;
+
+import java.util.List;
+
+/**
+ * Spawn settings for a single dimension, without the blocks boxes can be placed
+ * on as those are game data. Never changed once created.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class SpawnRules
+{
+    /** Dimension the settings are for */
+    public final int dimension;
+
+    /** How long to wait before scanning a chunk again */
+    public final long timeToWaitBeforeScanningAChunkAgain;
+    /** How long to wait before scanning the next chunk */
+    public final long timeToDelayBetweenChunkScans;
+    /** How long to wait before scanning a world again */
+    public final long timeToDelayBetweenWorldScan;
+
+    /** How many chunks to scan each run before sleeping */
+    public final int chunksToScanPerRun;
+
+    /** How many boxes to spawn per chunk */
+    public final int boxesPerChunk;
+
+    /** Number of tries per chunk to place a box */
+    public final int triesPerChunk;
+
+    /** Max up and down y to move to find a free spot */
+    public final int placementCheckHeightAdjust;
+
+    /** Chance per tier for a box to be spawned */
+    protected final float[] chancePerTier;
+
+    /** Chunk areas boxes can spawn inside, empty for anywhere */
+    protected final SpawnArea[] allowedSpawnAreas;
+
+    public SpawnRules(int dimension, long timeToWaitBeforeScanningAChunkAgain, long timeToDelayBetweenChunkScans, long timeToDelayBetweenWorldScan,
+                      int chunksToScanPerRun, int boxesPerChunk, int triesPerChunk, int placementCheckHeightAdjust,
+                      float[] chancePerTier, List<? extends SpawnArea> allowedSpawnAreas)
+    {
+        this.dimension = dimension;
+        this.timeToWaitBeforeScanningAChunkAgain = timeToWaitBeforeScanningAChunkAgain;
+        this.timeToDelayBetweenChunkScans = timeToDelayBetweenChunkScans;
+        this.timeToDelayBetweenWorldScan = timeToDelayBetweenWorldScan;
+        this.chunksToScanPerRun = chunksToScanPerRun;
+        this.boxesPerChunk = boxesPerChunk;
+        this.triesPerChunk = triesPerChunk;
+        this.placementCheckHeightAdjust = placementCheckHeightAdjust;
+        this.chancePerTier = chancePerTier.clone();
+        this.allowedSpawnAreas = allowedSpawnAreas.toArray(new SpawnArea[allowedSpawnAreas.size()]);
+    }
+
+    /**
+     * Gets the chance of the tier being picked for spawning
+     *
+     * @param tier
+     * @return chance between 0 and 1
+     */
+    public float getChance(int tier)
+    {
+        return tier >= 0 && tier < chancePerTier.length ? chancePerTier[tier] : 0;
+    }
+
+    public boolean canSpawnInArea(int x, int z)
+    {
+        //Check chunk
+        if (allowedSpawnAreas.length > 0)
+        {
+            int chunkX = x >> 4;
+            int chunkZ = z >> 4;
+            for (SpawnArea area : allowedSpawnAreas)
+            {
+                if (area.isInside(chunkX, chunkZ))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+}
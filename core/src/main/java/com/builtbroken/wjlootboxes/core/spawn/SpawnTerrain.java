@@ -0,0 +1,28 @@
+package com.builtbroken.wjlootboxes.core.spawn;
+
+/**
+ * Blocks of a single chunk as seen by the {@link SpawnPlanner}
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public interface SpawnTerrain
+{
+    /**
+     * Gets the height of the top block in the chunk's column
+     *
+     * @param localX - 0 to 15
+     * @param localZ - 0 to 15
+     * @return height, must be above zero
+     */
+    int getHeight(int localX, int localZ);
+
+    /**
+     * Checks if a box can be placed at the position
+     *
+     * @param x - world x
+     * @param y
+     * @param z - world z
+     * @return null if can be placed, otherwise the reason it can't
+     */
+    SpawnRejection check(int x, int y, int z);
+}
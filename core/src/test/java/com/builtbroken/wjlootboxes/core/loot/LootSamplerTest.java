@@ -0,0 +1,231 @@
+package com.builtbroken.wjlootboxes.core.loot;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class LootSamplerTest
+{
+    /** Rolls done by tests that check a range, enough to hit every value */
+    private static final int ROLLS = 10000;
+
+    @Test
+    public void testRollCountRange()
+    {
+        final Random random = new Random(1);
+        final boolean[] seen = new boolean[10];
+        for (int i = 0; i < ROLLS; i++)
+        {
+            final int count = LootSampler.rollCount(3, 8, random);
+            assertTrue("Count " + count + " outside of 3-7", count >= 3 && count < 8);
+            seen[count] = true;
+        }
+
+        //Min is reached, max is not
+        for (int count = 3; count < 8; count++)
+        {
+            assertTrue("Count " + count + " never rolled", seen[count]);
+        }
+        assertFalse(seen[8]);
+    }
+
+    @Test
+    public void testRollCountMaxNotLarger()
+    {
+        final Random random = new Random(1);
+        assertEquals(4, LootSampler.rollCount(4, 4, random));
+        assertEquals(4, LootSampler.rollCount(4, 2, random));
+        assertEquals(0, LootSampler.rollCount(0, 0, random));
+    }
+
+    @Test
+    public void testGetMaxPicks()
+    {
+        assertEquals(5, LootSampler.getMaxPicks(new TestSource(10, 2, 5, false, 1)));
+        assertEquals(6, LootSampler.getMaxPicks(new TestSource(10, 6, 3, false, 1)));
+        assertEquals(0, LootSampler.getMaxPicks(new TestSource(10, -2, -1, false, 1)));
+    }
+
+    @Test
+    public void testSelectCountInBounds()
+    {
+        final Random random = new Random(2);
+        final TestSource source = new TestSource(20, 2, 5, true, 1);
+        final boolean[] seen = new boolean[6];
+        for (int i = 0; i < ROLLS; i++)
+        {
+            //Every pick drops, so each slot is filled on its first try
+            final int[] picked = LootSampler.select(source, random);
+            assertTrue("Picked " + picked.length + " outside of 2-4", picked.length >= 2 && picked.length < 5);
+            assertTrue(picked.length <= LootSampler.getMaxPicks(source));
+            seen[picked.length] = true;
+        }
+        assertTrue(seen[2] && seen[3] && seen[4]);
+    }
+
+    @Test
+    public void testSelectNeverPicksLastEntry()
+    {
+        final Random random = new Random(3);
+        final TestSource source = new TestSource(5, 3, 4, true, 1);
+        final boolean[] seen = new boolean[5];
+        for (int i = 0; i < ROLLS; i++)
+        {
+            for (int index : LootSampler.select(source, random))
+            {
+                seen[index] = true;
+            }
+        }
+        assertTrue(seen[0] && seen[1] && seen[2] && seen[3]);
+        assertFalse("Last entry should never be picked", seen[4]);
+    }
+
+    @Test
+    public void testSelectSingleEntry()
+    {
+        final Random random = new Random(4);
+        assertArrayEquals(new int[]{0, 0, 0}, LootSampler.select(new TestSource(1, 3, 3, true, 1), random));
+        assertArrayEquals(new int[]{0}, LootSampler.select(new TestSource(1, 3, 3, false, 1), random));
+    }
+
+    @Test
+    public void testSelectNoDuplicates()
+    {
+        final Random random = new Random(5);
+        final TestSource source = new TestSource(8, 5, 6, false, 1);
+        for (int i = 0; i < ROLLS; i++)
+        {
+            final int[] picked = LootSampler.select(source, random);
+            final int[] sorted = picked.clone();
+            Arrays.sort(sorted);
+            for (int p = 1; p < sorted.length; p++)
+            {
+                assertTrue("Duplicate entry in " + Arrays.toString(picked), sorted[p] != sorted[p - 1]);
+            }
+        }
+    }
+
+    @Test
+    public void testSelectDuplicatesAllowed()
+    {
+        //Only the first entry can be picked, so every slot must repeat it
+        final Random random = new Random(6);
+        assertArrayEquals(new int[]{0, 0, 0, 0}, LootSampler.select(new TestSource(2, 4, 4, true, 1), random));
+
+        //Without duplicates the other slots give up after their tries
+        assertArrayEquals(new int[]{0}, LootSampler.select(new TestSource(2, 4, 4, false, 1), random));
+    }
+
+    @Test
+    public void testSelectNothingDrops()
+    {
+        final Random random = new Random(7);
+        assertEquals(0, LootSampler.select(new TestSource(10, 3, 5, true, 0), random).length);
+    }
+
+    @Test
+    public void testSelectEmptyTable()
+    {
+        final Random random = new Random(8);
+        assertEquals(0, LootSampler.select(new TestSource(0, 3, 5, true, 1), random).length);
+        assertEquals(0, LootSampler.select(new TestSource(10, 0, 0, true, 1), random).length);
+    }
+
+    @Test
+    public void testSelectUsesDropCheck()
+    {
+        //Source says everything drops, check only lets even entries through
+        final Random random = new Random(9);
+        final TestSource source = new TestSource(10, 3, 4, true, 1);
+        for (int i = 0; i < ROLLS; i++)
+        {
+            for (int index : LootSampler.select(source, (index, r) -> index % 2 == 0, random))
+            {
+                assertEquals(0, index % 2);
+            }
+        }
+    }
+
+    @Test
+    public void testSelectIntoArray()
+    {
+        final TestSource source = new TestSource(10, 3, 4, true, 1);
+        final int[] picked = new int[LootSampler.getMaxPicks(source)];
+        final int count = LootSampler.select(source, source, new Random(10), picked);
+
+        //Same seed gives the same picks as the allocating version
+        assertArrayEquals(LootSampler.select(source, new Random(10)), Arrays.copyOf(picked, count));
+    }
+
+    @Test
+    public void testSelectChance()
+    {
+        final Random random = new Random(11);
+        final TestSource source = new TestSource(10, 1, 2, true, 0.25f);
+        int picked = 0;
+        for (int i = 0; i < ROLLS; i++)
+        {
+            picked += LootSampler.select(source, random).length;
+        }
+
+        //Each of the 6 tries drops 1 in 4, so 1 - 0.75^6 of rolls pick an entry
+        final double expected = 1 - Math.pow(0.75, LootSampler.PICK_TRIES);
+        assertEquals(expected, picked / (double) ROLLS, 0.02);
+    }
+
+    /** Table made of entries that all drop with the same chance */
+    private static class TestSource implements LootSource
+    {
+        final int size, min, max;
+        final boolean duplicates;
+        final float chance;
+
+        TestSource(int size, int min, int max, boolean duplicates, float chance)
+        {
+            this.size = size;
+            this.min = min;
+            this.max = max;
+            this.duplicates = duplicates;
+            this.chance = chance;
+        }
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+
+        @Override
+        public int getMinLootCount()
+        {
+            return min;
+        }
+
+        @Override
+        public int getMaxLootCount()
+        {
+            return max;
+        }
+
+        @Override
+        public boolean allowDuplicateDrops()
+        {
+            return duplicates;
+        }
+
+        @Override
+        public boolean shouldDrop(int index, Random random)
+        {
+            return random.nextFloat() < chance;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.builtbroken.wjlootboxes.core.spawn;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class SpawnPlannerTest
+{
+    private static final int TIERS = 5;
+    private static final int HEIGHT = 64;
+
+    @Test
+    public void testFindsPointPerBox()
+    {
+        final SpawnPlanner planner = new SpawnPlanner();
+        final TestTerrain terrain = new TestTerrain(0);
+        final List<int[]> points = new ArrayList();
+
+        final int found = planner.planChunk(rules(4, 3, 2, 1), TIERS, 3, -2, 0, terrain, new Random(1), sink(points));
+
+        assertEquals(4, found);
+        assertEquals(4, planner.spawnPoints);
+        assertEquals(4, points.size());
+        //First position checked is accepted
+        assertEquals(4, planner.tries);
+    }
+
+    @Test
+    public void testPointsInsideChunk()
+    {
+        final SpawnPlanner planner = new SpawnPlanner();
+        final TestTerrain terrain = new TestTerrain(0);
+        final List<int[]> points = new ArrayList();
+        final Random random = new Random(2);
+
+        for (int i = 0; i < 1000; i++)
+        {
+            planner.planChunk(rules(4, 3, 2, 1), TIERS, 3, -2, 0, terrain, random, sink(points));
+        }
+
+        assertEquals(4000, points.size());
+        for (int[] point : points)
+        {
+            assertTrue("x " + point[0] + " outside of chunk", point[0] >= 3 * 16 && point[0] < 4 * 16);
+            assertTrue("z " + point[2] + " outside of chunk", point[2] >= -2 * 16 && point[2] < -1 * 16);
+            assertTrue("y " + point[1] + " outside of column", point[1] >= -2 && point[1] < HEIGHT + 2);
+            assertTrue("tier " + point[3] + " outside of tiers", point[3] >= 0 && point[3] < TIERS);
+        }
+        assertTrue(terrain.heightChecksInChunk);
+    }
+
+    @Test
+    public void testChunkAlreadyFull()
+    {
+        final SpawnPlanner planner = new SpawnPlanner();
+        final TestTerrain terrain = new TestTerrain(0);
+        final List<int[]> points = new ArrayList();
+
+        assertEquals(0, planner.planChunk(rules(4, 3, 2, 1), TIERS, 0, 0, 4, terrain, new Random(3), sink(points)));
+        assertEquals(0, planner.tries);
+        assertEquals(0, terrain.checks);
+        assertTrue(points.isEmpty());
+    }
+
+    @Test
+    public void testNoChance()
+    {
+        final SpawnPlanner planner = new SpawnPlanner();
+        final TestTerrain terrain = new TestTerrain(0);
+        final List<int[]> points = new ArrayList();
+
+        assertEquals(0, planner.planChunk(rules(4, 3, 2, 0), TIERS, 0, 0, 0, terrain, new Random(4), sink(points)));
+        assertEquals(0, terrain.checks);
+        assertTrue(points.isEmpty());
+    }
+
+    @Test
+    public void testTierChance()
+    {
+        final SpawnPlanner planner = new SpawnPlanner();
+        final List<int[]> points = new ArrayList();
+        final SpawnRules rules = new SpawnRules(0, 0, 0, 0, 1, 8, 3, 2, new float[]{0, 0, 1, 0, 0}, new ArrayList<SpawnArea>());
+
+        planner.planChunk(rules, TIERS, 0, 0, 0, new TestTerrain(0), new Random(5), sink(points));
+        assertTrue(!points.isEmpty());
+        for (int[] point : points)
+        {
+            assertEquals(2, point[3]);
+        }
+    }
+
+    @Test
+    public void testAllRejected()
+    {
+        final SpawnPlanner planner = new SpawnPlanner();
+        final TestTerrain terrain = new TestTerrain(Integer.MAX_VALUE);
+        final List<int[]> points = new ArrayList();
+
+        assertEquals(0, planner.planChunk(rules(4, 3, 2, 1), TIERS, 0, 0, 0, terrain, new Random(6), sink(points)));
+        assertTrue(points.isEmpty());
+
+        //Each box tries 3 columns, each column checks 2 up and 2 down
+        assertEquals(4 * 3 * 4, planner.tries);
+        assertEquals(planner.tries, terrain.checks);
+    }
+
+    @Test
+    public void testStopsAtFirstFreePosition()
+    {
+        final SpawnPlanner planner = new SpawnPlanner();
+        final TestTerrain terrain = new TestTerrain(5);
+        final List<int[]> points = new ArrayList();
+
+        //First column's 4 checks and the 2nd column's first check are rejected
+        assertEquals(1, planner.planChunk(rules(1, 3, 2, 1), TIERS, 0, 0, 0, terrain, new Random(7), sink(points)));
+        assertEquals(6, planner.tries);
+        assertArrayEquals(new int[]{points.get(0)[0], points.get(0)[1], points.get(0)[2]}, terrain.lastCheck);
+    }
+
+    @Test
+    public void testResetsCounts()
+    {
+        final SpawnPlanner planner = new SpawnPlanner();
+        final List<int[]> points = new ArrayList();
+
+        planner.planChunk(rules(4, 3, 2, 1), TIERS, 0, 0, 0, new TestTerrain(0), new Random(8), sink(points));
+        planner.planChunk(rules(4, 3, 2, 1), TIERS, 0, 0, 4, new TestTerrain(0), new Random(8), sink(points));
+        assertEquals(0, planner.tries);
+        assertEquals(0, planner.spawnPoints);
+    }
+
+    @Test
+    public void testSameSeedSamePoints()
+    {
+        final List<int[]> first = new ArrayList();
+        final List<int[]> second = new ArrayList();
+        new SpawnPlanner().planChunk(rules(6, 3, 2, 0.5f), TIERS, 7, 9, 1, new TestTerrain(3), new Random(9), sink(first));
+        new SpawnPlanner().planChunk(rules(6, 3, 2, 0.5f), TIERS, 7, 9, 1, new TestTerrain(3), new Random(9), sink(second));
+
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++)
+        {
+            assertArrayEquals(first.get(i), second.get(i));
+        }
+    }
+
+    private static SpawnRules rules(int boxesPerChunk, int triesPerChunk, int heightAdjust, float chance)
+    {
+        final float[] chancePerTier = new float[TIERS];
+        for (int i = 0; i < TIERS; i++)
+        {
+            chancePerTier[i] = chance;
+        }
+        return new SpawnRules(0, 0, 0, 0, 1, boxesPerChunk, triesPerChunk, heightAdjust, chancePerTier, new ArrayList<SpawnArea>());
+    }
+
+    private static SpawnPointSink sink(List<int[]> points)
+    {
+        return (x, y, z, tier) -> points.add(new int[]{x, y, z, tier});
+    }
+
+    /** Flat terrain that rejects a number of checks before accepting all positions */
+    private static class TestTerrain implements SpawnTerrain
+    {
+        final int rejectCount;
+        int checks;
+        int[] lastCheck;
+        boolean heightChecksInChunk = true;
+
+        TestTerrain(int rejectCount)
+        {
+            this.rejectCount = rejectCount;
+        }
+
+        @Override
+        public int getHeight(int localX, int localZ)
+        {
+            if (localX < 0 || localX > 15 || localZ < 0 || localZ > 15)
+            {
+                heightChecksInChunk = false;
+            }
+            return HEIGHT;
+        }
+
+        @Override
+        public SpawnRejection check(int x, int y, int z)
+        {
+            lastCheck = new int[]{x, y, z};
+            return checks++ < rejectCount ? SpawnRejection.BLOCKED : null;
+        }
+    }
+}
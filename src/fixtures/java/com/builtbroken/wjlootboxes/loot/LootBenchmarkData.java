@@ -0,0 +1,212 @@
+package com.builtbroken.wjlootboxes.loot;
+
+import com.builtbroken.wjlootboxes.WJLootBoxes;
+import com.builtbroken.wjlootboxes.loot.entry.ILootEntry;
+import com.builtbroken.wjlootboxes.loot.entry.stack.LootEntryItemStack;
+import com.builtbroken.wjlootboxes.loot.entry.stack.LootEntryOre;
+import net.minecraft.init.Blocks;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.init.Items;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraftforge.oredict.OreDictionary;
+import org.apache.logging.log4j.LogManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic loot tables for the benchmarks and tests. Tables are built from vanilla items so
+ * only the registries need to be set up, no world, server, or mod loading is required.
+ * <p>
+ * Tables are generated from a fixed seed so every run and fork measures the same data.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public final class LootBenchmarkData
+{
+    /** Seed used to build tables and for the random used by each benchmark thread */
+    public static final long SEED = 1252;
+
+    /** Every Nth item entry has NBT */
+    public static final int NBT_EVERY = 10;
+    /** Number of unique NBT tags, shared between entries like real tables do */
+    public static final int UNIQUE_NBT = 16;
+    /** Number of ore names registered for the ore entries */
+    public static final int ORE_NAMES = 64;
+    /** Prefix of the ore names registered for the ore entries */
+    public static final String ORE_PREFIX = "wjBenchOre";
+
+    private static boolean setup = false;
+
+    private LootBenchmarkData()
+    {
+    }
+
+    /**
+     * Registers the vanilla blocks and items, and the ore names used by
+     * ore entries. Safe to call from each benchmark's setup.
+     */
+    public static synchronized void setup()
+    {
+        if (!setup)
+        {
+            setup = true;
+            if (WJLootBoxes.LOGGER == null)
+            {
+                WJLootBoxes.LOGGER = LogManager.getLogger("WJ_LootBoxes");
+            }
+            Bootstrap.func_151354_b();
+
+            final Item[] items = getItems();
+            for (int i = 0; i < ORE_NAMES; i++)
+            {
+                OreDictionary.registerOre(ORE_PREFIX + i, new ItemStack(items[i % items.length]));
+            }
+        }
+    }
+
+    /**
+     * Items used to fill tables
+     */
+    public static Item[] getItems()
+    {
+        return new Item[]{
+                Items.diamond, Items.iron_ingot, Items.gold_ingot, Items.emerald, Items.coal,
+                Items.bread, Items.apple, Items.arrow, Items.bow, Items.iron_sword,
+                Items.diamond_pickaxe, Items.enchanted_book, Items.ender_pearl, Items.redstone,
+                Item.getItemFromBlock(Blocks.obsidian), Item.getItemFromBlock(Blocks.tnt)
+        };
+    }
+
+    /**
+     * Creates a table of item stack entries, every {@link #NBT_EVERY}th with NBT
+     *
+     * @param tier - tier of the table
+     * @param size - number of entries
+     * @return table
+     */
+    public static LootTable createItemTable(int tier, int size)
+    {
+        return createItemTable(tier, size, NBT_EVERY);
+    }
+
+    /**
+     * Creates a table of item stack entries
+     *
+     * @param tier     - tier of the table
+     * @param size     - number of entries
+     * @param nbtEvery - every Nth entry has NBT, 0 for none
+     * @return table
+     */
+    public static LootTable createItemTable(int tier, int size, int nbtEvery)
+    {
+        final Random random = new Random(SEED);
+        final Item[] items = getItems();
+        final NBTTagCompound[] tags = new NBTTagCompound[UNIQUE_NBT];
+        for (int i = 0; i < tags.length; i++)
+        {
+            tags[i] = createNBT(i, 4);
+        }
+
+        final List<ILootEntry> entries = new ArrayList(size);
+        for (int i = 0; i < size; i++)
+        {
+            final ItemStack stack = new ItemStack(items[random.nextInt(items.length)], 1, random.nextInt(4));
+            if (nbtEvery > 0 && i % nbtEvery == 0)
+            {
+                stack.setTagCompound(tags[random.nextInt(tags.length)]);
+            }
+            final int min = 1 + random.nextInt(4);
+            entries.add(new LootEntryItemStack(stack, min, min + random.nextInt(16), 0.1f + random.nextFloat() * 0.9f));
+        }
+        return new LootTable(tier, 3, 8, LootHandler.DEFAULT_COMMAND + tier, false, entries);
+    }
+
+    /**
+     * Creates a handler using each table for its tier, tiers without a table are empty
+     *
+     * @param tables
+     * @return handler
+     */
+    public static LootHandler createHandler(LootTable... tables)
+    {
+        int tiers = 0;
+        for (LootTable table : tables)
+        {
+            tiers = Math.max(tiers, table.tier + 1);
+        }
+
+        final LootHandler handler = new LootHandler(tiers);
+        for (LootTable table : tables)
+        {
+            handler.setTable(table);
+        }
+        return handler;
+    }
+
+    /**
+     * Creates ore dictionary entries cycling over the registered ore names
+     *
+     * @param size - number of entries
+     * @return entries
+     */
+    public static LootEntryOre[] createOreEntries(int size)
+    {
+        final Random random = new Random(SEED);
+        final LootEntryOre[] entries = new LootEntryOre[size];
+        for (int i = 0; i < size; i++)
+        {
+            final int min = 1 + random.nextInt(4);
+            entries[i] = new LootEntryOre(ORE_PREFIX + (i % ORE_NAMES), min, min + random.nextInt(16), 0.5f);
+        }
+        return entries;
+    }
+
+    /**
+     * Creates NBT similar to a named and enchanted item. Lists only hold compounds
+     * as that is all {@link JsonConverterNBT} converts.
+     *
+     * @param id    - used to make the tag unique
+     * @param lines - number of enchantments and attribute modifiers
+     * @return tag
+     */
+    public static NBTTagCompound createNBT(int id, int lines)
+    {
+        final NBTTagCompound nbt = new NBTTagCompound();
+
+        final NBTTagCompound display = new NBTTagCompound();
+        display.setString("Name", "Bench Item " + id);
+        display.setInteger("color", id * 4099);
+        nbt.setTag("display", display);
+
+        final NBTTagList enchantments = new NBTTagList();
+        final NBTTagList modifiers = new NBTTagList();
+        for (int i = 0; i < lines; i++)
+        {
+            final NBTTagCompound enchantment = new NBTTagCompound();
+            enchantment.setShort("id", (short) (i + id));
+            enchantment.setShort("lvl", (short) (1 + i % 5));
+            enchantments.appendTag(enchantment);
+
+            final NBTTagCompound modifier = new NBTTagCompound();
+            modifier.setString("AttributeName", "generic.attackDamage");
+            modifier.setString("Name", "Bench modifier " + i);
+            modifier.setDouble("Amount", i + id / 10.0);
+            modifier.setInteger("Operation", 0);
+            modifier.setLong("UUIDMost", id * 31L + i);
+            modifier.setLong("UUIDLeast", id * 17L - i);
+            modifiers.appendTag(modifier);
+        }
+        nbt.setTag("ench", enchantments);
+        nbt.setTag("AttributeModifiers", modifiers);
+
+        nbt.setInteger("RepairCost", id);
+        nbt.setByte("Unbreakable", (byte) (id & 1));
+        nbt.setIntArray("Colors", new int[]{id, id + 1, id + 2});
+        return nbt;
+    }
+}
@@ -0,0 +1,56 @@
+package com.builtbroken.wjlootboxes.spawner;
+
+import com.builtbroken.wjlootboxes.WJLootBoxes;
+import com.builtbroken.wjlootboxes.spawner.simulator.SimulatedWorld;
+import net.minecraft.block.Block;
+import net.minecraft.init.Blocks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spawn settings for the spawner benchmarks and tests, used with a {@link SimulatedWorld}
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public final class SpawnerBenchmarkData
+{
+    private SpawnerBenchmarkData()
+    {
+    }
+
+    /**
+     * Creates settings for spawning in the world. All tiers have a chance of 1 so
+     * every box per chunk is tried, the ground is grass or dirt like the defaults.
+     *
+     * @param world         - world the settings are for
+     * @param boxesPerChunk - boxes to try to place in each chunk
+     * @param areas         - number of spawn areas, 0 for anywhere. Only the last area
+     *                      covers the world so every check walks all areas.
+     * @return settings
+     */
+    public static BoxSpawnSettings createSettings(SimulatedWorld world, int boxesPerChunk, int areas)
+    {
+        final Map<Block, Integer> blocks = new HashMap();
+        blocks.put(Blocks.grass, BoxSpawnSettings.ALL_META);
+        blocks.put(Blocks.dirt, BoxSpawnSettings.ALL_META);
+
+        final List<BoxSpawnArea> spawnAreas = new ArrayList();
+        for (int i = 1; i < areas; i++)
+        {
+            //Areas far from the generated chunks
+            spawnAreas.add(new BoxSpawnArea(10000 + i * 10, 10000, 10000 + i * 10 + 5, 10005));
+        }
+        if (areas > 0)
+        {
+            spawnAreas.add(new BoxSpawnArea(world.getMinChunk(), world.getMinChunk(), world.getMaxChunk(), world.getMaxChunk()));
+        }
+
+        final float[] chances = new float[WJLootBoxes.NUMBER_OF_TIERS];
+        Arrays.fill(chances, 1);
+        return new BoxSpawnSettings(0, 0, 0, 0, Integer.MAX_VALUE, boxesPerChunk, 3, 5, chances, blocks, spawnAreas);
+    }
+}
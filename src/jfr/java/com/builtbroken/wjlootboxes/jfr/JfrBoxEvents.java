@@ -0,0 +1,256 @@
+package com.builtbroken.wjlootboxes.jfr;
+
+import com.builtbroken.wjlootboxes.metrics.BoxEvents;
+import jdk.jfr.*;
+
+/**
+ * Sends {@link BoxEvents} to Java Flight Recorder. Only loaded by {@link BoxEvents#create()}
+ * when the runtime has jdk.jfr, so nothing outside this source set depends on it.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class JfrBoxEvents extends BoxEvents
+{
+    //Types are looked up once, checking them avoids creating events that won't be recorded
+    private final EventType scanPassType = EventType.getEventType(ScanPassEvent.class);
+    private final EventType chunkScanType = EventType.getEventType(ChunkScanEvent.class);
+    private final EventType placementDrainType = EventType.getEventType(PlacementDrainEvent.class);
+    private final EventType lootDroppedType = EventType.getEventType(LootDroppedEvent.class);
+    private final EventType lootRollType = EventType.getEventType(LootRollEvent.class);
+    private final EventType lootEntryType = EventType.getEventType(LootEntryEvent.class);
+
+    @Override
+    public boolean isSupported()
+    {
+        return FlightRecorder.isAvailable();
+    }
+
+    @Override
+    public Object beginScanPass()
+    {
+        return scanPassType.isEnabled() ? begin(new ScanPassEvent()) : null;
+    }
+
+    @Override
+    public void endScanPass(Object event, int dimension, int chunks, int spawnPoints)
+    {
+        if (event instanceof ScanPassEvent && end((Event) event))
+        {
+            final ScanPassEvent e = (ScanPassEvent) event;
+            e.dimension = dimension;
+            e.chunks = chunks;
+            e.spawnPoints = spawnPoints;
+            e.commit();
+        }
+    }
+
+    @Override
+    public Object beginChunkScan()
+    {
+        return chunkScanType.isEnabled() ? begin(new ChunkScanEvent()) : null;
+    }
+
+    @Override
+    public void endChunkScan(Object event, int dimension, int chunkX, int chunkZ, int boxes, int tries, int spawnPoints)
+    {
+        if (event instanceof ChunkScanEvent && end((Event) event))
+        {
+            final ChunkScanEvent e = (ChunkScanEvent) event;
+            e.dimension = dimension;
+            e.chunkX = chunkX;
+            e.chunkZ = chunkZ;
+            e.boxes = boxes;
+            e.tries = tries;
+            e.spawnPoints = spawnPoints;
+            e.commit();
+        }
+    }
+
+    @Override
+    public Object beginPlacementDrain()
+    {
+        return placementDrainType.isEnabled() ? begin(new PlacementDrainEvent()) : null;
+    }
+
+    @Override
+    public void endPlacementDrain(Object event, int dimension, int drained, int placed)
+    {
+        if (event instanceof PlacementDrainEvent && end((Event) event))
+        {
+            final PlacementDrainEvent e = (PlacementDrainEvent) event;
+            e.dimension = dimension;
+            e.drained = drained;
+            e.placed = placed;
+            e.commit();
+        }
+    }
+
+    @Override
+    public Object beginLootDropped()
+    {
+        return lootDroppedType.isEnabled() ? begin(new LootDroppedEvent()) : null;
+    }
+
+    @Override
+    public void endLootDropped(Object event, int dimension, int x, int y, int z, int tier, boolean preRolled)
+    {
+        if (event instanceof LootDroppedEvent && end((Event) event))
+        {
+            final LootDroppedEvent e = (LootDroppedEvent) event;
+            e.dimension = dimension;
+            e.x = x;
+            e.y = y;
+            e.z = z;
+            e.tier = tier;
+            e.preRolled = preRolled;
+            e.commit();
+        }
+    }
+
+    @Override
+    public Object beginLootRoll()
+    {
+        return lootRollType.isEnabled() ? begin(new LootRollEvent()) : null;
+    }
+
+    @Override
+    public void endLootRoll(Object event, int tier, int entries, boolean preRolled)
+    {
+        if (event instanceof LootRollEvent && end((Event) event))
+        {
+            final LootRollEvent e = (LootRollEvent) event;
+            e.tier = tier;
+            e.entries = entries;
+            e.preRolled = preRolled;
+            e.commit();
+        }
+    }
+
+    @Override
+    public void lootEntryRolled(int tier, int index, int items)
+    {
+        if (lootEntryType.isEnabled())
+        {
+            final LootEntryEvent e = new LootEntryEvent();
+            e.tier = tier;
+            e.index = index;
+            e.items = items;
+            e.commit();
+        }
+    }
+
+    private static Event begin(Event event)
+    {
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event
+     *
+     * @return true if the event passed its threshold and should be committed
+     */
+    private static boolean end(Event event)
+    {
+        event.end();
+        return event.shouldCommit();
+    }
+
+    @Name("wjlootboxes.ScanPass")
+    @Label("Box Scan Pass")
+    @Description("Scanner pass over the loaded chunks of a dimension, not counting sleeps between batches")
+    @Category({"WJ Loot Boxes", "Spawner"})
+    public static class ScanPassEvent extends Event
+    {
+        @Label("Dimension")
+        public int dimension;
+        @Label("Chunks Scanned")
+        public int chunks;
+        @Label("Spawn Points Found")
+        public int spawnPoints;
+    }
+
+    @Name("wjlootboxes.ChunkScan")
+    @Label("Box Chunk Scan")
+    @Description("Scanner checking a chunk for positions to place boxes")
+    @Category({"WJ Loot Boxes", "Spawner"})
+    @Threshold("1 ms")
+    public static class ChunkScanEvent extends Event
+    {
+        @Label("Dimension")
+        public int dimension;
+        @Label("Chunk X")
+        public int chunkX;
+        @Label("Chunk Z")
+        public int chunkZ;
+        @Label("Existing Boxes")
+        public int boxes;
+        @Label("Positions Tried")
+        public int tries;
+        @Label("Spawn Points Found")
+        public int spawnPoints;
+    }
+
+    @Name("wjlootboxes.PlacementDrain")
+    @Label("Box Placement Drain")
+    @Description("Main thread placing boxes found by the scanner")
+    @Category({"WJ Loot Boxes", "Spawner"})
+    public static class PlacementDrainEvent extends Event
+    {
+        @Label("Dimension")
+        public int dimension;
+        @Label("Placements Drained")
+        public int drained;
+        @Label("Boxes Placed")
+        public int placed;
+    }
+
+    @Name("wjlootboxes.LootDropped")
+    @Label("Box Loot Dropped")
+    @Description("Box opened or broken and its loot given out")
+    @Category({"WJ Loot Boxes", "Loot"})
+    public static class LootDroppedEvent extends Event
+    {
+        @Label("Dimension")
+        public int dimension;
+        @Label("X")
+        public int x;
+        @Label("Y")
+        public int y;
+        @Label("Z")
+        public int z;
+        @Label("Tier")
+        public int tier;
+        @Label("Pre-rolled")
+        public boolean preRolled;
+    }
+
+    @Name("wjlootboxes.LootRoll")
+    @Label("Box Loot Roll")
+    @Description("Loot rolled for a box, either ahead of time by the scanner or when opened")
+    @Category({"WJ Loot Boxes", "Loot"})
+    public static class LootRollEvent extends Event
+    {
+        @Label("Tier")
+        public int tier;
+        @Label("Entries Picked")
+        public int entries;
+        @Label("Pre-rolled")
+        public boolean preRolled;
+    }
+
+    @Name("wjlootboxes.LootEntry")
+    @Label("Box Loot Entry")
+    @Description("Single loot table entry picked by a roll")
+    @Category({"WJ Loot Boxes", "Loot"})
+    @Enabled(false)
+    public static class LootEntryEvent extends Event
+    {
+        @Label("Tier")
+        public int tier;
+        @Label("Entry Index")
+        public int index;
+        @Label("Items")
+        public int items;
+    }
+}
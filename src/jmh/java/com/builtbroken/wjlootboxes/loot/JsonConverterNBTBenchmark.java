@@ -0,0 +1,121 @@
+package com.builtbroken.wjlootboxes.loot;
+
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import net.minecraft.nbt.NBTTagCompound;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks converting item NBT to and from JSON, both through a JSON tree and
+ * streamed, and loading and saving whole tables which runs the same conversion
+ * for each entry with NBT.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonConverterNBTBenchmark
+{
+    @Param({"10", "1000", "100000"})
+    public int entries;
+
+    private NBTTagCompound[] tags;
+    private String[] tagJson;
+    private int next;
+
+    private LootHandler handler;
+    private LootTable table;
+    private String tableJson;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        LootBenchmarkData.setup();
+
+        //Unique tag per entry so the tags don't all sit in cache
+        tags = new NBTTagCompound[entries];
+        tagJson = new String[entries];
+        for (int i = 0; i < entries; i++)
+        {
+            tags[i] = LootBenchmarkData.createNBT(i, 4);
+            tagJson[i] = writeTag(tags[i]);
+        }
+
+        handler = new LootHandler(1);
+        table = LootBenchmarkData.createItemTable(0, entries);
+        tableJson = writeTable();
+    }
+
+    private NBTTagCompound nextTag()
+    {
+        if (++next >= entries)
+        {
+            next = 0;
+        }
+        return tags[next];
+    }
+
+    /** Converted through a JSON tree, same as NBT set by commands */
+    @Benchmark
+    public NBTTagCompound treeRoundTrip()
+    {
+        final JsonElement element = JsonConverterNBT.toJson(nextTag());
+        return JsonConverterNBT.handle(element);
+    }
+
+    @Benchmark
+    public String streamWrite() throws IOException
+    {
+        return writeTag(nextTag());
+    }
+
+    @Benchmark
+    public NBTTagCompound streamRead() throws IOException
+    {
+        if (++next >= entries)
+        {
+            next = 0;
+        }
+        return JsonConverterNBT.read(new JsonReader(new StringReader(tagJson[next])));
+    }
+
+    /** Saving a table, every {@link LootBenchmarkData#NBT_EVERY}th entry has NBT */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MINUTES)
+    public String tableWrite() throws IOException
+    {
+        return writeTable();
+    }
+
+    /** Loading a table, including building the columns */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MINUTES)
+    public LootTable tableRead() throws IOException
+    {
+        return handler.loadDataFor(0, new JsonReader(new StringReader(tableJson)), new LootHandler.LootTableStats());
+    }
+
+    private static String writeTag(NBTTagCompound nbt) throws IOException
+    {
+        final StringWriter out = new StringWriter();
+        JsonConverterNBT.write(new JsonWriter(out), nbt);
+        return out.toString();
+    }
+
+    private String writeTable() throws IOException
+    {
+        final StringWriter out = new StringWriter();
+        handler.writeDataFor(table, new JsonWriter(out));
+        return out.toString();
+    }
+}
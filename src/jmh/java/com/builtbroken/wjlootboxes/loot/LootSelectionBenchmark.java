@@ -0,0 +1,55 @@
+package com.builtbroken.wjlootboxes.loot;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks picking entries from a table and rolling a full box of loot.
+ * <p>
+ * {@link LootHandler#doDropRandomLoot} needs a world to drop items into, so the
+ * selection it runs is measured through {@link LootHandler#selectLoot} with no world,
+ * the same as the spawner does. Tables only hold item stacks, which are checked with
+ * the table's own chance either way. {@link #rollLoot()} adds building the stacks
+ * and merging them in the collector, everything but spawning the item entities.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LootSelectionBenchmark
+{
+    @Param({"10", "1000", "100000"})
+    public int entries;
+
+    private LootHandler handler;
+    private LootTable table;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        LootBenchmarkData.setup();
+        table = LootBenchmarkData.createItemTable(0, entries);
+        handler = new LootHandler(1);
+        handler.setTable(table);
+        random = new Random(LootBenchmarkData.SEED);
+    }
+
+    @Benchmark
+    public int[] selectLoot()
+    {
+        return handler.selectLoot(table, random, null, null, 0, 0, 0);
+    }
+
+    @Benchmark
+    public LootRoll rollLoot()
+    {
+        return handler.rollLoot(0, random);
+    }
+}
@@ -0,0 +1,76 @@
+package com.builtbroken.wjlootboxes.loot;
+
+import com.builtbroken.wjlootboxes.loot.entry.stack.LootEntryItemStack;
+import com.builtbroken.wjlootboxes.loot.entry.stack.LootEntryOre;
+import net.minecraft.item.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks building the stacks given out for a single entry. Compares the
+ * table columns against the entry objects they were built from, and ore
+ * dictionary entries which look up the stack each time.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LootStackBenchmark
+{
+    @Param({"10", "1000", "100000"})
+    public int entries;
+
+    private LootTable table;
+    private LootEntryItemStack[] itemEntries;
+    private LootEntryOre[] oreEntries;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        LootBenchmarkData.setup();
+        table = LootBenchmarkData.createItemTable(0, entries);
+        itemEntries = new LootEntryItemStack[entries];
+        for (int i = 0; i < entries; i++)
+        {
+            //Entries are rebuilt from the table so both hold the same data
+            itemEntries[i] = (LootEntryItemStack) table.getEntry(i);
+        }
+        oreEntries = LootBenchmarkData.createOreEntries(entries);
+        random = new Random(LootBenchmarkData.SEED);
+    }
+
+    /** Stack built from the table columns, used by all rolls */
+    @Benchmark
+    public ItemStack tableRollStack()
+    {
+        return table.rollStack(random.nextInt(entries), random);
+    }
+
+    /** Stack copied from the entry, used by entries added through the API */
+    @Benchmark
+    public ItemStack entryRollStack()
+    {
+        return itemEntries[random.nextInt(entries)].rollStack(random);
+    }
+
+    /** Ore dictionary look up and copy */
+    @Benchmark
+    public ItemStack oreGetStack()
+    {
+        return oreEntries[random.nextInt(entries)].getStack();
+    }
+
+    /** Ore dictionary look up with the stack size randomized */
+    @Benchmark
+    public ItemStack oreRollStack()
+    {
+        return oreEntries[random.nextInt(entries)].rollStack(random);
+    }
+}
@@ -0,0 +1,224 @@
+package com.builtbroken.wjlootboxes.loot.load;
+
+import com.builtbroken.wjlootboxes.WJLootBoxes;
+import com.builtbroken.wjlootboxes.loot.LootBenchmarkData;
+import com.builtbroken.wjlootboxes.loot.LootHandler;
+import com.builtbroken.wjlootboxes.loot.LootTable;
+import com.builtbroken.wjlootboxes.metrics.LatencyHistogram;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Load test for players opening boxes at the same time, such as during events. Ticks a
+ * number of worlds at 20 ticks a second of simulated time, each tick every player opens
+ * boxes at random at the configured rate. Opens run one after the other on the calling
+ * thread, the same as the server thread does.
+ * <p>
+ * Each open is timed from {@link LootHandler#onLootDropped}, the same call made when a
+ * player breaks a box. Boxes with loot rolled ahead of time are given out from there.
+ * Without a server the default command can't run, so boxes without rolled loot go on
+ * to {@link LootHandler#doDropRandomLoot}, which is what the command calls. The time
+ * spent parsing the command is not included.
+ * <p>
+ * Usage: {@code BoxOpenLoadTestMain [players] [opens per player per minute] [seconds] [worlds] [pre-rolled fraction] [inventory fill] [table size] [seed]}
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class BoxOpenLoadTestMain
+{
+    public static final int TICKS_PER_SECOND = 20;
+    /** Time a tick can take before the server falls behind */
+    public static final long TICK_NANOS = 50000000L;
+    /** Ticks run before recording, so the JIT has compiled the open path */
+    public static final int WARMUP_TICKS = 200;
+
+    public static void main(String... args)
+    {
+        final int players = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        final double opensPerMinute = args.length > 1 ? Double.parseDouble(args[1]) : 6;
+        final int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        final int worldCount = args.length > 3 ? Math.max(1, Integer.parseInt(args[3])) : 1;
+        final double preRolled = args.length > 4 ? Double.parseDouble(args[4]) : 0.5;
+        final double inventoryFill = args.length > 5 ? Double.parseDouble(args[5]) : 0.5;
+        final int tableSize = args.length > 6 ? Integer.parseInt(args[6]) : 100;
+        final long seed = args.length > 7 ? Long.parseLong(args[7]) : 0;
+
+        LootBenchmarkData.setup();
+        final LootTable[] tables = new LootTable[WJLootBoxes.NUMBER_OF_TIERS];
+        for (int tier = 0; tier < tables.length; tier++)
+        {
+            tables[tier] = LootBenchmarkData.createItemTable(tier, tableSize);
+        }
+        final LootHandler handler = LootBenchmarkData.createHandler(tables);
+        WJLootBoxes.lootHandler = handler;
+
+        //Players are spread over the worlds, each standing next to their own box
+        final LoadTestWorld[] worlds = new LoadTestWorld[worldCount];
+        for (int i = 0; i < worlds.length; i++)
+        {
+            worlds[i] = new LoadTestWorld("LoadTest" + i, seed + i);
+        }
+        final int filledSlots = (int) Math.round(36 * Math.min(1, Math.max(0, inventoryFill)));
+        final LoadTestPlayer[] testPlayers = new LoadTestPlayer[players];
+        for (int i = 0; i < players; i++)
+        {
+            testPlayers[i] = new LoadTestPlayer(worlds[i % worlds.length], i, filledSlots);
+            testPlayers[i].setPosition(i * 4 + 0.5, 65, 0.5);
+        }
+
+        final Random random = new Random(seed);
+        final double opensPerTick = opensPerMinute / 60 / TICKS_PER_SECOND;
+        final int ticks = seconds * TICKS_PER_SECOND;
+
+        final Samples openTimes = new Samples();
+        final Samples tickTimes = new Samples();
+        final Samples tickOpens = new Samples();
+        final Samples tickEntities = new Samples();
+        long preRolledOpens = 0;
+        long entities = 0;
+
+        for (int tick = -WARMUP_TICKS; tick < ticks; tick++)
+        {
+            long tickTime = 0;
+            int opens = 0;
+            for (LoadTestWorld world : worlds)
+            {
+                world.entitiesSpawned = 0;
+            }
+
+            for (LoadTestPlayer player : testPlayers)
+            {
+                //Rate can be more than one open a tick for short tests
+                int playerOpens = (int) opensPerTick + (random.nextDouble() < opensPerTick % 1 ? 1 : 0);
+                for (int i = 0; i < playerOpens; i++)
+                {
+                    final LoadTestWorld world = (LoadTestWorld) player.worldObj;
+                    final int x = (int) Math.floor(player.posX) + 1;
+                    final int y = 65;
+                    final int z = 0;
+                    final int tier = random.nextInt(WJLootBoxes.NUMBER_OF_TIERS);
+
+                    //Setup done by the spawner and the player before the box is broken, not timed
+                    final boolean rolled = random.nextDouble() < preRolled;
+                    if (rolled)
+                    {
+                        world.placeBox(x, y, z, handler.rollLoot(tier, random));
+                    }
+                    player.resetInventory();
+
+                    final long start = System.nanoTime();
+                    handler.onLootDropped(player, world, x, y, z, tier);
+                    if (!rolled)
+                    {
+                        handler.doDropRandomLoot(player, world, x, y, z, tier);
+                    }
+                    world.removeTileEntity(x, y, z);
+                    final long time = System.nanoTime() - start;
+
+                    tickTime += time;
+                    opens++;
+                    if (tick >= 0)
+                    {
+                        openTimes.add(time);
+                        if (rolled)
+                        {
+                            preRolledOpens++;
+                        }
+                    }
+                }
+            }
+
+            if (tick >= 0)
+            {
+                int spawned = 0;
+                for (LoadTestWorld world : worlds)
+                {
+                    spawned += world.entitiesSpawned;
+                }
+                entities += spawned;
+                tickTimes.add(tickTime);
+                tickOpens.add(opens);
+                tickEntities.add(spawned);
+            }
+        }
+
+        System.out.println(String.format("%d players in %d worlds, %.1f opens per player per minute, %d seconds (%d ticks)",
+                players, worldCount, opensPerMinute, seconds, ticks));
+        System.out.println(String.format("  Tables of %d entries, %.0f%% of boxes pre-rolled, %d of 36 inventory slots full",
+                tableSize, preRolled * 100, filledSlots));
+        System.out.println(String.format("  Opens: %d, %d pre-rolled, %d item entities spawned", openTimes.size, preRolledOpens, entities));
+        System.out.println("  Time per open:      " + openTimes.toTimeSummary());
+        System.out.println("  Open time per tick: " + tickTimes.toTimeSummary() + ", " + tickTimes.countOver(TICK_NANOS) + " ticks over 50ms");
+        System.out.println("  Opens per tick:     " + tickOpens.toCountSummary());
+        System.out.println("  Entities per tick:  " + tickEntities.toCountSummary());
+        System.exit(0);
+    }
+
+    /**
+     * Values kept in full so percentiles are exact
+     */
+    public static class Samples
+    {
+        private long[] values = new long[1024];
+        public int size;
+        private boolean sorted;
+
+        public void add(long value)
+        {
+            if (size == values.length)
+            {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+            sorted = false;
+        }
+
+        /**
+         * @param percentile - 0 to 1, such as 0.99
+         * @return value the percentile of values are at or below, 0 if empty
+         */
+        public long getPercentile(double percentile)
+        {
+            if (size == 0)
+            {
+                return 0;
+            }
+            if (!sorted)
+            {
+                Arrays.sort(values, 0, size);
+                sorted = true;
+            }
+            return values[Math.max(0, (int) Math.ceil(size * percentile) - 1)];
+        }
+
+        public long getMax()
+        {
+            return getPercentile(1);
+        }
+
+        public long countOver(long limit)
+        {
+            long count = 0;
+            for (int i = 0; i < size; i++)
+            {
+                if (values[i] > limit)
+                {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        public String toTimeSummary()
+        {
+            return "p50=" + LatencyHistogram.format(getPercentile(0.5)) + " p99=" + LatencyHistogram.format(getPercentile(0.99))
+                    + " max=" + LatencyHistogram.format(getMax());
+        }
+
+        public String toCountSummary()
+        {
+            return "p50=" + getPercentile(0.5) + " p99=" + getPercentile(0.99) + " max=" + getMax();
+        }
+    }
+}
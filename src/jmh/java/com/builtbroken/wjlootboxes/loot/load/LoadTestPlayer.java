@@ -0,0 +1,57 @@
+package com.builtbroken.wjlootboxes.loot.load;
+
+import com.mojang.authlib.GameProfile;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.init.Blocks;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.ChunkCoordinates;
+import net.minecraft.util.IChatComponent;
+import net.minecraft.world.World;
+
+import java.util.UUID;
+
+/**
+ * Player for the load test. Only has an inventory, chat and commands are ignored.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class LoadTestPlayer extends EntityPlayer
+{
+    /** Number of main inventory slots filled with items loot can't merge into */
+    public final int filledSlots;
+
+    public LoadTestPlayer(World world, int id, int filledSlots)
+    {
+        super(world, new GameProfile(new UUID(0x4C6F6164L, id), "LoadTest" + id));
+        this.filledSlots = filledSlots;
+        resetInventory();
+    }
+
+    /**
+     * Puts the inventory back to how it started, so each open sees the same amount of space
+     */
+    public void resetInventory()
+    {
+        for (int slot = 0; slot < inventory.mainInventory.length; slot++)
+        {
+            inventory.mainInventory[slot] = slot < filledSlots ? new ItemStack(Blocks.dirt, 64) : null;
+        }
+    }
+
+    @Override
+    public void addChatMessage(IChatComponent message)
+    {
+    }
+
+    @Override
+    public boolean canCommandSenderUseCommand(int level, String command)
+    {
+        return false;
+    }
+
+    @Override
+    public ChunkCoordinates getPlayerCoordinates()
+    {
+        return new ChunkCoordinates((int) Math.floor(posX), (int) Math.floor(posY), (int) Math.floor(posZ));
+    }
+}
@@ -0,0 +1,93 @@
+package com.builtbroken.wjlootboxes.loot.load;
+
+import com.builtbroken.wjlootboxes.box.TileEntityLootbox;
+import com.builtbroken.wjlootboxes.loot.LootRoll;
+import net.minecraft.entity.Entity;
+import net.minecraft.profiler.Profiler;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.ChunkPosition;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldProviderSurface;
+import net.minecraft.world.WorldSettings;
+import net.minecraft.world.WorldType;
+import net.minecraft.world.chunk.IChunkProvider;
+import net.minecraft.world.storage.SaveHandlerMP;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * World for the load test, holds boxes and counts the entities spawned into it without
+ * keeping them. Nothing is saved and no chunks are loaded, only the parts of the world
+ * used when a box is opened work.
+ * <p>
+ * Uses the same save handler as the client world, which has nothing to save to.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class LoadTestWorld extends World
+{
+    /** Boxes waiting to be opened */
+    private final Map<ChunkPosition, TileEntity> tiles = new HashMap();
+
+    /** Entities spawned since last reset */
+    public int entitiesSpawned;
+
+    public LoadTestWorld(String name, long seed)
+    {
+        super(new SaveHandlerMP(), name, new WorldSettings(seed, WorldSettings.GameType.SURVIVAL, false, false, WorldType.FLAT), new WorldProviderSurface(), new Profiler());
+        rand.setSeed(seed);
+    }
+
+    /**
+     * Places a box with loot rolled ahead of time
+     *
+     * @param x
+     * @param y
+     * @param z
+     * @param loot - loot to store in the box
+     */
+    public void placeBox(int x, int y, int z, LootRoll loot)
+    {
+        final TileEntityLootbox tile = new TileEntityLootbox();
+        tile.setLoot(loot);
+        tiles.put(new ChunkPosition(x, y, z), tile);
+    }
+
+    @Override
+    public TileEntity getTileEntity(int x, int y, int z)
+    {
+        return tiles.get(new ChunkPosition(x, y, z));
+    }
+
+    @Override
+    public void removeTileEntity(int x, int y, int z)
+    {
+        tiles.remove(new ChunkPosition(x, y, z));
+    }
+
+    @Override
+    public boolean spawnEntityInWorld(Entity entity)
+    {
+        entitiesSpawned++;
+        return true;
+    }
+
+    @Override
+    protected IChunkProvider createChunkProvider()
+    {
+        return provider.createChunkGenerator();
+    }
+
+    @Override
+    protected int func_152379_p()
+    {
+        return 0;
+    }
+
+    @Override
+    public Entity getEntityByID(int id)
+    {
+        return null;
+    }
+}
@@ -0,0 +1,106 @@
+package com.builtbroken.wjlootboxes.spawner;
+
+import com.builtbroken.wjlootboxes.core.spawn.SpawnRejection;
+import com.builtbroken.wjlootboxes.loot.LootBenchmarkData;
+import com.builtbroken.wjlootboxes.spawner.simulator.SimulatedWorld;
+import net.minecraft.block.Block;
+import net.minecraft.world.chunk.Chunk;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the checks done for each candidate position, reported as nano-seconds
+ * per candidate. Candidates are picked the same way as the scanner, a random column
+ * with a random y below the top block, so most are rejected as blocked. They are
+ * reused in order each call.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpawnCheckBenchmark
+{
+    /** Number of candidates, power of two so the index can be masked */
+    public static final int CANDIDATES = 1 << 14;
+
+    @Param({"FLAT", "HILLS", "OCEAN"})
+    public SimulatedWorld.Terrain terrain;
+
+    @Param({"0", "1", "16"})
+    public int areas;
+
+    private SimulatedWorld world;
+    private BoxSpawnSettings settings;
+
+    private int[] x;
+    private int[] y;
+    private int[] z;
+    /** Block and meta below each candidate */
+    private Block[] ground;
+    private int[] groundMeta;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        LootBenchmarkData.setup();
+        world = new SimulatedWorld(SpawnerScanBenchmark.SIZE, terrain.heights(SpawnerScanBenchmark.SIZE), 0, LootBenchmarkData.SEED);
+        settings = SpawnerBenchmarkData.createSettings(world, 1, areas);
+
+        final Random random = new Random(LootBenchmarkData.SEED);
+        final int min = world.getMinChunk() * 16;
+        final int blocks = world.size * 16;
+        x = new int[CANDIDATES];
+        y = new int[CANDIDATES];
+        z = new int[CANDIDATES];
+        ground = new Block[CANDIDATES];
+        groundMeta = new int[CANDIDATES];
+        for (int i = 0; i < CANDIDATES; i++)
+        {
+            x[i] = min + random.nextInt(blocks);
+            z[i] = min + random.nextInt(blocks);
+
+            //Same range the scanner checks
+            final Chunk chunk = world.getChunk(x[i] >> 4, z[i] >> 4);
+            final int height = chunk.getHeightValue(x[i] & 15, z[i] & 15);
+            y[i] = Math.max(1, random.nextInt(height) - settings.placementCheckHeightAdjust + random.nextInt(settings.placementCheckHeightAdjust * 2));
+
+            ground[i] = world.getBlock(x[i], y[i] - 1, z[i]);
+            groundMeta[i] = world.getBlockMetadata(x[i], y[i] - 1, z[i]);
+        }
+    }
+
+    private int next()
+    {
+        next = (next + 1) & (CANDIDATES - 1);
+        return next;
+    }
+
+    /** All checks for a candidate */
+    @Benchmark
+    public SpawnRejection checkSpawn()
+    {
+        final int i = next();
+        return BoxSpawnerWorld.checkSpawn(world, settings, x[i], y[i], z[i]);
+    }
+
+    @Benchmark
+    public boolean canSpawnInArea()
+    {
+        final int i = next();
+        return settings.canSpawnInArea(x[i], z[i]);
+    }
+
+    @Benchmark
+    public boolean isSupportedBlock()
+    {
+        final int i = next();
+        return settings.isSupportedBlock(ground[i], groundMeta[i]);
+    }
+}
@@ -0,0 +1,94 @@
+package com.builtbroken.wjlootboxes.spawner;
+
+import com.builtbroken.wjlootboxes.WJLootBoxes;
+import com.builtbroken.wjlootboxes.loot.LootBenchmarkData;
+import com.builtbroken.wjlootboxes.loot.LootHandler;
+import com.builtbroken.wjlootboxes.spawner.simulator.SimulatedWorld;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the scanner checking chunks for box positions, reported as chunks per second.
+ * Loot is not rolled ahead of time so only the scan is measured, see the loot benchmarks
+ * for the cost of rolling.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpawnerScanBenchmark
+{
+    /** Chunks along each side of the world */
+    public static final int SIZE = 16;
+    /** Chunks scanned by each benchmark call */
+    public static final int CHUNKS = SIZE * SIZE;
+
+    @Param({"FLAT", "HILLS", "OCEAN"})
+    public SimulatedWorld.Terrain terrain;
+
+    @Param({"0", "64"})
+    public int tilesPerChunk;
+
+    @Param({"0", "16"})
+    public int areas;
+
+    @Param({"1"})
+    public int boxesPerChunk;
+
+    private SimulatedWorld world;
+    private BoxSpawnSettings settings;
+    private BoxSpawnerWorld spawnerWorld;
+    private BoxSpawnerThread scanner;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        LootBenchmarkData.setup();
+        if (WJLootBoxes.lootHandler == null)
+        {
+            WJLootBoxes.lootHandler = new LootHandler(WJLootBoxes.NUMBER_OF_TIERS);
+        }
+        WJLootBoxes.lootHandler.preRollLoot = false;
+
+        world = new SimulatedWorld(SIZE, terrain.heights(SIZE), tilesPerChunk, LootBenchmarkData.SEED);
+        settings = SpawnerBenchmarkData.createSettings(world, boxesPerChunk, areas);
+        spawnerWorld = new BoxSpawnerWorld(0);
+        scanner = new BoxSpawnerThread();
+        random = new Random(LootBenchmarkData.SEED);
+    }
+
+    /** Scan of every chunk in the world, same work as the scanner thread does per chunk */
+    @Benchmark
+    @OperationsPerInvocation(CHUNKS)
+    public int scanChunks()
+    {
+        int spawnPoints = 0;
+        for (int i = 0; i < world.chunks.length; i++)
+        {
+            spawnPoints += scanner.handleChunk(spawnerWorld, settings, world, random, world.chunks[i]);
+        }
+
+        //Nothing drains the queue without a world tick
+        spawnerWorld.placementQueue.clear();
+        return spawnPoints;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNKS)
+    public int countCrates()
+    {
+        int crates = 0;
+        for (int i = 0; i < world.chunks.length; i++)
+        {
+            crates += BoxSpawnerThread.countCrates(world.chunks[i]);
+        }
+        return crates;
+    }
+}
@@ -0,0 +1,301 @@
+package com.builtbroken.wjlootboxes;
+
+import com.google.gson.JsonElement;
+import com.google.gson.internal.Streams;
+import com.google.gson.stream.JsonWriter;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Writes files for the mod on a single background thread so saving never stalls a tick.
+ * <p>
+ * Each file is written to a temp file next to it then moved in place, so a crash part way
+ * through a write never leaves a half written file. Writes to a file that is still waiting
+ * in the queue replace the queued write, only the latest content is written.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class FileWriteService extends Thread
+{
+    /** Size of the buffer placed around the file stream */
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Checked in all loops in order to kill the thread if false */
+    public volatile boolean shouldRun = true;
+
+    /** Files in the order they were queued */
+    private final ArrayDeque<File> queue = new ArrayDeque();
+    /** Write waiting for each file in the queue */
+    private final HashMap<File, PendingWrite> pending = new HashMap();
+    /** True while the thread is writing a file, guarded by {@link #queue} */
+    private boolean writing;
+
+    public FileWriteService()
+    {
+        super("WJ_FileWriter");
+        setDaemon(true);
+    }
+
+    /**
+     * Queues a file to be written
+     *
+     * @param file     - file to write, parent folders are created as needed
+     * @param output   - writes the content of the file, called on the writer thread
+     *                 so it should only use data that will not change
+     * @param callback - called on the main thread once the file is written, can be null
+     */
+    public void write(File file, FileOutput output, @Nullable WriteCallback callback)
+    {
+        final File key = file.getAbsoluteFile();
+        synchronized (queue)
+        {
+            PendingWrite write = pending.get(key);
+            if (write == null)
+            {
+                write = new PendingWrite();
+                pending.put(key, write);
+                queue.add(key);
+            }
+
+            //Newer content replaces the old, callbacks for both are run once written
+            write.output = output;
+            if (callback != null)
+            {
+                write.callbacks.add(callback);
+            }
+            queue.notifyAll();
+        }
+    }
+
+    /**
+     * Queues JSON to be written to a file, pretty printed
+     *
+     * @param file     - file to write
+     * @param element  - JSON to write, should not be changed after this call
+     * @param callback - called on the main thread once the file is written, can be null
+     */
+    public void writeJson(File file, JsonElement element, @Nullable WriteCallback callback)
+    {
+        write(file, stream -> {
+            final JsonWriter jsonWriter = createJsonWriter(stream);
+            Streams.write(element, jsonWriter);
+            jsonWriter.flush();
+        }, callback);
+    }
+
+    /**
+     * Creates a pretty printing JSON writer for the stream, matches the
+     * output of Gson with pretty printing. Not closed by the caller, the
+     * stream is closed by the service.
+     *
+     * @param stream - stream for the file
+     * @return writer, must be flushed once done
+     */
+    public static JsonWriter createJsonWriter(OutputStream stream)
+    {
+        final JsonWriter jsonWriter = new JsonWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        jsonWriter.setIndent("  ");
+        jsonWriter.setSerializeNulls(false);
+        return jsonWriter;
+    }
+
+    /**
+     * Waits for all queued files to be written
+     *
+     * @param timeout - max time to wait in milli-seconds
+     * @return true if the queue is empty, false if timed out
+     */
+    public boolean flush(long timeout)
+    {
+        final long end = System.currentTimeMillis() + timeout;
+        synchronized (queue)
+        {
+            while (!queue.isEmpty() || writing)
+            {
+                final long wait = end - System.currentTimeMillis();
+                if (wait <= 0 || !isAlive())
+                {
+                    return false;
+                }
+                try
+                {
+                    queue.wait(wait);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Number of files waiting to be written
+     *
+     * @return count
+     */
+    public int getQueueSize()
+    {
+        synchronized (queue)
+        {
+            return queue.size();
+        }
+    }
+
+    /**
+     * Stops the thread once the queue is written
+     */
+    public void kill()
+    {
+        synchronized (queue)
+        {
+            shouldRun = false;
+            queue.notifyAll();
+        }
+    }
+
+    @Override
+    public void run()
+    {
+        WJLootBoxes.LOGGER.info("File writer has started");
+        while (true)
+        {
+            final File file;
+            final PendingWrite write;
+            synchronized (queue)
+            {
+                while (queue.isEmpty() && shouldRun)
+                {
+                    try
+                    {
+                        queue.wait();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        //Keep going, the queue is always written before stopping
+                    }
+                }
+                if (queue.isEmpty())
+                {
+                    break;
+                }
+                file = queue.poll();
+                write = pending.remove(file);
+                writing = true;
+            }
+
+            Exception error = null;
+            try
+            {
+                writeFile(file, write.output);
+            }
+            catch (Exception e)
+            {
+                WJLootBoxes.LOGGER.error("Failed to write file " + file, e);
+                error = e;
+            }
+
+            synchronized (queue)
+            {
+                writing = false;
+                queue.notifyAll();
+            }
+
+            if (!write.callbacks.isEmpty())
+            {
+                final Exception result = error;
+                WJLootBoxes.serverTasks.add(() -> {
+                    for (WriteCallback callback : write.callbacks)
+                    {
+                        callback.onWriteComplete(file, result);
+                    }
+                });
+            }
+        }
+        WJLootBoxes.LOGGER.info("File writer has stopped");
+    }
+
+    /**
+     * Writes the file to a temp file, syncs it to disk, then moves it in place
+     *
+     * @param file   - file to write
+     * @param output - content of the file
+     * @throws IOException
+     */
+    protected void writeFile(File file, FileOutput output) throws IOException
+    {
+        if (!file.getParentFile().exists())
+        {
+            file.getParentFile().mkdirs();
+        }
+
+        final File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try
+        {
+            try (FileOutputStream fileStream = new FileOutputStream(tempFile))
+            {
+                final BufferedOutputStream stream = new BufferedOutputStream(fileStream, BUFFER_SIZE);
+                output.write(stream);
+                stream.flush();
+                fileStream.getFD().sync();
+            }
+
+            try
+            {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        finally
+        {
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Writes the content of a file
+     */
+    @FunctionalInterface
+    public interface FileOutput
+    {
+        /**
+         * @param stream - buffered stream for the file, do not close
+         * @throws IOException
+         */
+        void write(OutputStream stream) throws IOException;
+    }
+
+    /**
+     * Called on the main thread once a file has been written
+     */
+    @FunctionalInterface
+    public interface WriteCallback
+    {
+        /**
+         * @param file  - file written
+         * @param error - error if the write failed, null if written
+         */
+        void onWriteComplete(File file, @Nullable Exception error);
+    }
+
+    /** Write waiting in the queue */
+    private static class PendingWrite
+    {
+        FileOutput output;
+        final List<WriteCallback> callbacks = new ArrayList();
+    }
+}
@@ -0,0 +1,48 @@
+package com.builtbroken.wjlootboxes;
+
+import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import cpw.mods.fml.common.gameevent.TickEvent;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Queue of tasks to run on the main server thread. Used by background work,
+ * such as reloading loot tables, to report back to players and touch the world.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class ServerTaskQueue
+{
+    /** Thread safe queue of tasks to run */
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue();
+
+    /**
+     * Queues the task to run at the start of the next server tick
+     *
+     * @param task - task to run, can be added from any thread
+     */
+    public void add(Runnable task)
+    {
+        tasks.add(task);
+    }
+
+    @SubscribeEvent
+    public void onServerTick(TickEvent.ServerTickEvent event)
+    {
+        if (event.phase == TickEvent.Phase.START)
+        {
+            Runnable task;
+            while ((task = tasks.poll()) != null)
+            {
+                try
+                {
+                    task.run();
+                }
+                catch (Exception e)
+                {
+                    WJLootBoxes.LOGGER.error("Unexpected error running server task " + task, e);
+                }
+            }
+        }
+    }
+}
@@ -4,7 +4,12 @@ import com.builtbroken.wjlootboxes.box.BlockLootbox;
 import com.builtbroken.wjlootboxes.box.ItemBlockLootbox;
 import com.builtbroken.wjlootboxes.box.TileEntityLootbox;
 import com.builtbroken.wjlootboxes.command.CommandLootbox;
+import com.builtbroken.wjlootboxes.loot.LootBreakBatcher;
 import com.builtbroken.wjlootboxes.loot.LootHandler;
+import com.builtbroken.wjlootboxes.log.BoxEventLog;
+import com.builtbroken.wjlootboxes.metrics.BoxEvents;
+import com.builtbroken.wjlootboxes.metrics.BoxMetrics;
+import com.builtbroken.wjlootboxes.metrics.PrometheusExporter;
 import com.builtbroken.wjlootboxes.spawner.BoxSpawner;
 import com.builtbroken.wjlootboxes.spawner.BoxSpawnerThread;
 import cpw.mods.fml.common.FMLCommonHandler;
@@ -16,6 +21,7 @@ import cpw.mods.fml.common.event.FMLServerStoppingEvent;
 import cpw.mods.fml.common.registry.GameRegistry;
 import net.minecraft.command.ICommandManager;
 import net.minecraft.command.ServerCommandManager;
+import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.common.config.Configuration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -34,20 +40,35 @@ public class WJLootBoxes
 
     public static final int NUMBER_OF_TIERS = 5;
 
+    /** Time to wait for queued files to be written when the server stops, in milli-seconds */
+    public static final long FILE_FLUSH_TIMEOUT = 30000;
+
+    /** Spawner and loot metrics, shared by all threads */
+    public static final BoxMetrics metrics = new BoxMetrics(NUMBER_OF_TIERS);
+    /** Flight recorder events, does nothing if the runtime doesn't support JFR */
+    public static final BoxEvents events = BoxEvents.create();
+    /** Spawner event log, logs nothing until started from the config */
+    public static final BoxEventLog eventLog = new BoxEventLog();
+
     public static Logger LOGGER;
     public static File configFolder;
 
     public static BlockLootbox blockLootbox;
 
+    public static ServerTaskQueue serverTasks;
+    public static FileWriteService fileWriter;
     public static LootHandler lootHandler;
+    public static LootBreakBatcher lootBatcher;
     public static BoxSpawner boxSpawner;
     public static BoxSpawnerThread thread;
+    public static PrometheusExporter metricsExporter;
 
     @Mod.EventHandler
     public void preInit(FMLPreInitializationEvent event)
     {
         //Create logger so we can print errors and info
         LOGGER = LogManager.getLogger("WJ_LootBoxes");
+        LOGGER.info("Flight recorder events are " + (events.isSupported() ? "enabled" : "not supported by this runtime"));
 
         //Create and register box
         blockLootbox = new BlockLootbox();
@@ -55,14 +76,25 @@ public class WJLootBoxes
         GameRegistry.registerTileEntity(TileEntityLootbox.class, PREFIX + "box");
 
         //Load handlers
+        serverTasks = new ServerTaskQueue();
+        fileWriter = new FileWriteService();
+        fileWriter.start();
         lootHandler = new LootHandler(NUMBER_OF_TIERS);
+        lootBatcher = new LootBreakBatcher();
         boxSpawner = new BoxSpawner();
+        metricsExporter = new PrometheusExporter();
 
+        FMLCommonHandler.instance().bus().register(serverTasks);
+        FMLCommonHandler.instance().bus().register(lootBatcher);
+        //World unloads, to let go of loot waiting to drop
+        MinecraftForge.EVENT_BUS.register(lootBatcher);
         FMLCommonHandler.instance().bus().register(boxSpawner);
+        FMLCommonHandler.instance().bus().register(metricsExporter);
 
         //Load settings
         configFolder = new File(event.getModConfigurationDirectory(), DOMAIN);
         loadConfiguration(configFolder);
+        eventLog.start();
     }
 
     @Mod.EventHandler
@@ -84,12 +116,29 @@ public class WJLootBoxes
         //Start thread
         thread = new BoxSpawnerThread();
         thread.startScanner();
+        boxSpawner.startWatcher();
+        metrics.registerJMX();
     }
 
     @Mod.EventHandler
     public void onServerStop(FMLServerStoppingEvent event)
     {
         thread.kill();
+        boxSpawner.stopWatcher();
+        metrics.unregisterJMX();
+
+        //Worlds are saved after this, drop loot still waiting on the entity limit so it isn't lost
+        lootBatcher.dropPending(Integer.MAX_VALUE);
+
+        //Finish any saves still queued before the server exits
+        if (!fileWriter.flush(FILE_FLUSH_TIMEOUT))
+        {
+            LOGGER.error("Timed out waiting for " + fileWriter.getQueueSize() + " files to be written");
+        }
+        if (!eventLog.flush(FILE_FLUSH_TIMEOUT))
+        {
+            LOGGER.error("Timed out waiting for the event log to be written");
+        }
     }
 
     private void loadConfiguration(File folder)
@@ -103,7 +152,10 @@ public class WJLootBoxes
         Configuration configuration = new Configuration(configFile);
         configuration.load();
         lootHandler.loadConfiguration(configuration);
+        lootBatcher.loadConfiguration(configuration);
         boxSpawner.loadConfiguration(configuration);
+        metricsExporter.loadConfiguration(configuration);
+        eventLog.loadConfiguration(configuration);
         configuration.save();
     }
 }
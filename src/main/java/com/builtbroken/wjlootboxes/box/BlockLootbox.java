@@ -46,9 +46,18 @@ public class BlockLootbox extends Block implements ITileEntityProvider
     @Override
     public void breakBlock(World world, int x, int y, int z, Block block, int meta)
     {
-        if(world.getTileEntity(x, y, z) instanceof TileEntityLootbox)
+        final TileEntity tile = world.getTileEntity(x, y, z);
+        if (tile instanceof TileEntityLootbox)
         {
-            WJLootBoxes.lootHandler.onLootDropped(null, world, x, y, z, meta);
+            if (WJLootBoxes.lootBatcher.enabled && !world.isRemote)
+            {
+                //Resolved at the end of the tick together with other boxes broken this tick
+                WJLootBoxes.lootBatcher.queue(world, x, y, z, meta, ((TileEntityLootbox) tile).takeLoot());
+            }
+            else
+            {
+                WJLootBoxes.lootHandler.onLootDropped(null, world, x, y, z, meta);
+            }
         }
     }
 
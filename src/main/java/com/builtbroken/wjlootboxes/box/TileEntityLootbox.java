@@ -1,18 +1,64 @@
 package com.builtbroken.wjlootboxes.box;
 
+import com.builtbroken.wjlootboxes.loot.LootRoll;
+import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.tileentity.TileEntity;
 
 /**
- * Exists purely to track how many tiles are inside the chunk
+ * Tracks how many tiles are inside the chunk, and stores loot that was rolled
+ * ahead of time by the spawner so opening the box only needs to copy it out.
  *
  * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
  * Created by Dark(DarkGuardsman, Robert) on 3/22/2018.
  */
 public class TileEntityLootbox extends TileEntity
 {
+    public static final String NBT_LOOT = "loot";
+
+    /** Loot rolled ahead of time, null if loot should be rolled when opened */
+    private LootRoll loot;
+
     @Override
     public boolean canUpdate()
     {
         return false;
     }
+
+    public void setLoot(LootRoll loot)
+    {
+        this.loot = loot;
+        markDirty();
+    }
+
+    /**
+     * Removes the stored loot from the box
+     *
+     * @return loot rolled ahead of time, or null if none was stored
+     */
+    public LootRoll takeLoot()
+    {
+        LootRoll roll = loot;
+        loot = null;
+        return roll;
+    }
+
+    @Override
+    public void readFromNBT(NBTTagCompound nbt)
+    {
+        super.readFromNBT(nbt);
+        if (nbt.hasKey(NBT_LOOT))
+        {
+            loot = LootRoll.readFromNBT(nbt.getCompoundTag(NBT_LOOT));
+        }
+    }
+
+    @Override
+    public void writeToNBT(NBTTagCompound nbt)
+    {
+        super.writeToNBT(nbt);
+        if (loot != null)
+        {
+            nbt.setTag(NBT_LOOT, loot.writeToNBT(new NBTTagCompound()));
+        }
+    }
 }
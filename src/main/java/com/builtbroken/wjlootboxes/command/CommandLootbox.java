@@ -2,9 +2,10 @@ package com.builtbroken.wjlootboxes.command;
 
 import com.builtbroken.wjlootboxes.WJLootBoxes;
 import com.builtbroken.wjlootboxes.loot.LootHandler;
+import com.builtbroken.wjlootboxes.loot.LootTableExport;
 import com.builtbroken.wjlootboxes.loot.entry.stack.LootEntryItemStack;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.builtbroken.wjlootboxes.loot.simulator.LootSimulation;
+import com.builtbroken.wjlootboxes.loot.simulator.LootSimulationTable;
 import com.google.gson.JsonElement;
 import net.minecraft.command.CommandBase;
 import net.minecraft.command.CommandException;
@@ -13,6 +14,7 @@ import net.minecraft.command.WrongUsageException;
 import net.minecraft.entity.item.EntityItem;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.inventory.IInventory;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.JsonToNBT;
@@ -20,13 +22,17 @@ import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTException;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.server.MinecraftServer;
+import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.ChatComponentText;
+import net.minecraft.util.ChunkCoordinates;
+import net.minecraft.util.MathHelper;
 import net.minecraftforge.oredict.OreDictionary;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
@@ -38,9 +44,39 @@ public class CommandLootbox extends CommandBase
     private static final String COMMAND_LOOT = "loot";
     private static final String COMMAND_ITEM = "heldItem";
     private static final String COMMAND_SAVE = "saveHand";
+    private static final String COMMAND_RELOAD = "reload";
+    private static final String COMMAND_SIMULATE = "simulate";
+    private static final String COMMAND_CONVERT = "convert";
+    private static final String COMMAND_EXPORT = "export";
+    private static final String COMMAND_STATS = "stats";
     private static final String COMMAND_HELP = "help";
 
-    private static final String[] COMMANDS = new String[]{COMMAND_GIVE, COMMAND_LOOT, COMMAND_ITEM, COMMAND_SAVE, COMMAND_HELP};
+    private static final String RELOAD_LOOT = "loot";
+
+    private static final String CONVERT_NBT = "nbt";
+    private static final String CONVERT_JSON = "json";
+
+    private static final String EXPORT_CONTAINER = "container";
+    private static final String EXPORT_INVENTORY = "inventory";
+
+    private static final String[] COMMANDS = new String[]{COMMAND_GIVE, COMMAND_LOOT, COMMAND_ITEM, COMMAND_SAVE, COMMAND_RELOAD, COMMAND_SIMULATE, COMMAND_CONVERT, COMMAND_EXPORT, COMMAND_STATS, COMMAND_HELP};
+    private static final String[] RELOAD_TARGETS = new String[]{RELOAD_LOOT};
+    private static final String[] CONVERT_TARGETS = new String[]{CONVERT_NBT, CONVERT_JSON};
+    private static final String[] EXPORT_SOURCES = new String[]{EXPORT_CONTAINER, EXPORT_INVENTORY};
+
+    /** Max number of boxes a single simulate command can open */
+    private static final int MAX_SIMULATED_ROLLS = 100000000;
+
+    /** Set while a simulation is running, only one is allowed at a time */
+    private static final AtomicBoolean simulating = new AtomicBoolean();
+
+    /** Max number of names returned for a single tab completion */
+    private static final int MAX_COMPLETIONS = 100;
+
+    /** Item registry names, built when the command is registered at server start */
+    private final PrefixIndex itemNames = new PrefixIndex(Item.itemRegistry.getKeys());
+    /** Loot box tiers */
+    private final PrefixIndex tierNames = PrefixIndex.ofRange(WJLootBoxes.lootHandler.tiers);
 
     @Override
     public String getCommandName()
@@ -63,6 +99,11 @@ public class CommandLootbox extends CommandBase
             sender.addChatMessage(new ChatComponentText(getCommandUsage(sender) + " heldItem    - prints data about the item held"));
             sender.addChatMessage(new ChatComponentText(getCommandUsage(sender) + " saveHeld    - saves held item data held to a file for use"));
             sender.addChatMessage(new ChatComponentText(getCommandUsage(sender) + " loot <player> <tier>    - spawns random loot for the given tier of lootbox"));
+            sender.addChatMessage(new ChatComponentText(getCommandUsage(sender) + " reload loot    - reloads the loot tables in the background"));
+            sender.addChatMessage(new ChatComponentText(getCommandUsage(sender) + " simulate <tier> <rolls>    - opens boxes in the background and reports the loot given"));
+            sender.addChatMessage(new ChatComponentText(getCommandUsage(sender) + " convert <nbt|json>    - saves the loot tables in use as compressed NBT or JSON"));
+            sender.addChatMessage(new ChatComponentText(getCommandUsage(sender) + " stats    - shows spawner and loot metrics"));
+            sender.addChatMessage(new ChatComponentText(getCommandUsage(sender) + " export <tier> <container <x> <y> <z>|inventory [player]>    - adds every stack to the tier's loot table"));
         }
         else if (args[0].equalsIgnoreCase(COMMAND_GIVE))
         {
@@ -81,6 +122,126 @@ public class CommandLootbox extends CommandBase
                 throw new CommandException("command.wjlootboxes:error.args.missing");
             }
         }
+        else if (args[0].equalsIgnoreCase(COMMAND_RELOAD))
+        {
+            if (args.length >= 2 && args[1].equalsIgnoreCase(RELOAD_LOOT))
+            {
+                final boolean started = WJLootBoxes.lootHandler.reloadLootData((published, messages) -> {
+                    if (published)
+                    {
+                        sender.addChatMessage(new ChatComponentText("Loot tables reloaded"));
+                    }
+                    else
+                    {
+                        sender.addChatMessage(new ChatComponentText("Loot tables failed to reload, keeping current tables"));
+                    }
+                    for (String message : messages)
+                    {
+                        sender.addChatMessage(new ChatComponentText("   " + message));
+                    }
+                });
+
+                if (started)
+                {
+                    sender.addChatMessage(new ChatComponentText("Reloading loot tables..."));
+                }
+                else
+                {
+                    sender.addChatMessage(new ChatComponentText("Loot tables are already reloading"));
+                }
+            }
+            else
+            {
+                throw new WrongUsageException(getCommandUsage(sender) + " reload loot");
+            }
+        }
+        else if (args[0].equalsIgnoreCase(COMMAND_SIMULATE))
+        {
+            if (args.length >= 3)
+            {
+                final int tier = parseIntBounded(sender, args[1], 0, WJLootBoxes.lootHandler.tiers - 1);
+                final int rolls = parseIntBounded(sender, args[2], 1, MAX_SIMULATED_ROLLS);
+
+                if (simulating.compareAndSet(false, true))
+                {
+                    //Copy the table on the main thread, simulation doesn't touch game data after this
+                    final LootSimulationTable table = LootSimulationTable.from(WJLootBoxes.lootHandler.getTable(tier));
+                    sender.addChatMessage(new ChatComponentText("Simulating " + rolls + " boxes of tier " + tier + "..."));
+
+                    CompletableFuture.supplyAsync(() -> LootSimulation.simulate(table, rolls, System.nanoTime()))
+                            .whenComplete((result, error) -> {
+                                simulating.set(false);
+                                WJLootBoxes.serverTasks.add(() -> {
+                                    if (result != null)
+                                    {
+                                        for (String line : result.toReport())
+                                        {
+                                            sender.addChatMessage(new ChatComponentText(line));
+                                        }
+                                    }
+                                    else
+                                    {
+                                        WJLootBoxes.LOGGER.error("Unexpected error while simulating loot for tier " + tier, error);
+                                        sender.addChatMessage(new ChatComponentText("Loot simulation failed, see console for details"));
+                                    }
+                                });
+                            });
+                }
+                else
+                {
+                    sender.addChatMessage(new ChatComponentText("A loot simulation is already running"));
+                }
+            }
+            else
+            {
+                throw new WrongUsageException(getCommandUsage(sender) + " simulate <tier> <rolls>");
+            }
+        }
+        else if (args[0].equalsIgnoreCase(COMMAND_CONVERT))
+        {
+            if (args.length >= 2 && (args[1].equalsIgnoreCase(CONVERT_NBT) || args[1].equalsIgnoreCase(CONVERT_JSON)))
+            {
+                final boolean toBinary = args[1].equalsIgnoreCase(CONVERT_NBT);
+                final boolean started = WJLootBoxes.lootHandler.convertLootData(toBinary, (converted, messages) -> {
+                    if (converted)
+                    {
+                        sender.addChatMessage(new ChatComponentText("Loot tables saved as " + (toBinary ? "NBT" : "JSON")));
+                    }
+                    else
+                    {
+                        sender.addChatMessage(new ChatComponentText("Some loot tables failed to convert, see console for details"));
+                    }
+                    for (String message : messages)
+                    {
+                        sender.addChatMessage(new ChatComponentText("   " + message));
+                    }
+                });
+
+                if (started)
+                {
+                    sender.addChatMessage(new ChatComponentText("Converting loot tables..."));
+                }
+                else
+                {
+                    sender.addChatMessage(new ChatComponentText("Loot tables are already being reloaded or converted"));
+                }
+            }
+            else
+            {
+                throw new WrongUsageException(getCommandUsage(sender) + " convert <nbt|json>");
+            }
+        }
+        else if (args[0].equalsIgnoreCase(COMMAND_STATS))
+        {
+            for (String line : WJLootBoxes.metrics.toReport())
+            {
+                sender.addChatMessage(new ChatComponentText(line));
+            }
+        }
+        else if (args[0].equalsIgnoreCase(COMMAND_EXPORT))
+        {
+            processExport(sender, args);
+        }
         else if (args[0].equalsIgnoreCase(COMMAND_ITEM))
         {
             if (sender instanceof EntityPlayer)
@@ -120,28 +281,84 @@ public class CommandLootbox extends CommandBase
                 JsonElement element = LootHandler.saveLootEntry(new LootEntryItemStack(stack, 0, 1, 1));
 
                 File file = new File(WJLootBoxes.configFolder, "/items/" + stack.getUnlocalizedName().replace(":", "-").replace("/", "-") + "-" + System.currentTimeMillis() + ".json");
-                if (!file.getParentFile().exists())
-                {
-                    file.getParentFile().mkdirs();
-                }
 
                 //Write file to disk
-                Gson gson = new GsonBuilder().setPrettyPrinting().create();
-                try (FileWriter fileWriter = new FileWriter(file))
-                {
-                    fileWriter.write(gson.toJson(element));
-                    ((EntityPlayer) sender).addChatComponentMessage(new ChatComponentText("Item data saved as JSON >> " + file.getAbsolutePath()));
-                }
-                catch (Exception e)
-                {
-                    e.printStackTrace();
-                    ((EntityPlayer) sender).addChatComponentMessage(new ChatComponentText("Unexpected error saving file: '" + e.getMessage() + "'"));
-                    ((EntityPlayer) sender).addChatComponentMessage(new ChatComponentText("See console for more details"));
-                }
+                WJLootBoxes.fileWriter.writeJson(file, element, (writtenFile, error) -> {
+                    if (error == null)
+                    {
+                        ((EntityPlayer) sender).addChatComponentMessage(new ChatComponentText("Item data saved as JSON >> " + writtenFile.getAbsolutePath()));
+                    }
+                    else
+                    {
+                        ((EntityPlayer) sender).addChatComponentMessage(new ChatComponentText("Unexpected error saving file: '" + error.getMessage() + "'"));
+                        ((EntityPlayer) sender).addChatComponentMessage(new ChatComponentText("See console for more details"));
+                    }
+                });
             }
         }
     }
 
+    /**
+     * Reads the stacks of a container or player inventory on the main
+     * thread, then adds them to the tier's loot table in the background.
+     */
+    protected void processExport(ICommandSender sender, String[] args)
+    {
+        final String usage = getCommandUsage(sender) + " export <tier> <container <x> <y> <z>|inventory [player]>";
+        if (args.length < 3)
+        {
+            throw new WrongUsageException(usage);
+        }
+
+        final int tier = parseIntBounded(sender, args[1], 0, WJLootBoxes.lootHandler.tiers - 1);
+        final IInventory inventory;
+        if (args[2].equalsIgnoreCase(EXPORT_CONTAINER) && args.length >= 6)
+        {
+            final ChunkCoordinates coords = sender.getPlayerCoordinates();
+            final int x = MathHelper.floor_double(func_110666_a(sender, coords.posX, args[3]));
+            final int y = MathHelper.floor_double(func_110666_a(sender, coords.posY, args[4]));
+            final int z = MathHelper.floor_double(func_110666_a(sender, coords.posZ, args[5]));
+
+            final TileEntity tile = sender.getEntityWorld().getTileEntity(x, y, z);
+            if (!(tile instanceof IInventory))
+            {
+                throw new CommandException("No container found at " + x + ", " + y + ", " + z);
+            }
+            inventory = (IInventory) tile;
+        }
+        else if (args[2].equalsIgnoreCase(EXPORT_INVENTORY))
+        {
+            inventory = (args.length >= 4 ? getPlayer(sender, args[3]) : getCommandSenderAsPlayer(sender)).inventory;
+        }
+        else
+        {
+            throw new WrongUsageException(usage);
+        }
+
+        final List<ItemStack> stacks = LootTableExport.copyStacks(inventory);
+        if (stacks.isEmpty())
+        {
+            sender.addChatMessage(new ChatComponentText("Nothing to export, " + inventory.getInventoryName() + " is empty"));
+            return;
+        }
+
+        final boolean started = WJLootBoxes.lootHandler.exportToTable(tier, stacks, (saved, messages) -> {
+            for (String message : messages)
+            {
+                sender.addChatMessage(new ChatComponentText(message));
+            }
+        });
+
+        if (started)
+        {
+            sender.addChatMessage(new ChatComponentText("Exporting " + stacks.size() + " stacks to tier " + tier + "..."));
+        }
+        else
+        {
+            sender.addChatMessage(new ChatComponentText("Loot tables are already being reloaded or changed"));
+        }
+    }
+
     public void processGive(ICommandSender sender, String[] args)
     {
         if (args.length < 2)
@@ -193,6 +410,8 @@ public class CommandLootbox extends CommandBase
             EntityItem entityitem = entityplayermp.dropPlayerItemWithRandomChoice(itemstack, false);
             entityitem.delayBeforeCanPickup = 0;
             entityitem.func_145797_a(entityplayermp.getCommandSenderName());
+            WJLootBoxes.metrics.itemsDispensed.add(i);
+            WJLootBoxes.metrics.entityDrops.increment();
             //func_152373_a(sender, this, "commands.give.success", new Object[]{itemstack.func_151000_E(), Integer.valueOf(i), entityplayermp.getCommandSenderName()});
         }
     }
@@ -211,15 +430,55 @@ public class CommandLootbox extends CommandBase
                 }
                 else if (args.length == 3)
                 {
-                    return getListOfStringsFromIterableMatchingLastWord(args, Item.itemRegistry.getKeys());
+                    return itemNames.findLastWord(args, MAX_COMPLETIONS);
+                }
+            }
+            else if (command.equalsIgnoreCase(COMMAND_RELOAD))
+            {
+                if (args.length == 2)
+                {
+                    return getListOfStringsMatchingLastWord(args, RELOAD_TARGETS);
+                }
+            }
+            else if (command.equalsIgnoreCase(COMMAND_CONVERT))
+            {
+                if (args.length == 2)
+                {
+                    return getListOfStringsMatchingLastWord(args, CONVERT_TARGETS);
+                }
+            }
+            else if (command.equalsIgnoreCase(COMMAND_SIMULATE))
+            {
+                if (args.length == 2)
+                {
+                    return tierNames.findLastWord(args, MAX_COMPLETIONS);
+                }
+            }
+            else if (command.equalsIgnoreCase(COMMAND_EXPORT))
+            {
+                if (args.length == 2)
+                {
+                    return tierNames.findLastWord(args, MAX_COMPLETIONS);
+                }
+                else if (args.length == 3)
+                {
+                    return getListOfStringsMatchingLastWord(args, EXPORT_SOURCES);
+                }
+                else if (args.length == 4 && args[2].equalsIgnoreCase(EXPORT_INVENTORY))
+                {
+                    return getListOfStringsMatchingLastWord(args, this.getPlayers());
                 }
             }
             else if (command.equalsIgnoreCase(COMMAND_LOOT))
             {
-                if (args.length == 1)
+                if (args.length == 2)
                 {
                     return getListOfStringsMatchingLastWord(args, this.getPlayers());
                 }
+                else if (args.length == 3)
+                {
+                    return tierNames.findLastWord(args, MAX_COMPLETIONS);
+                }
             }
         }
         else if (args.length == 1)
@@ -0,0 +1,139 @@
+package com.builtbroken.wjlootboxes.command;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Sorted set of names used for tab completion. Names starting with a prefix sit
+ * next to each other once sorted, so a binary search finds the first match and
+ * the rest are read in order without checking every name.
+ * <p>
+ * Matches ignore case, the same as {@link net.minecraft.command.CommandBase#getListOfStringsMatchingLastWord(String[], String...)}.
+ * Never changed after creation, safe to share between threads.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class PrefixIndex
+{
+    /** Lower case names, sorted */
+    private final String[] keys;
+    /** Names as given, same order as {@link #keys} */
+    private final String[] values;
+
+    /**
+     * @param names - names to index, entries that are not strings and duplicates are ignored
+     */
+    public PrefixIndex(Iterable<?> names)
+    {
+        final List<String> list = new ArrayList();
+        for (Object name : names)
+        {
+            if (name instanceof String)
+            {
+                list.add((String) name);
+            }
+        }
+
+        //Sort by the lower case key so the binary search matches the order
+        final String[][] pairs = new String[list.size()][];
+        for (int i = 0; i < pairs.length; i++)
+        {
+            pairs[i] = new String[]{list.get(i).toLowerCase(Locale.ROOT), list.get(i)};
+        }
+        Arrays.sort(pairs, (a, b) -> a[0].compareTo(b[0]));
+
+        final List<String> sortedKeys = new ArrayList(pairs.length);
+        final List<String> sortedValues = new ArrayList(pairs.length);
+        for (int i = 0; i < pairs.length; i++)
+        {
+            if (i == 0 || !pairs[i][1].equals(pairs[i - 1][1]))
+            {
+                sortedKeys.add(pairs[i][0]);
+                sortedValues.add(pairs[i][1]);
+            }
+        }
+        this.keys = sortedKeys.toArray(new String[sortedKeys.size()]);
+        this.values = sortedValues.toArray(new String[sortedValues.size()]);
+    }
+
+    /**
+     * Creates an index of the numbers from 0 up to the count
+     *
+     * @param count - number of values
+     * @return index of "0" to "count - 1"
+     */
+    public static PrefixIndex ofRange(int count)
+    {
+        final List<String> names = new ArrayList(count);
+        for (int i = 0; i < count; i++)
+        {
+            names.add(Integer.toString(i));
+        }
+        return new PrefixIndex(names);
+    }
+
+    /**
+     * Finds the names starting with the prefix, in sorted order
+     *
+     * @param prefix - start of the name, case is ignored
+     * @param limit  - max number of names to return
+     * @return matching names, empty if none
+     */
+    public List<String> find(String prefix, int limit)
+    {
+        final String key = prefix.toLowerCase(Locale.ROOT);
+
+        //First key not less than the prefix
+        int low = 0;
+        int high = keys.length;
+        while (low < high)
+        {
+            final int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+
+        if (low >= keys.length || !keys[low].startsWith(key))
+        {
+            return Collections.emptyList();
+        }
+
+        final List<String> matches = new ArrayList(Math.min(limit, 16));
+        for (int i = low; i < keys.length && matches.size() < limit && keys[i].startsWith(key); i++)
+        {
+            matches.add(values[i]);
+        }
+        return matches;
+    }
+
+    /**
+     * Finds the names starting with the last argument
+     *
+     * @param args  - command arguments
+     * @param limit - max number of names to return
+     * @return matching names, empty if none
+     */
+    public List<String> findLastWord(String[] args, int limit)
+    {
+        return find(args[args.length - 1], limit);
+    }
+
+    /**
+     * Number of names in the index
+     *
+     * @return size
+     */
+    public int size()
+    {
+        return keys.length;
+    }
+}
@@ -0,0 +1,220 @@
+package com.builtbroken.wjlootboxes.log;
+
+import com.builtbroken.wjlootboxes.WJLootBoxes;
+import net.minecraftforge.common.config.Configuration;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log of spawner events, written to a rolling file by a background thread. Replaces
+ * printing to the console from the scanner and server threads.
+ * <p>
+ * Events are copied into a fixed ring of {@link LogEntry} slots without locks or
+ * allocation, any number of threads can log at once. If the writer falls behind and
+ * the ring is full, new events are dropped and counted rather than waiting. When the
+ * level is {@link EventLevel#OFF} logging is a single field check.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class BoxEventLog
+{
+    /** Level set in the config, used once started */
+    public EventLevel configLevel = EventLevel.INFO;
+    /** File to write, relative paths are from the server folder */
+    public String path = "logs/wjlootboxes/events.log";
+    /** Size in mega-bytes a file can reach before it is rolled */
+    public int maxFileSize = 10;
+    /** Number of old files to keep */
+    public int maxFiles = 5;
+    /** Number of events the ring can hold, rounded up to a power of 2 */
+    public int bufferSize = 8192;
+    /** Time in milli-seconds between writes */
+    public int flushInterval = 500;
+
+    /** Level events are logged at, {@link EventLevel#OFF} until started */
+    private volatile EventLevel level = EventLevel.OFF;
+
+    private LogEntry[] entries;
+    private int mask;
+
+    /** Next sequence to hand out to a producer */
+    private final AtomicLong claimed = new AtomicLong();
+    /** Sequences below this have been written and their slots can be reused */
+    private volatile long consumed;
+    /** Events dropped because the ring was full, written to the log then reset */
+    private final LongAdder dropped = new LongAdder();
+
+    private EventLogWriter writer;
+
+    /**
+     * Creates the ring and starts the writer using the config settings.
+     * Does nothing if the config level is off or the log is already running.
+     */
+    public synchronized void start()
+    {
+        if (configLevel != EventLevel.OFF && writer == null)
+        {
+            final int size = Integer.highestOneBit(Math.max(2, bufferSize) * 2 - 1);
+            entries = new LogEntry[size];
+            for (int i = 0; i < size; i++)
+            {
+                entries[i] = new LogEntry();
+            }
+            mask = size - 1;
+
+            writer = new EventLogWriter(this, new File(path), maxFileSize * 1024L * 1024L, maxFiles, flushInterval);
+            writer.start();
+            level = configLevel;
+            WJLootBoxes.LOGGER.info("Logging " + level.name().toLowerCase() + " spawner events to " + path);
+        }
+    }
+
+    /**
+     * Checks if events of the level are logged, callers that need to do work to
+     * build an event can check this first
+     *
+     * @param eventLevel
+     * @return true if logged
+     */
+    public boolean isLogged(EventLevel eventLevel)
+    {
+        return eventLevel.ordinal() <= level.ordinal();
+    }
+
+    /**
+     * Logs an event, safe to call from any thread
+     *
+     * @param type      - event
+     * @param dimension
+     * @param x
+     * @param y
+     * @param z
+     * @param tier      - tier of the box
+     */
+    public void log(EventType type, int dimension, int x, int y, int z, int tier)
+    {
+        if (!isLogged(type.level))
+        {
+            return;
+        }
+
+        //Claim a slot, dropping the event if the writer hasn't freed one
+        long sequence;
+        do
+        {
+            sequence = claimed.get();
+            if (sequence - consumed >= entries.length)
+            {
+                dropped.increment();
+                return;
+            }
+        }
+        while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        final LogEntry entry = entries[(int) (sequence & mask)];
+        entry.time = System.currentTimeMillis();
+        entry.type = type;
+        entry.dimension = dimension;
+        entry.x = x;
+        entry.y = y;
+        entry.z = z;
+        entry.tier = tier;
+
+        //Publish, the writer waits for this before reading the slot
+        entry.sequence = sequence;
+    }
+
+    /**
+     * Appends all events ready to be written, only called by the writer thread
+     *
+     * @param out - builder to add lines to
+     * @return number of events added
+     */
+    int drain(StringBuilder out)
+    {
+        final long droppedCount = dropped.sumThenReset();
+        if (droppedCount > 0)
+        {
+            out.append("# dropped ").append(droppedCount).append(" events, writer fell behind\n");
+        }
+
+        long next = consumed;
+        int count = 0;
+        while (true)
+        {
+            final LogEntry entry = entries[(int) (next & mask)];
+            if (entry.sequence != next)
+            {
+                break;
+            }
+            entry.appendTo(out);
+            entry.type = null;
+            next++;
+            count++;
+        }
+        consumed = next;
+        return count;
+    }
+
+    /**
+     * Waits for all events logged so far to be written
+     *
+     * @param timeout - max time to wait in milli-seconds
+     * @return true if written, false if timed out or not running
+     */
+    public boolean flush(long timeout)
+    {
+        final EventLogWriter currentWriter = writer;
+        if (currentWriter == null)
+        {
+            return true;
+        }
+
+        final long target = claimed.get();
+        final long end = System.currentTimeMillis() + timeout;
+        while (consumed < target || currentWriter.isWriting())
+        {
+            if (System.currentTimeMillis() >= end || !currentWriter.isAlive())
+            {
+                return false;
+            }
+            currentWriter.wake();
+            try
+            {
+                Thread.sleep(10);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void loadConfiguration(Configuration configuration)
+    {
+        final String category = "event_log";
+        final String levelName = configuration.getString("level", category, configLevel.name().toLowerCase(), "Spawner events " +
+                "to write to the event log. 'off' writes nothing, 'info' writes boxes placed, 'debug' also writes every " +
+                "position found and every placement turned down.", new String[]{"off", "info", "debug"});
+        try
+        {
+            configLevel = EventLevel.valueOf(levelName.toUpperCase());
+        }
+        catch (IllegalArgumentException e)
+        {
+            WJLootBoxes.LOGGER.error("Unknown event log level '" + levelName + "', using " + configLevel.name().toLowerCase());
+        }
+        path = configuration.getString("path", category, path, "File to write events to, relative paths are from the server folder.");
+        maxFileSize = configuration.getInt("maxFileSize", category, maxFileSize, 1, 1024, "Size in mega-bytes a file " +
+                "can reach before it is renamed and a new file started.");
+        maxFiles = configuration.getInt("maxFiles", category, maxFiles, 0, 100, "Number of old files to keep.");
+        bufferSize = configuration.getInt("bufferSize", category, bufferSize, 64, 1 << 20, "Number of events held " +
+                "while waiting to be written. Events are dropped when it is full.");
+        flushInterval = configuration.getInt("flushInterval", category, flushInterval, 10, 60000, "Milli-seconds " +
+                "between writes to the file.");
+    }
+}
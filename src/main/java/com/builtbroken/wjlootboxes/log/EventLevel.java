@@ -0,0 +1,16 @@
+package com.builtbroken.wjlootboxes.log;
+
+/**
+ * Levels of the {@link BoxEventLog}, each level logs the events of the levels before it
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public enum EventLevel
+{
+    /** Nothing is logged */
+    OFF,
+    /** Boxes placed */
+    INFO,
+    /** Every position found and placement turned down, can be a lot on large servers */
+    DEBUG
+}
@@ -0,0 +1,177 @@
+package com.builtbroken.wjlootboxes.log;
+
+import com.builtbroken.wjlootboxes.WJLootBoxes;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the events of a {@link BoxEventLog} to a file at a fixed interval. Once the file
+ * reaches its max size it is renamed to file.1, older files move up by one and the
+ * oldest is deleted.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class EventLogWriter extends Thread
+{
+    /** Checked in all loops in order to kill the thread if false */
+    public volatile boolean shouldRun = true;
+
+    private final BoxEventLog log;
+    private final File file;
+    private final long maxFileSize;
+    private final int maxFiles;
+    private final int flushInterval;
+
+    /** Lines waiting to be written, reused between writes */
+    private final StringBuilder buffer = new StringBuilder(64 * 1024);
+    private final Object lock = new Object();
+    private volatile boolean writing;
+
+    private OutputStream stream;
+    private long fileSize;
+
+    public EventLogWriter(BoxEventLog log, File file, long maxFileSize, int maxFiles, int flushInterval)
+    {
+        super("WJ_EventLog");
+        setDaemon(true);
+        this.log = log;
+        this.file = file;
+        this.maxFileSize = maxFileSize;
+        this.maxFiles = maxFiles;
+        this.flushInterval = flushInterval;
+    }
+
+    @Override
+    public void run()
+    {
+        while (shouldRun)
+        {
+            writing = true;
+            try
+            {
+                writeEvents();
+            }
+            catch (Exception e)
+            {
+                WJLootBoxes.LOGGER.error("Failed to write event log " + file, e);
+                close();
+            }
+            writing = false;
+
+            synchronized (lock)
+            {
+                try
+                {
+                    lock.wait(flushInterval);
+                }
+                catch (InterruptedException e)
+                {
+                    //Keep going, checked by the loop
+                }
+            }
+        }
+        close();
+    }
+
+    /**
+     * Wakes the thread to write now rather than at the next interval
+     */
+    public void wake()
+    {
+        synchronized (lock)
+        {
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * @return true while events are being written
+     */
+    public boolean isWriting()
+    {
+        return writing;
+    }
+
+    protected void writeEvents() throws IOException
+    {
+        buffer.setLength(0);
+        log.drain(buffer);
+        if (buffer.length() > 0)
+        {
+            if (stream == null || fileSize >= maxFileSize)
+            {
+                open();
+            }
+            final byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            stream.write(bytes);
+            stream.flush();
+            fileSize += bytes.length;
+        }
+    }
+
+    /**
+     * Opens the file to append to, rolling it first if it is too large
+     *
+     * @throws IOException
+     */
+    protected void open() throws IOException
+    {
+        close();
+        if (!file.getAbsoluteFile().getParentFile().exists())
+        {
+            file.getAbsoluteFile().getParentFile().mkdirs();
+        }
+
+        if (file.exists() && file.length() >= maxFileSize)
+        {
+            roll();
+        }
+        stream = new FileOutputStream(file, true);
+        fileSize = file.length();
+    }
+
+    /**
+     * Moves each old file up by one, deleting the oldest
+     */
+    protected void roll()
+    {
+        new File(file.getPath() + "." + maxFiles).delete();
+        for (int i = maxFiles - 1; i >= 1; i--)
+        {
+            final File older = new File(file.getPath() + "." + i);
+            if (older.exists())
+            {
+                older.renameTo(new File(file.getPath() + "." + (i + 1)));
+            }
+        }
+
+        if (maxFiles > 0)
+        {
+            file.renameTo(new File(file.getPath() + ".1"));
+        }
+        else
+        {
+            file.delete();
+        }
+    }
+
+    protected void close()
+    {
+        if (stream != null)
+        {
+            try
+            {
+                stream.close();
+            }
+            catch (IOException e)
+            {
+                WJLootBoxes.LOGGER.error("Failed to close event log " + file, e);
+            }
+            stream = null;
+        }
+    }
+}
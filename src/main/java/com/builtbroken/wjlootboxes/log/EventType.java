@@ -0,0 +1,27 @@
+package com.builtbroken.wjlootboxes.log;
+
+/**
+ * Events written to the {@link BoxEventLog}
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public enum EventType
+{
+    /** Scanner found a position for a box */
+    SPAWN_POINT("spawn_point", EventLevel.DEBUG),
+    /** Box placed in the world */
+    BOX_PLACED("box_placed", EventLevel.INFO),
+    /** Position was no longer valid once the main thread went to place the box */
+    PLACEMENT_REJECTED("placement_rejected", EventLevel.DEBUG);
+
+    /** Name written to the log */
+    public final String key;
+    /** Lowest level the event is logged at */
+    public final EventLevel level;
+
+    EventType(String key, EventLevel level)
+    {
+        this.key = key;
+        this.level = level;
+    }
+}
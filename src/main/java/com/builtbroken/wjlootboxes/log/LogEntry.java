@@ -0,0 +1,40 @@
+package com.builtbroken.wjlootboxes.log;
+
+import java.time.Instant;
+
+/**
+ * Slot in the {@link BoxEventLog} ring buffer. Created once when the log starts and
+ * filled in place for each event, so logging never allocates.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class LogEntry
+{
+    /** Sequence of the event in the slot, written last so the writer only sees filled slots */
+    volatile long sequence = -1;
+
+    long time;
+    EventType type;
+    int dimension;
+    int x;
+    int y;
+    int z;
+    int tier;
+
+    /**
+     * Appends the event as a single line, such as
+     * {@code 2026-10-18T12:00:00.000Z box_placed dim=0 x=10 y=64 z=-20 tier=2}
+     *
+     * @param out
+     */
+    void appendTo(StringBuilder out)
+    {
+        out.append(Instant.ofEpochMilli(time)).append(' ').append(type.key)
+                .append(" dim=").append(dimension)
+                .append(" x=").append(x)
+                .append(" y=").append(y)
+                .append(" z=").append(z)
+                .append(" tier=").append(tier)
+                .append('\n');
+    }
+}
@@ -4,37 +4,85 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import net.minecraft.nbt.*;
+import net.minecraftforge.common.util.Constants;
 
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
 
 /**
+ * Converts between JSON and NBT. Numbers and number arrays use typed keys, "name:type",
+ * to pick the NBT type. For example "Damage:short" or "ench:int".
+ * <p>
+ * Both a tree version, working on {@link JsonElement}, and a streaming version, working
+ * on {@link JsonReader} and {@link JsonWriter}, are provided. The streaming version
+ * is used for loot tables to avoid building a JSON tree for large NBT.
+ *
  * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
  * Created by Dark(DarkGuardsman, Robert) on 4/12/2017.
  */
 public class JsonConverterNBT
 {
+    /** Max number of nested compounds allowed */
+    public static int maxDepth = 32;
+    /** Max number of tags, including array values, allowed in a single conversion */
+    public static int maxSize = 100000;
+
+    //Hash of each type name, same as String#hashCode()
+    private static final int HASH_INT = 104431;
+    private static final int HASH_INTEGER = 1958052158;
+    private static final int HASH_BYTE = 3039496;
+    private static final int HASH_SHORT = 109413500;
+    private static final int HASH_DOUBLE = -1325958191;
+    private static final int HASH_FLOAT = 97526364;
+    private static final int HASH_LONG = 3327612;
+
     public static NBTTagCompound handle(JsonElement element)
     {
         NBTTagCompound nbt = new NBTTagCompound();
         if (element instanceof JsonObject)
         {
-            handle((JsonObject) element, nbt, 0);
+            handle((JsonObject) element, nbt, 0, new ReadState());
         }
         return nbt;
     }
 
     public static void handle(JsonObject object, NBTTagCompound nbt, int depth)
     {
+        handle(object, nbt, depth, new ReadState());
+    }
+
+    /**
+     * Converts the object into the tag, checking the depth and size limits
+     *
+     * @param object - object to read
+     * @param nbt    - tag to add to
+     * @param depth  - number of compounds the object is nested in
+     * @param state  - tags counted so far and the path being read
+     */
+    protected static void handle(JsonObject object, NBTTagCompound nbt, int depth, ReadState state)
+    {
+        if (depth > maxDepth)
+        {
+            throw new RuntimeException("NBT is nested deeper than the limit of " + maxDepth + " at " + state.getPath());
+        }
+
         for (Map.Entry<String, JsonElement> entry : object.entrySet())
         {
             final String entryKey = entry.getKey();
+            state.push(entryKey, -1);
+            state.countOrThrow();
+
             //Objects are considered nested NBT structures
             if (entry.getValue() instanceof JsonObject)
             {
                 NBTTagCompound tag = new NBTTagCompound();
-                handle((JsonObject) entry.getValue(), tag, depth++); //TODO add depth limit
+                handle((JsonObject) entry.getValue(), tag, depth + 1, state);
                 nbt.setTag(entryKey, tag);
             }
             //Primitives are data points
@@ -44,38 +92,32 @@ public class JsonConverterNBT
                 if (primitive.isNumber())
                 {
                     //Separate out key from data type
-                    final String[] split = entryKey.split(":"); //TODO error if more than two
-                    final String key = split[0];
-                    final String type = split[1].toLowerCase();
+                    final int split = getTypeSplit(entryKey);
+                    final String key = entryKey.substring(0, split);
 
                     //Match type to nbt structure
-                    if (type.equals("int") || type.equals("integer"))
-                    {
-                        nbt.setInteger(key, primitive.getAsInt());
-                    }
-                    else if (type.equals("byte"))
-                    {
-                        nbt.setByte(key, primitive.getAsByte());
-                    }
-                    else if (type.equals("short"))
+                    switch (getType(entryKey, split + 1))
                     {
-                        nbt.setShort(key, primitive.getAsShort());
-                    }
-                    else if (type.equals("double"))
-                    {
-                        nbt.setDouble(key, primitive.getAsDouble());
-                    }
-                    else if (type.equals("float"))
-                    {
-                        nbt.setFloat(key, primitive.getAsFloat());
-                    }
-                    else if (type.equals("long"))
-                    {
-                        nbt.setLong(key, primitive.getAsLong());
-                    }
-                    else
-                    {
-                        throw new RuntimeException("Unknown number type for " + type + " while reading " + object);
+                        case Constants.NBT.TAG_INT:
+                            nbt.setInteger(key, primitive.getAsInt());
+                            break;
+                        case Constants.NBT.TAG_BYTE:
+                            nbt.setByte(key, primitive.getAsByte());
+                            break;
+                        case Constants.NBT.TAG_SHORT:
+                            nbt.setShort(key, primitive.getAsShort());
+                            break;
+                        case Constants.NBT.TAG_DOUBLE:
+                            nbt.setDouble(key, primitive.getAsDouble());
+                            break;
+                        case Constants.NBT.TAG_FLOAT:
+                            nbt.setFloat(key, primitive.getAsFloat());
+                            break;
+                        case Constants.NBT.TAG_LONG:
+                            nbt.setLong(key, primitive.getAsLong());
+                            break;
+                        default:
+                            throw new RuntimeException("Unknown number type for " + entryKey + " at " + state.getPath());
                     }
                 }
                 else if (primitive.isBoolean())
@@ -95,24 +137,26 @@ public class JsonConverterNBT
                     JsonElement element = array.get(0);
                     if (element instanceof JsonPrimitive)
                     {
-                        String[] split = entry.getKey().split(":");
-                        String key = split[0];
-                        String type = split[1].toLowerCase();
-                        if (type.equals("int") || type.equals("integer"))
+                        final int split = getTypeSplit(entryKey);
+                        final String key = entryKey.substring(0, split);
+                        final byte type = getType(entryKey, split + 1);
+                        if (type == Constants.NBT.TAG_INT)
                         {
                             int[] ar = new int[array.size()];
                             for (int i = 0; i < array.size(); i++)
                             {
+                                state.countOrThrow();
                                 JsonPrimitive p = array.get(i).getAsJsonPrimitive();
                                 ar[i] = p.getAsInt();
                             }
                             nbt.setIntArray(key, ar);
                         }
-                        else if (type.equals("byte"))
+                        else if (type == Constants.NBT.TAG_BYTE)
                         {
                             byte[] ar = new byte[array.size()];
                             for (int i = 0; i < array.size(); i++)
                             {
+                                state.countOrThrow();
                                 JsonPrimitive p = array.get(i).getAsJsonPrimitive();
                                 ar[i] = p.getAsByte();
                             }
@@ -120,7 +164,7 @@ public class JsonConverterNBT
                         }
                         else
                         {
-                            throw new RuntimeException("Unsupported type of " + type + " for array read");
+                            throw new RuntimeException("Unsupported type for " + entryKey + " for array read at " + state.getPath());
                         }
                     }
                     else if (element instanceof JsonObject)
@@ -128,9 +172,12 @@ public class JsonConverterNBT
                         NBTTagList list = new NBTTagList();
                         for (int i = 0; i < array.size(); i++)
                         {
+                            state.push(null, i);
+                            state.countOrThrow();
                             NBTTagCompound tag = new NBTTagCompound();
-                            handle((JsonObject) array.get(i), tag, depth++);
+                            handle((JsonObject) array.get(i), tag, depth + 1, state);
                             list.appendTag(tag);
+                            state.pop();
                         }
                         nbt.setTag(entry.getKey(), list);
                     }
@@ -138,9 +185,292 @@ public class JsonConverterNBT
             }
             else
             {
-                throw new RuntimeException("Unknown type to convert to NBT -> " + entry.getValue());
+                throw new RuntimeException("Unknown type to convert to NBT at " + state.getPath());
+            }
+            state.pop();
+        }
+    }
+
+    /**
+     * Reads NBT straight from the reader without building a JSON tree. Reads
+     * the same format as {@link #handle(JsonElement)}.
+     * <p>
+     * Values that can't be converted, or are past the depth or size limit, are
+     * skipped so the reader always ends up after the object. An exception for the
+     * first problem is thrown at the end, letting the caller skip the tag and
+     * keep reading the rest of the file.
+     *
+     * @param reader - reader positioned at the start of a JSON object
+     * @return new tag
+     * @throws NBTConversionException if the data could not be converted, reader is after the object
+     * @throws IOException            if the JSON itself is invalid
+     */
+    public static NBTTagCompound read(JsonReader reader) throws IOException
+    {
+        final NBTTagCompound nbt = new NBTTagCompound();
+        final ReadState state = new ReadState();
+        read(reader, nbt, 0, state);
+        if (state.error != null)
+        {
+            throw new NBTConversionException(state.error);
+        }
+        return nbt;
+    }
+
+    protected static void read(JsonReader reader, NBTTagCompound nbt, int depth, ReadState state) throws IOException
+    {
+        reader.beginObject();
+        while (reader.hasNext())
+        {
+            final String entryKey = reader.nextName();
+            final JsonToken token = reader.peek();
+            state.push(entryKey, -1);
+            if (!state.count())
+            {
+                reader.skipValue();
+            }
+            //Objects are considered nested NBT structures
+            else if (token == JsonToken.BEGIN_OBJECT)
+            {
+                if (depth + 1 > maxDepth)
+                {
+                    state.fail("NBT is nested deeper than the limit of " + maxDepth);
+                    reader.skipValue();
+                }
+                else
+                {
+                    NBTTagCompound tag = new NBTTagCompound();
+                    read(reader, tag, depth + 1, state);
+                    nbt.setTag(entryKey, tag);
+                }
+            }
+            else if (token == JsonToken.NUMBER)
+            {
+                readNumber(reader, nbt, entryKey, state);
+            }
+            else if (token == JsonToken.BOOLEAN)
+            {
+                nbt.setBoolean(entryKey, reader.nextBoolean());
+            }
+            else if (token == JsonToken.STRING)
+            {
+                nbt.setString(entryKey, reader.nextString());
+            }
+            else if (token == JsonToken.BEGIN_ARRAY)
+            {
+                readArray(reader, nbt, entryKey, depth, state);
+            }
+            else
+            {
+                state.fail("Unknown type to convert to NBT " + token);
+                reader.skipValue();
+            }
+            state.pop();
+        }
+        reader.endObject();
+    }
+
+    protected static void readNumber(JsonReader reader, NBTTagCompound nbt, String entryKey, ReadState state) throws IOException
+    {
+        //Separate out key from data type
+        final int split = entryKey.indexOf(':');
+        final byte type = isTypedKey(entryKey, split) ? getType(entryKey, split + 1) : -1;
+        if (type < 0)
+        {
+            state.fail("Unknown number type for " + entryKey);
+            reader.skipValue();
+            return;
+        }
+
+        final String key = entryKey.substring(0, split);
+        try
+        {
+            //Match type to nbt structure
+            switch (type)
+            {
+                case Constants.NBT.TAG_INT:
+                    nbt.setInteger(key, reader.nextInt());
+                    break;
+                case Constants.NBT.TAG_BYTE:
+                    nbt.setByte(key, (byte) reader.nextInt());
+                    break;
+                case Constants.NBT.TAG_SHORT:
+                    nbt.setShort(key, (short) reader.nextInt());
+                    break;
+                case Constants.NBT.TAG_DOUBLE:
+                    nbt.setDouble(key, reader.nextDouble());
+                    break;
+                case Constants.NBT.TAG_FLOAT:
+                    nbt.setFloat(key, (float) reader.nextDouble());
+                    break;
+                default:
+                    nbt.setLong(key, reader.nextLong());
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            //Value is left in the reader when it can't be read as the type
+            state.fail("Value of " + entryKey + " can not be read as its type");
+            reader.skipValue();
+        }
+    }
+
+    protected static void readArray(JsonReader reader, NBTTagCompound nbt, String entryKey, int depth, ReadState state) throws IOException
+    {
+        reader.beginArray();
+        if (reader.hasNext())
+        {
+            if (reader.peek() == JsonToken.BEGIN_OBJECT)
+            {
+                NBTTagList list = new NBTTagList();
+                for (int i = 0; reader.hasNext(); i++)
+                {
+                    state.push(null, i);
+                    if (depth + 1 > maxDepth)
+                    {
+                        state.fail("NBT is nested deeper than the limit of " + maxDepth);
+                        reader.skipValue();
+                    }
+                    else if (!state.count())
+                    {
+                        reader.skipValue();
+                    }
+                    else
+                    {
+                        NBTTagCompound tag = new NBTTagCompound();
+                        read(reader, tag, depth + 1, state);
+                        list.appendTag(tag);
+                    }
+                    state.pop();
+                }
+                nbt.setTag(entryKey, list);
+            }
+            else
+            {
+                final int split = entryKey.indexOf(':');
+                final byte type = isTypedKey(entryKey, split) ? getType(entryKey, split + 1) : -1;
+                if (type != Constants.NBT.TAG_INT && type != Constants.NBT.TAG_BYTE)
+                {
+                    state.fail("Unsupported type for " + entryKey + " for array read");
+                    while (reader.hasNext())
+                    {
+                        reader.skipValue();
+                    }
+                    reader.endArray();
+                    return;
+                }
+
+                //Values are collected in a buffer reused for every array of the conversion
+                int length = 0;
+                while (reader.hasNext())
+                {
+                    if (reader.peek() != JsonToken.NUMBER)
+                    {
+                        state.fail("Array " + entryKey + " can only contain numbers");
+                        reader.skipValue();
+                        continue;
+                    }
+                    if (!state.count())
+                    {
+                        reader.skipValue();
+                        continue;
+                    }
+                    if (length == state.buffer.length)
+                    {
+                        state.buffer = Arrays.copyOf(state.buffer, length * 2);
+                    }
+                    try
+                    {
+                        state.buffer[length++] = reader.nextInt();
+                    }
+                    catch (NumberFormatException e)
+                    {
+                        length--;
+                        state.fail("Array " + entryKey + " contains a value that is not a whole number");
+                        reader.skipValue();
+                    }
+                }
+
+                final String key = entryKey.substring(0, split);
+                if (type == Constants.NBT.TAG_INT)
+                {
+                    nbt.setIntArray(key, Arrays.copyOf(state.buffer, length));
+                }
+                else
+                {
+                    byte[] ar = new byte[length];
+                    for (int i = 0; i < length; i++)
+                    {
+                        ar[i] = (byte) state.buffer[i];
+                    }
+                    nbt.setByteArray(key, ar);
+                }
             }
         }
+        reader.endArray();
+    }
+
+    /**
+     * Checks the key has a single ':' splitting the name from the type
+     */
+    private static boolean isTypedKey(String entryKey, int split)
+    {
+        return split >= 0 && entryKey.indexOf(':', split + 1) < 0;
+    }
+
+    /**
+     * Gets the index of the ':' splitting the key from the type
+     */
+    private static int getTypeSplit(String entryKey)
+    {
+        final int split = entryKey.indexOf(':');
+        if (split < 0 || entryKey.indexOf(':', split + 1) >= 0)
+        {
+            throw new RuntimeException("Key " + entryKey + " must be in the format name:type");
+        }
+        return split;
+    }
+
+    /**
+     * Gets the NBT type for the type part of a key, ignoring case. Hashes the type
+     * in place so no strings are created while matching.
+     *
+     * @param entryKey - full key
+     * @param start    - index the type starts at
+     * @return NBT type id, or -1 if not a known type
+     */
+    protected static byte getType(String entryKey, int start)
+    {
+        int hash = 0;
+        for (int i = start; i < entryKey.length(); i++)
+        {
+            hash = 31 * hash + Character.toLowerCase(entryKey.charAt(i));
+        }
+
+        switch (hash)
+        {
+            case HASH_INT:
+                return isType(entryKey, start, "int") ? Constants.NBT.TAG_INT : -1;
+            case HASH_INTEGER:
+                return isType(entryKey, start, "integer") ? Constants.NBT.TAG_INT : -1;
+            case HASH_BYTE:
+                return isType(entryKey, start, "byte") ? Constants.NBT.TAG_BYTE : -1;
+            case HASH_SHORT:
+                return isType(entryKey, start, "short") ? Constants.NBT.TAG_SHORT : -1;
+            case HASH_DOUBLE:
+                return isType(entryKey, start, "double") ? Constants.NBT.TAG_DOUBLE : -1;
+            case HASH_FLOAT:
+                return isType(entryKey, start, "float") ? Constants.NBT.TAG_FLOAT : -1;
+            case HASH_LONG:
+                return isType(entryKey, start, "long") ? Constants.NBT.TAG_LONG : -1;
+            default:
+                return -1;
+        }
+    }
+
+    private static boolean isType(String entryKey, int start, String type)
+    {
+        return entryKey.length() - start == type.length() && entryKey.regionMatches(true, start, type, 0, type.length());
     }
 
     public static JsonElement toJson(NBTTagCompound nbt)
@@ -222,4 +552,198 @@ public class JsonConverterNBT
         }
         return new JsonPrimitive("");
     }
+
+    /**
+     * Writes NBT straight to the writer without building a JSON tree.
+     * Writes the same format as {@link #toJson(NBTTagCompound)}.
+     *
+     * @param writer - writer to output to, positioned where a value is expected
+     * @param nbt    - tag to write, not changed
+     * @throws IOException
+     */
+    public static void write(JsonWriter writer, NBTTagCompound nbt) throws IOException
+    {
+        if (nbt == null || nbt.hasNoTags())
+        {
+            writer.value("");
+            return;
+        }
+
+        writer.beginObject();
+        Set set = nbt.func_150296_c();
+        for (Object s : set)
+        {
+            if (s instanceof String)
+            {
+                String key = (String) s;
+                NBTBase tag = nbt.getTag(key);
+                if (tag instanceof NBTTagByte)
+                {
+                    writer.name(key + ":byte").value(((NBTTagByte) tag).func_150290_f());
+                }
+                else if (tag instanceof NBTTagShort)
+                {
+                    writer.name(key + ":short").value(((NBTTagShort) tag).func_150289_e());
+                }
+                else if (tag instanceof NBTTagInt)
+                {
+                    writer.name(key + ":int").value(((NBTTagInt) tag).func_150287_d());
+                }
+                else if (tag instanceof NBTTagLong)
+                {
+                    writer.name(key + ":long").value(((NBTTagLong) tag).func_150291_c());
+                }
+                else if (tag instanceof NBTTagFloat)
+                {
+                    writer.name(key + ":float").value((Number) ((NBTTagFloat) tag).func_150288_h());
+                }
+                else if (tag instanceof NBTTagDouble)
+                {
+                    writer.name(key + ":double").value(((NBTTagDouble) tag).func_150286_g());
+                }
+                else if (tag instanceof NBTTagByteArray)
+                {
+                    writer.name(key + ":byte").beginArray();
+                    for (byte b : ((NBTTagByteArray) tag).func_150292_c())
+                    {
+                        writer.value(b);
+                    }
+                    writer.endArray();
+                }
+                else if (tag instanceof NBTTagString)
+                {
+                    writer.name(key).value(((NBTTagString) tag).func_150285_a_());
+                }
+                else if (tag instanceof NBTTagList)
+                {
+                    writer.name(key).beginArray();
+                    for (int i = 0; i < ((NBTTagList) tag).tagCount(); i++)
+                    {
+                        write(writer, ((NBTTagList) tag).getCompoundTagAt(i));
+                    }
+                    writer.endArray();
+                }
+                else if (tag instanceof NBTTagCompound)
+                {
+                    writer.name(key);
+                    write(writer, (NBTTagCompound) tag);
+                }
+                else if (tag instanceof NBTTagIntArray)
+                {
+                    writer.name(key + ":int").beginArray();
+                    for (int b : ((NBTTagIntArray) tag).func_150302_c())
+                    {
+                        writer.value(b);
+                    }
+                    writer.endArray();
+                }
+            }
+        }
+        writer.endObject();
+    }
+
+    /** Data kept for a single conversion */
+    protected static class ReadState
+    {
+        /** Number of tags read so far */
+        int tags;
+        /** Buffer for number arrays, reused for each array */
+        int[] buffer = new int[16];
+        /** First problem found, null if none */
+        String error;
+
+        /** Keys of the values being read, only turned into a string for errors */
+        String[] pathKeys = new String[16];
+        /** Index in the list for each level of the path, -1 if the level is a key */
+        int[] pathIndex = new int[16];
+        /** Number of levels in the path */
+        int pathSize;
+
+        /**
+         * Counts a tag against the size limit
+         *
+         * @return false if the limit has been reached and the value should be skipped
+         */
+        boolean count()
+        {
+            if (++tags > maxSize)
+            {
+                fail("NBT has more than the limit of " + maxSize + " tags");
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Counts a tag against the size limit, used by the tree version
+         * which stops at the first problem
+         */
+        void countOrThrow()
+        {
+            if (++tags > maxSize)
+            {
+                throw new RuntimeException("NBT has more than the limit of " + maxSize + " tags at " + getPath());
+            }
+        }
+
+        void fail(String message)
+        {
+            if (error == null)
+            {
+                error = message + " at " + getPath();
+            }
+        }
+
+        /**
+         * Enters a value
+         *
+         * @param key   - key of the value, null for list entries
+         * @param index - index in the list, -1 for keys
+         */
+        void push(String key, int index)
+        {
+            if (pathSize == pathKeys.length)
+            {
+                pathKeys = Arrays.copyOf(pathKeys, pathSize * 2);
+                pathIndex = Arrays.copyOf(pathIndex, pathSize * 2);
+            }
+            pathKeys[pathSize] = key;
+            pathIndex[pathSize] = index;
+            pathSize++;
+        }
+
+        void pop()
+        {
+            pathSize--;
+        }
+
+        /**
+         * @return location of the value being read, such as $.display.Lore[2]
+         */
+        String getPath()
+        {
+            final StringBuilder builder = new StringBuilder("$");
+            for (int i = 0; i < pathSize; i++)
+            {
+                if (pathIndex[i] >= 0)
+                {
+                    builder.append('[').append(pathIndex[i]).append(']');
+                }
+                else
+                {
+                    builder.append('.').append(pathKeys[i]);
+                }
+            }
+            return builder.toString();
+        }
+    }
+
+    /** Thrown when JSON could not be converted, the reader has already moved past the value */
+    public static class NBTConversionException extends IOException
+    {
+        public NBTConversionException(String message)
+        {
+            super(message);
+        }
+    }
 }
@@ -0,0 +1,278 @@
+package com.builtbroken.wjlootboxes.loot;
+
+import com.builtbroken.wjlootboxes.WJLootBoxes;
+import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import cpw.mods.fml.common.gameevent.TickEvent;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.world.World;
+import net.minecraftforge.common.config.Configuration;
+import net.minecraftforge.event.world.WorldEvent;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Collects boxes broken without a player (explosions, quarries, etc) during a tick
+ * and resolves their loot at the end of the tick. Breaks close to each other are
+ * grouped into clusters, breaks next to a player are grouped by that player and
+ * given to them. Each cluster's loot is merged and dropped with a limited
+ * number of item entities per tick. Loot over the limit is dropped over the following
+ * ticks. This prevents TNT going through a field of boxes from spawning hundreds of
+ * item entities at once.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class LootBreakBatcher
+{
+    /** Should breaks be collected and resolved at the end of the tick */
+    public boolean enabled = true;
+    /** Size in blocks of the area used to group breaks, rounded to a power of 2 */
+    public int clusterSize = 16;
+    /** Max number of item entities to spawn per cluster each tick */
+    public int maxEntitiesPerCluster = 16;
+
+    /** Breaks that happened this tick */
+    private final List<BoxBreak> breaks = new ArrayList();
+    /** Clusters that hit the entity limit, the rest of their loot is dropped over the next ticks */
+    private final List<PendingDrop> pendingDrops = new ArrayList();
+
+    /**
+     * Queues a box break to have its loot resolved at the end of the tick
+     *
+     * @param world
+     * @param x
+     * @param y
+     * @param z
+     * @param tier
+     * @param roll  - loot stored in the box, can be null
+     */
+    public void queue(World world, int x, int y, int z, int tier, @Nullable LootRoll roll)
+    {
+        breaks.add(new BoxBreak(world, x, y, z, tier, roll));
+    }
+
+    @SubscribeEvent
+    public void onServerTick(TickEvent.ServerTickEvent event)
+    {
+        if (event.phase == TickEvent.Phase.END)
+        {
+            //Before resolving so new clusters don't drop twice in one tick
+            if (!pendingDrops.isEmpty())
+            {
+                dropPending(maxEntitiesPerCluster);
+            }
+            if (!breaks.isEmpty())
+            {
+                resolveBreaks();
+            }
+        }
+    }
+
+    /**
+     * Drops loot left over from clusters that hit the entity limit
+     *
+     * @param maxEntities - limit of item entities to spawn per cluster
+     */
+    public void dropPending(int maxEntities)
+    {
+        Iterator<PendingDrop> it = pendingDrops.iterator();
+        while (it.hasNext())
+        {
+            final PendingDrop drop = it.next();
+
+            //Items spawned in unloaded chunks are lost, wait for the chunk to load again
+            if (drop.world.blockExists(drop.x, drop.y, drop.z)
+                    && drop.collector.dispense(null, drop.world, drop.x, drop.y, drop.z, maxEntities))
+            {
+                it.remove();
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public void onWorldUnload(WorldEvent.Unload event)
+    {
+        //Let go of the world, dropping what can still be dropped
+        Iterator<PendingDrop> it = pendingDrops.iterator();
+        while (it.hasNext())
+        {
+            final PendingDrop drop = it.next();
+            if (drop.world == event.world)
+            {
+                if (drop.world.blockExists(drop.x, drop.y, drop.z))
+                {
+                    drop.collector.dispense(null, drop.world, drop.x, drop.y, drop.z, Integer.MAX_VALUE);
+                }
+                else
+                {
+                    WJLootBoxes.LOGGER.warn("Discarding loot waiting to drop at " + drop.x + ", " + drop.y + ", " + drop.z
+                            + " as dimension " + drop.world.provider.dimensionId + " was unloaded");
+                }
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Groups the breaks into clusters and gives out the loot for each cluster.
+     * Boxes with a player next to them are grouped by player, as the default
+     * command gives the loot of each box to the player within 3 blocks.
+     */
+    protected void resolveBreaks()
+    {
+        final LootHandler lootHandler = WJLootBoxes.lootHandler;
+        final int shift = 32 - Integer.numberOfLeadingZeros(Math.max(1, clusterSize) - 1);
+
+        //Group by player, or by world and position when there is no player
+        final List<Cluster> clusters = new ArrayList();
+        final HashMap<EntityPlayer, Cluster> playerClusters = new HashMap();
+        final HashMap<World, HashMap<Long, Cluster>> areaClusters = new HashMap();
+        for (BoxBreak boxBreak : breaks)
+        {
+            if (boxBreak.tier < 0 || boxBreak.tier >= lootHandler.tiers)
+            {
+                continue;
+            }
+
+            //Custom commands can do anything, so they are run for each box
+            if (!lootHandler.isDefaultCommand(boxBreak.tier))
+            {
+                lootHandler.onLootDropped(null, boxBreak.world, boxBreak.x, boxBreak.y, boxBreak.z, boxBreak.tier);
+                continue;
+            }
+
+            //Matches the @p[r=3] selector used by the default command
+            final EntityPlayer player = boxBreak.world.getClosestPlayer(boxBreak.x + 0.5, boxBreak.y + 0.5, boxBreak.z + 0.5, 3);
+
+            Cluster cluster;
+            if (player != null)
+            {
+                cluster = playerClusters.get(player);
+                if (cluster == null)
+                {
+                    cluster = new Cluster(boxBreak.world, player);
+                    playerClusters.put(player, cluster);
+                    clusters.add(cluster);
+                }
+            }
+            else
+            {
+                HashMap<Long, Cluster> worldClusters = areaClusters.get(boxBreak.world);
+                if (worldClusters == null)
+                {
+                    worldClusters = new HashMap();
+                    areaClusters.put(boxBreak.world, worldClusters);
+                }
+
+                final long key = clusterKey(boxBreak.x >> shift, boxBreak.y >> shift, boxBreak.z >> shift);
+                cluster = worldClusters.get(key);
+                if (cluster == null)
+                {
+                    cluster = new Cluster(boxBreak.world, null);
+                    worldClusters.put(key, cluster);
+                    clusters.add(cluster);
+                }
+            }
+
+            //Evaluate loot into the cluster
+            lootHandler.collectBoxLoot(boxBreak.roll, boxBreak.world, boxBreak.x, boxBreak.y, boxBreak.z, boxBreak.tier, cluster.collector);
+            cluster.add(boxBreak);
+        }
+        breaks.clear();
+
+        //Give out loot per cluster
+        for (Cluster cluster : clusters)
+        {
+            if (!cluster.collector.isEmpty())
+            {
+                final int x = (int) Math.floor(cluster.x / cluster.count);
+                final int y = (int) Math.floor(cluster.y / cluster.count);
+                final int z = (int) Math.floor(cluster.z / cluster.count);
+                if (!cluster.collector.dispense(cluster.player, cluster.world, x, y, z, maxEntitiesPerCluster))
+                {
+                    pendingDrops.add(new PendingDrop(cluster.world, x, y, z, cluster.collector));
+                }
+            }
+        }
+    }
+
+    private static long clusterKey(int x, int y, int z)
+    {
+        return ((long) x & 0x1FFFFFL) << 42 | ((long) y & 0x1FFFFFL) << 21 | ((long) z & 0x1FFFFFL);
+    }
+
+    public void loadConfiguration(Configuration configuration)
+    {
+        final String category = "loot_batching";
+        enabled = configuration.getBoolean("enabled", category, enabled, "Collect boxes broken without a player " +
+                "(explosions, machines) during a tick and give out their loot together at the end of the tick.");
+        clusterSize = configuration.getInt("clusterSize", category, clusterSize, 1, 256, "Size in blocks of the " +
+                "area used to group broken boxes, loot for each area is merged and dropped at its center.");
+        maxEntitiesPerCluster = configuration.getInt("maxEntitiesPerCluster", category, maxEntitiesPerCluster, 1, 1000,
+                "Max number of item entities to spawn per area each tick. When more are needed, the rest of " +
+                        "the loot is dropped over the following ticks.");
+    }
+
+    /** Box broken this tick */
+    private static class BoxBreak
+    {
+        final World world;
+        final int x, y, z, tier;
+        final LootRoll roll;
+
+        BoxBreak(World world, int x, int y, int z, int tier, LootRoll roll)
+        {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.tier = tier;
+            this.roll = roll;
+        }
+    }
+
+    /** Loot waiting to be dropped once the entity limit allows */
+    private static class PendingDrop
+    {
+        final World world;
+        final int x, y, z;
+        final LootCollector collector;
+
+        PendingDrop(World world, int x, int y, int z, LootCollector collector)
+        {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.collector = collector;
+        }
+    }
+
+    /** Group of breaks close to each other, or next to the same player */
+    private static class Cluster
+    {
+        final World world;
+        /** Player to give the loot to, null to drop it in the world */
+        final EntityPlayer player;
+        final LootCollector collector = new LootCollector();
+        double x, y, z;
+        int count;
+
+        Cluster(World world, EntityPlayer player)
+        {
+            this.world = world;
+            this.player = player;
+        }
+
+        void add(BoxBreak boxBreak)
+        {
+            x += boxBreak.x;
+            y += boxBreak.y;
+            z += boxBreak.z;
+            count++;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.builtbroken.wjlootboxes.loot;
+
+import com.builtbroken.wjlootboxes.WJLootBoxes;
+import net.minecraft.entity.item.EntityItem;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.item.ItemStack;
+import net.minecraft.world.World;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Collects the stacks generated by a loot roll so they can be merged and
+ * handed out in a single pass. Stacks stored inside are allowed to go over
+ * the max stack size of the item, they are only split when given out.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class LootCollector
+{
+    /** Merged stacks waiting to be given out */
+    public final List<ItemStack> stacks = new ArrayList();
+
+    /**
+     * Adds the stack to the collector, merging it with any
+     * matching stack already collected.
+     *
+     * @param stack - stack to add, ownership is taken by the collector
+     */
+    public void add(ItemStack stack)
+    {
+        if (stack != null && stack.getItem() != null && stack.stackSize > 0)
+        {
+            for (ItemStack collected : stacks)
+            {
+                if (canMerge(collected, stack))
+                {
+                    collected.stackSize += stack.stackSize;
+                    return;
+                }
+            }
+            stacks.add(stack);
+        }
+    }
+
+    public boolean isEmpty()
+    {
+        return stacks.isEmpty();
+    }
+
+    /**
+     * Gives the collected loot to the player. Anything that does not fit
+     * into the inventory, or all of it if there is no player, is dropped
+     * into the world at the location.
+     *
+     * @param player - player to give items to, can be null
+     * @param world
+     * @param x
+     * @param y
+     * @param z
+     */
+    public void dispense(@Nullable EntityPlayer player, World world, int x, int y, int z)
+    {
+        dispense(player, world, x, y, z, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gives the collected loot to the player, dropping what is left over
+     * with a limit on the number of item entities spawned.
+     *
+     * @param player      - player to give items to, can be null
+     * @param world
+     * @param x
+     * @param y
+     * @param z
+     * @param maxEntities - limit of item entities to spawn, see {@link #dropInWorld(World, int, int, int, int)}
+     * @return true if everything was given out, false if items are left in the collector
+     */
+    public boolean dispense(@Nullable EntityPlayer player, World world, int x, int y, int z, int maxEntities)
+    {
+        if (player != null)
+        {
+            insertIntoInventory(player);
+        }
+        return dropInWorld(world, x, y, z, maxEntities);
+    }
+
+    /**
+     * Inserts as much of the collected loot into the player's inventory as
+     * possible. Stacks that are fully inserted are removed from the collector.
+     *
+     * @param player
+     */
+    protected void insertIntoInventory(EntityPlayer player)
+    {
+        boolean inventoryChanged = false;
+
+        Iterator<ItemStack> it = stacks.iterator();
+        while (it.hasNext())
+        {
+            final ItemStack stack = it.next();
+            final int maxStackSize = Math.max(1, stack.getMaxStackSize());
+
+            //Insert in max stack size pieces until the inventory refuses the item
+            while (stack.stackSize > 0)
+            {
+                final ItemStack piece = stack.splitStack(Math.min(maxStackSize, stack.stackSize));
+                final int pieceSize = piece.stackSize;
+
+                //Inventory can partially consume the stack, so check the size rather than the return
+                player.inventory.addItemStackToInventory(piece);
+                if (piece.stackSize < pieceSize)
+                {
+                    inventoryChanged = true;
+                    WJLootBoxes.metrics.itemsDispensed.add(pieceSize - piece.stackSize);
+                }
+
+                //Return what didn't fit, no point in trying again for this item
+                if (piece.stackSize > 0)
+                {
+                    stack.stackSize += piece.stackSize;
+                    break;
+                }
+            }
+
+            if (stack.stackSize <= 0)
+            {
+                it.remove();
+            }
+        }
+
+        //Sync once for the entire roll
+        if (inventoryChanged && player instanceof EntityPlayerMP)
+        {
+            player.inventoryContainer.detectAndSendChanges();
+        }
+    }
+
+    /**
+     * Drops the collected loot into the world split into stacks of
+     * the max stack size, one item entity per stack.
+     * <p>
+     * Stops once the max number of entities is spawned, what is left stays
+     * in the collector to be dropped later. Entities never hold more than the
+     * max stack size, as vanilla saves the stack size as a byte.
+     *
+     * @param world
+     * @param x
+     * @param y
+     * @param z
+     * @param maxEntities - limit of item entities to spawn
+     * @return true if everything was dropped, false if items are left in the collector
+     */
+    protected boolean dropInWorld(World world, int x, int y, int z, int maxEntities)
+    {
+        int entities = 0;
+        Iterator<ItemStack> it = stacks.iterator();
+        while (it.hasNext())
+        {
+            final ItemStack stack = it.next();
+            final int maxStackSize = Math.max(1, stack.getMaxStackSize());
+            while (stack.stackSize > maxStackSize && entities < maxEntities)
+            {
+                spawnItem(world, x, y, z, stack.splitStack(maxStackSize));
+                entities++;
+            }
+
+            if (entities >= maxEntities)
+            {
+                return false;
+            }
+
+            //Last piece, entity takes the stack itself
+            spawnItem(world, x, y, z, stack);
+            entities++;
+            it.remove();
+        }
+        return true;
+    }
+
+    protected void spawnItem(World world, int x, int y, int z, ItemStack stack)
+    {
+        WJLootBoxes.metrics.itemsDispensed.add(stack.stackSize);
+        WJLootBoxes.metrics.entityDrops.increment();
+
+        //Create
+        EntityItem item = new EntityItem(world);
+        item.setPosition(x + 0.5, y + 0.5, z + 0.5);
+        item.setEntityItemStack(stack);
+        //Spawn entity
+        world.spawnEntityInWorld(item);
+    }
+
+    /**
+     * Checks if the two stacks are the same item, meta, and NBT
+     *
+     * @param a
+     * @param b
+     * @return true if they can be merged into one stack
+     */
+    public static boolean canMerge(ItemStack a, ItemStack b)
+    {
+        return a.getItem() == b.getItem()
+                && a.getItemDamage() == b.getItemDamage()
+                && ItemStack.areItemStackTagsEqual(a, b);
+    }
+}
@@ -1,30 +1,49 @@
 package com.builtbroken.wjlootboxes.loot;
 
+import com.builtbroken.wjlootboxes.FileWriteService;
 import com.builtbroken.wjlootboxes.WJLootBoxes;
+import com.builtbroken.wjlootboxes.box.TileEntityLootbox;
 import com.builtbroken.wjlootboxes.command.CommandSenderLootbox;
+import com.builtbroken.wjlootboxes.core.loot.LootSampler;
 import com.builtbroken.wjlootboxes.loot.entry.ILootEntry;
 import com.builtbroken.wjlootboxes.loot.entry.command.LootEntryCommand;
 import com.builtbroken.wjlootboxes.loot.entry.command.LootEntryGive;
 import com.builtbroken.wjlootboxes.loot.entry.stack.LootEntryItemStack;
 import com.builtbroken.wjlootboxes.loot.entry.stack.LootEntryOre;
+import com.builtbroken.wjlootboxes.loot.entry.stack.LootEntryStack;
 import com.google.gson.*;
 import com.google.gson.internal.Streams;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import net.minecraft.command.ICommandManager;
 import net.minecraft.enchantment.Enchantment;
 import net.minecraft.enchantment.EnchantmentData;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.init.Blocks;
 import net.minecraft.init.Items;
+import net.minecraft.inventory.IInventory;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.server.MinecraftServer;
+import net.minecraft.tileentity.TileEntity;
 import net.minecraft.world.World;
 import net.minecraftforge.common.config.Configuration;
 
 import javax.annotation.Nullable;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 /**
@@ -47,44 +66,69 @@ public class LootHandler
     public static final String JSON_ITEM_MAX_COUNT = "max_count";
     public static final String JSON_ITEM_CHANCE = "chance";
 
+    /** Default command run per tier, loot is given directly when this is in use */
+    public static final String DEFAULT_COMMAND = "/wjlootbox loot %player% ";
+
     /** Tiers of loot boxes that exist */
     public final int tiers;
-    /** Array of loot tables for each tier */
-    public final List<ILootEntry>[] loot;
-    /** Number of items to spawn per tier */
-    public final int[] minLootCount;
-    /** Number of items to spawn per tier */
-    public final int[] maxLootCount;
-    /** Command to run per tier */
-    public final String[] commands;
-    /** Number of items to spawn per tier */
-    public final boolean[] allowDuplicateDrops;
+
+    /** Loot tables for each tier, replaced as a whole when data is loaded */
+    private volatile LootTable[] tables;
+
+    /** Should loot be rolled when the spawner places a box, rather than when opened */
+    public boolean preRollLoot = true;
+    /** Should compiled tables be cached to speed up loading */
+    public boolean useTableCache = true;
 
     private String lootDataPath = "./loot";
     private File lootDataFolder;
+    private LootTableCache tableCache;
+
+    /** Set while tables are being reloaded, converted, or exported in the background */
+    private final AtomicBoolean reloading = new AtomicBoolean();
 
     public LootHandler(int numberOfTiers)
     {
         tiers = numberOfTiers;
-        loot = new List[numberOfTiers];
-        minLootCount = new int[numberOfTiers];
-        maxLootCount = new int[numberOfTiers];
-        allowDuplicateDrops = new boolean[numberOfTiers];
-        commands = new String[numberOfTiers];
-
+        tables = new LootTable[numberOfTiers];
         for (int i = 0; i < tiers; i++)
         {
-            commands[i] = "/wjlootbox loot %player% " + i;
-            loot[i] = new ArrayList();
+            tables[i] = LootTable.empty(i);
         }
     }
 
+    /**
+     * Gets the current loot table for the tier. Callers should hold onto the
+     * table for the entire roll as it can be replaced by a reload at any time.
+     *
+     * @param tier
+     * @return table
+     */
+    public LootTable getTable(int tier)
+    {
+        return tables[tier];
+    }
+
+    /**
+     * Replaces the table for a single tier
+     *
+     * @param table - new table, replaces the table for its tier
+     */
+    void setTable(LootTable table)
+    {
+        //Replace the array rather than changing it, rolls in progress keep the tables they have
+        final LootTable[] newTables = tables.clone();
+        newTables[table.tier] = table;
+        tables = newTables;
+    }
+
     /**
      * Triggers a chat command linked to the lootbox. Which will then
      * trigger the correct output depending on how the boxes are setup.
      * <p>
      * By default this will call {@link #doDropRandomLoot(EntityPlayer, World, int, int, int, int)}
-     * however, can be setup to do anything.
+     * however, can be setup to do anything. If the box has loot rolled ahead of time
+     * and the tier uses the default command, the stored loot is given directly.
      *
      * @param world
      * @param x
@@ -96,12 +140,33 @@ public class LootHandler
     {
         if (tier >= 0 && tier < tiers && !world.isRemote)
         {
+            final Object droppedEvent = WJLootBoxes.events.beginLootDropped();
+            final LootTable table = getTable(tier);
+
+            //Use pre-rolled loot if it is still valid for the table
+            final TileEntity tile = world.getTileEntity(x, y, z);
+            if (tile instanceof TileEntityLootbox && table.isDefaultCommand())
+            {
+                final LootRoll roll = ((TileEntityLootbox) tile).takeLoot();
+                if (roll != null && table.matches(roll))
+                {
+                    if (player == null)
+                    {
+                        //Matches the @p[r=3] selector used by the default command
+                        player = world.getClosestPlayer(x + 0.5, y + 0.5, z + 0.5, 3);
+                    }
+                    dispense(table, roll, player, world, x, y, z);
+                    WJLootBoxes.events.endLootDropped(droppedEvent, world.provider.dimensionId, x, y, z, tier, true);
+                    return;
+                }
+            }
+
             MinecraftServer minecraftserver = MinecraftServer.getServer();
 
             if (minecraftserver != null)
             {
                 ICommandManager icommandmanager = minecraftserver.getCommandManager();
-                String command = commands[tier];
+                String command = table.command;
                 if (player != null)
                 {
                     command = command.replace("%player%", player.getCommandSenderName());
@@ -112,6 +177,7 @@ public class LootHandler
                 }
                 icommandmanager.executeCommand(new CommandSenderLootbox(world, x, y, z, tier), command);
             }
+            WJLootBoxes.events.endLootDropped(droppedEvent, world.provider.dimensionId, x, y, z, tier, false);
         }
     }
 
@@ -126,57 +192,200 @@ public class LootHandler
      */
     public void doDropRandomLoot(@Nullable EntityPlayer player, World world, int x, int y, int z, int tier)
     {
-        //Get loot to spawn
-        List<ILootEntry> possibleItems = loot[tier];
+        final Object rollEvent = WJLootBoxes.events.beginLootRoll();
+        final long start = System.nanoTime();
+        final LootTable table = getTable(tier);
+        final int[] lootToSpawn = selectLoot(table, world.rand, player, world, x, y, z);
+        if (lootToSpawn.length > 0)
+        {
+            //Collect items so the roll can be merged
+            final LootCollector collector = new LootCollector();
+            for (int index : lootToSpawn)
+            {
+                collectEntry(table, index, player, world, x, y, z, collector);
+            }
 
-        //Get items to spawn
-        int itemsToSpawn = minLootCount[tier];
-        if (minLootCount[tier] < maxLootCount[tier])
+            //Drop items
+            collector.dispense(player, world, x, y, z);
+        }
+        WJLootBoxes.metrics.recordRoll(tier, System.nanoTime() - start);
+        WJLootBoxes.events.endLootRoll(rollEvent, tier, lootToSpawn.length, false);
+    }
+
+    /**
+     * Rolls loot for the tier without a player or world. Safe to call
+     * from the spawner thread as long as the random is not shared.
+     *
+     * @param tier
+     * @param random - random owned by the calling thread
+     * @return loot rolled
+     */
+    public LootRoll rollLoot(int tier, Random random)
+    {
+        final Object rollEvent = WJLootBoxes.events.beginLootRoll();
+        final long start = System.nanoTime();
+        final LootTable table = getTable(tier);
+        final LootRoll roll = new LootRoll(tier, table.hash);
+        final int[] lootToSpawn = selectLoot(table, random, null, null, 0, 0, 0);
+        for (int index : lootToSpawn)
         {
-            itemsToSpawn += world.rand.nextInt(maxLootCount[tier] - minLootCount[tier]);
+            if (table.isItemStack(index))
+            {
+                final ItemStack stack = table.rollStack(index, random);
+                WJLootBoxes.events.lootEntryRolled(tier, index, stack != null ? stack.stackSize : 0);
+                roll.collector.add(stack);
+            }
+            else
+            {
+                final ILootEntry lootEntry = table.getEntry(index);
+                if (lootEntry instanceof LootEntryStack && ((LootEntryStack) lootEntry).canRollOffThread())
+                {
+                    roll.collector.add(((LootEntryStack) lootEntry).rollStack(random));
+                }
+                else
+                {
+                    //Can't be stored as items or needs the main thread, trigger the entry when opened
+                    roll.addEntry(index);
+                }
+            }
         }
+        WJLootBoxes.metrics.recordRoll(tier, System.nanoTime() - start);
+        WJLootBoxes.events.endLootRoll(rollEvent, tier, lootToSpawn.length, true);
+        return roll;
+    }
 
-        //Check if we should care about duplicates
-        boolean allowDuplicateEntries = allowDuplicateDrops[tier];
+    /**
+     * Adds the loot for a single entry to the collector
+     *
+     * @param table     - table the entry is from
+     * @param index     - index of the entry
+     * @param player    - player the loot is for, can be null
+     * @param world
+     * @param x
+     * @param y
+     * @param z
+     * @param collector - collector to add items to
+     */
+    protected void collectEntry(LootTable table, int index, @Nullable EntityPlayer player, World world, int x, int y, int z, LootCollector collector)
+    {
+        if (table.isItemStack(index))
+        {
+            final ItemStack stack = table.rollStack(index, world.rand);
+            WJLootBoxes.events.lootEntryRolled(table.tier, index, stack != null ? stack.stackSize : 0);
+            if (stack != null)
+            {
+                collector.add(stack);
+            }
+        }
+        else
+        {
+            table.getEntry(index).collectLoot(player, world, x, y, z, table.tier, collector);
+            WJLootBoxes.events.lootEntryRolled(table.tier, index, 0);
+        }
+    }
 
-        //Validate data
-        if (possibleItems != null && itemsToSpawn > 0)
+    /**
+     * Gives out loot that was rolled ahead of time
+     *
+     * @param table  - table the roll was made from
+     * @param roll   - loot to give, consumed by the call
+     * @param player - player to give loot to, can be null
+     * @param world
+     * @param x
+     * @param y
+     * @param z
+     */
+    public void dispense(LootTable table, LootRoll roll, @Nullable EntityPlayer player, World world, int x, int y, int z)
+    {
+        for (int index : roll.getEntries())
         {
-            //Collect loot to spawn
-            final List<ILootEntry> lootToSpawn = new ArrayList();
+            if (index < table.size() && !table.isItemStack(index) && table.getEntry(index) != null)
+            {
+                //Ore entries add their stack to the rest of the roll
+                table.getEntry(index).collectLoot(player, world, x, y, z, roll.tier, roll.collector);
+            }
+        }
+        roll.collector.dispense(player, world, x, y, z);
+    }
 
-            //Get number of requested items to spawn
-            for (int i = 0; i < itemsToSpawn; i++)
+    /**
+     * Collects the loot for a box broken without a player into the collector.
+     * Used to merge the loot of several boxes before giving it out.
+     *
+     * @param roll      - loot stored in the box, can be null
+     * @param world
+     * @param x
+     * @param y
+     * @param z
+     * @param tier
+     * @param collector - collector to add items to
+     */
+    public void collectBoxLoot(@Nullable LootRoll roll, World world, int x, int y, int z, int tier, LootCollector collector)
+    {
+        final LootTable table = getTable(tier);
+        if (roll != null && table.matches(roll))
+        {
+            for (int index : roll.getEntries())
             {
-                //Loop a few times to get a random entry
-                for (int r = 0; r < 6; r++)
+                if (index < table.size() && !table.isItemStack(index) && table.getEntry(index) != null)
                 {
-                    //Get random entry to allow a chance for all entries to be used
-                    ILootEntry lootEntry = possibleItems.size() > 1 ? possibleItems.get(world.rand.nextInt(possibleItems.size() - 1)) : possibleItems.get(0);
-
-                    //Null check, loaded data can result in nulls in rare cases
-                    if (lootEntry != null)
-                    {
-                        //Random chance
-                        if (lootEntry.shouldDrop(player, world, x, y, z, tier)
-                                //Duplication check
-                                && (allowDuplicateEntries || !lootToSpawn.contains(lootEntry)))
-                        {
-                            lootToSpawn.add(lootEntry);
-                            break; //Exit loop
-                        }
-                    }
+                    table.getEntry(index).collectLoot(null, world, x, y, z, tier, roll.collector);
                 }
             }
 
-            //Drop items
-            for (ILootEntry lootEntry : lootToSpawn)
+            for (ItemStack stack : roll.collector.stacks)
+            {
+                collector.add(stack);
+            }
+            roll.collector.stacks.clear();
+        }
+        else
+        {
+            for (int index : selectLoot(table, world.rand, null, world, x, y, z))
             {
-                lootEntry.givePlayer(player, world, x, y, z, tier);
+                collectEntry(table, index, null, world, x, y, z, collector);
             }
         }
     }
 
+    /**
+     * Checks if the tier is using the default loot command. Custom
+     * commands can do anything, so loot is not pre-rolled for them.
+     *
+     * @param tier
+     * @return true if default
+     */
+    public boolean isDefaultCommand(int tier)
+    {
+        return tier >= 0 && tier < tiers && getTable(tier).isDefaultCommand();
+    }
+
+    /**
+     * Selects random entries from the loot table
+     *
+     * @param table  - table to select from
+     * @param random - random to use for the selection
+     * @param player - player the loot is for, can be null
+     * @param world  - world the loot is for, null when rolling ahead of time
+     * @param x
+     * @param y
+     * @param z
+     * @return indices of the entries to give
+     */
+    public int[] selectLoot(LootTable table, Random random, @Nullable EntityPlayer player, @Nullable World world, int x, int y, int z)
+    {
+        if (world == null)
+        {
+            return LootSampler.select(table, random);
+        }
+
+        //Custom entries can use the player and world
+        return LootSampler.select(table, (index, rand) -> {
+            final ILootEntry lootEntry = table.isItemStack(index) ? null : table.getEntry(index);
+            return lootEntry != null ? lootEntry.shouldDrop(player, world, x, y, z, table.tier) : table.shouldDrop(index, rand);
+        }, random);
+    }
+
     /**
      * Loads common settings
      *
@@ -187,6 +396,16 @@ public class LootHandler
         final String category = "loot_handler";
         lootDataPath = configuration.getString("lootDataPath", category, lootDataPath, "Path to load " +
                 "loot table data from. Add './' in front for relative path, or else use the full system path.");
+        preRollLoot = configuration.getBoolean("preRollLoot", category, preRollLoot, "Roll loot on the spawner " +
+                "thread when a box is placed and store it in the box, rather than rolling it when opened. Only " +
+                "applies to tiers using the default loot command. Stored loot is rolled again if the table changes.");
+        useTableCache = configuration.getBoolean("useTableCache", category, useTableCache, "Store compiled loot " +
+                "tables in a binary cache next to the loot folder. The cache is used on start as long as the loot " +
+                "table file and item registry have not changed, which avoids parsing large tables each start.");
+        JsonConverterNBT.maxDepth = configuration.getInt("nbtMaxDepth", category, JsonConverterNBT.maxDepth, 1, 512,
+                "Max number of nested compounds allowed in the NBT of a single loot entry.");
+        JsonConverterNBT.maxSize = configuration.getInt("nbtMaxSize", category, JsonConverterNBT.maxSize, 1, 10000000,
+                "Max number of tags, counting each array value, allowed in the NBT of a single loot entry.");
     }
 
     /**
@@ -208,6 +427,9 @@ public class LootHandler
 
         //TODO validate path
 
+        //Cache is stored next to the loot folder
+        tableCache = new LootTableCache(new File(lootDataFolder.getParentFile(), lootDataFolder.getName() + "_cache"));
+
         //Load if exists
         if (lootDataFolder.exists())
         {
@@ -222,176 +444,635 @@ public class LootHandler
     }
 
     /**
-     * Called to save the loot data to the file system
+     * Called to load the loot data from the file system. Each tier is loaded
+     * in parallel, once all tiers are loaded the tables are replaced at once.
+     * Tiers that fail to load are left empty.
      */
     public void loadLootData()
     {
-        for (int tier = 0; tier < tiers; tier++)
+        //Problems are already logged, at start the tables are used regardless
+        final LootTable[] loadedTables = loadTables(new ArrayList());
+
+        //Swap in all tables at once
+        tables = loadedTables;
+        NBTTemplatePool.publishLoad();
+    }
+
+    /**
+     * Reloads the loot data in the background. The new tables are only used if
+     * every tier loads without problems, otherwise the current tables are kept.
+     * Rolls in progress finish on the table they started with.
+     *
+     * @param callback - called on the main thread with the result messages, first
+     *                 value is true if the new tables are now in use
+     * @return false if a reload is already running
+     */
+    public boolean reloadLootData(BiConsumer<Boolean, List<String>> callback)
+    {
+        if (!reloading.compareAndSet(false, true))
         {
+            return false;
+        }
+
+        final Thread thread = new Thread(() -> {
+            final List<String> messages = new ArrayList();
+            boolean published = false;
             try
             {
-                loadDataFor(tier, getFileForTier(tier));
+                final LootTable[] loadedTables = loadTables(messages);
+                if (messages.isEmpty())
+                {
+                    //Single swap, anything rolling keeps the table it already has
+                    tables = loadedTables;
+                    NBTTemplatePool.publishLoad();
+                    published = true;
+
+                    for (LootTable table : loadedTables)
+                    {
+                        messages.add("Tier " + table.tier + ": " + table.size() + " entries");
+                    }
+                }
             }
-            catch (FileNotFoundException e)
+            catch (Exception e)
             {
-                e.printStackTrace();
+                WJLootBoxes.LOGGER.error("Unexpected error reloading loot tables", e);
+                messages.add("Unexpected error: " + e.getMessage());
             }
-            catch (IOException e)
+            finally
             {
-                e.printStackTrace();
+                if (!published)
+                {
+                    //Current tables keep the pool they were loaded with
+                    NBTTemplatePool.discardLoad();
+                }
+                reloading.set(false);
             }
-        }
+
+            if (published)
+            {
+                WJLootBoxes.LOGGER.info("Loot tables reloaded");
+            }
+            else
+            {
+                WJLootBoxes.LOGGER.error("Loot tables failed to reload, keeping current tables");
+            }
+
+            final boolean result = published;
+            WJLootBoxes.serverTasks.add(() -> callback.accept(result, messages));
+        }, "WJ_LootReload");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
     }
 
     /**
-     * Called to save the loot data to the file system
+     * Loads new tables for all tiers without changing the tables in use.
+     * Each tier is loaded in parallel on a fork-join pool. NBT is pooled in
+     * a new {@link NBTTemplatePool}, the caller publishes or discards it.
+     *
+     * @param problems - list to add messages about tiers that failed to load
+     * @return tables, tiers that failed to load are empty
      */
-    public void saveLootData()
+    protected LootTable[] loadTables(List<String> problems)
     {
-        for (int tier = 0; tier < tiers; tier++)
+        final long start = System.nanoTime();
+        final LootTable[] loadedTables = new LootTable[tiers];
+
+        //Start a new NBT pool so tags only used by old tables can be freed
+        NBTTemplatePool.beginLoad();
+
+        //Registry is the same for all tiers, hash it once
+        final long registryHash = useTableCache ? LootTableCache.hashItemRegistry() : 0;
+
+        final ForkJoinPool pool = new ForkJoinPool(Math.max(1, Math.min(tiers, Runtime.getRuntime().availableProcessors())));
+        try
         {
-            try
+            //Start all tiers
+            final List<ForkJoinTask<LootTable>> tasks = new ArrayList();
+            final LootTableStats[] stats = new LootTableStats[tiers];
+            for (int tier = 0; tier < tiers; tier++)
             {
-                saveDataFor(tier, getFileForTier(tier));
+                final int t = tier;
+                stats[t] = new LootTableStats();
+                tasks.add(pool.submit(() -> loadDataFor(t, getSourceFileForTier(t), registryHash, stats[t])));
             }
-            catch (IOException e)
+
+            //Wait for each tier, a failed tier is left empty
+            for (int tier = 0; tier < tiers; tier++)
             {
-                e.printStackTrace();
+                try
+                {
+                    loadedTables[tier] = tasks.get(tier).get();
+
+                    final List<String> tableProblems = new ArrayList();
+                    if (stats[tier].failures > 0)
+                    {
+                        //Entries that failed are skipped, the table would be missing them
+                        tableProblems.add("Tier " + tier + " skipped " + stats[tier].failures + " loot entries that failed to load");
+                    }
+                    loadedTables[tier].validate(tableProblems);
+                    for (String problem : tableProblems)
+                    {
+                        WJLootBoxes.LOGGER.warn(problem);
+                    }
+                    problems.addAll(tableProblems);
+                }
+                catch (ExecutionException e)
+                {
+                    final Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    WJLootBoxes.LOGGER.error("Failed to load tier " + tier + " loot data from " + getSourceFileForTier(tier), cause);
+                    problems.add("Failed to load tier " + tier + " loot data from " + getSourceFileForTier(tier) + ": " + cause.getMessage());
+                    loadedTables[tier] = LootTable.empty(tier);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    problems.add("Interrupted while loading tier " + tier + " loot data");
+                    loadedTables[tier] = LootTable.empty(tier);
+                }
             }
         }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        WJLootBoxes.LOGGER.info(String.format("Loaded loot tables for %d tiers in %.2f ms with %d unique NBT tags",
+                tiers, (System.nanoTime() - start) / 1e6, NBTTemplatePool.size()));
+        return loadedTables;
     }
 
-    protected void loadDataFor(int tier, File file) throws IOException
+    /**
+     * Converts the loot tables in use to JSON or compressed NBT in the background.
+     * Converting to JSON moves the NBT file aside, as it would be loaded instead of
+     * the JSON otherwise. Converting to NBT leaves the JSON file as it is.
+     *
+     * @param toBinary - true to write NBT files, false to write JSON files
+     * @param callback - called on the main thread with the result messages, first
+     *                 value is true if every tier was converted
+     * @return false if a reload or conversion is already running
+     */
+    public boolean convertLootData(boolean toBinary, BiConsumer<Boolean, List<String>> callback)
     {
-        if (file.exists() && file.isFile())
+        if (!reloading.compareAndSet(false, true))
         {
-            //Load data
-            FileReader stream = new FileReader(file);
-            BufferedReader reader = new BufferedReader(stream);
-            JsonReader jsonReader = new JsonReader(reader);
-            JsonElement element = Streams.parse(jsonReader);
-            stream.close();
+            return false;
+        }
 
-            //Parse data
-            loadDataFor(tier, element);
+        final LootTable[] tablesToConvert = tables;
+        final String[] messages = new String[tablesToConvert.length];
+        final int[] remaining = {tablesToConvert.length};
+        final boolean[] converted = {true};
+        for (LootTable table : tablesToConvert)
+        {
+            final File file = toBinary ? getBinaryFileForTier(table.tier) : getFileForTier(table.tier);
+            saveDataFor(table, file, (writtenFile, error) -> {
+                //Callbacks run on the main thread, no locking needed for the shared counts
+                Exception result = error;
+                if (result == null && !toBinary)
+                {
+                    final File binaryFile = getBinaryFileForTier(table.tier);
+                    try
+                    {
+                        if (binaryFile.exists())
+                        {
+                            Files.move(binaryFile.toPath(), new File(binaryFile.getParentFile(), binaryFile.getName() + ".bak").toPath(),
+                                    StandardCopyOption.REPLACE_EXISTING);
+                        }
+                    }
+                    catch (IOException e)
+                    {
+                        WJLootBoxes.LOGGER.error("Failed to move " + binaryFile + " aside after converting tier " + table.tier + " to JSON", e);
+                        result = e;
+                    }
+                }
+
+                if (result == null)
+                {
+                    messages[table.tier] = "Tier " + table.tier + ": " + table.size() + " entries, " + writtenFile.length() + " bytes";
+                }
+                else
+                {
+                    messages[table.tier] = "Tier " + table.tier + ": failed, " + result.getMessage();
+                    converted[0] = false;
+                }
+
+                if (--remaining[0] == 0)
+                {
+                    reloading.set(false);
+                    callback.accept(converted[0], Arrays.asList(messages));
+                }
+            });
         }
+        return true;
     }
 
-
-    protected void loadDataFor(int tier, JsonElement element)
+    /**
+     * Adds the stacks to the end of the tier's table in the background, see
+     * {@link LootTableExport}. The new table is used as soon as it is built
+     * and is then saved to the file the tier was loaded from.
+     *
+     * @param tier     - tier to add to
+     * @param stacks   - copies of the stacks to add, see {@link LootTableExport#copyStacks(IInventory)}
+     * @param callback - called on the main thread with the result messages, first
+     *                 value is true if the table was updated and saved
+     * @return false if a reload, conversion, or export is already running
+     */
+    public boolean exportToTable(int tier, List<ItemStack> stacks, BiConsumer<Boolean, List<String>> callback)
     {
-        if (element.isJsonObject())
+        if (!reloading.compareAndSet(false, true))
         {
-            final JsonObject tierJsonData = element.getAsJsonObject();
+            return false;
+        }
 
-            //Validate data
-            if (hasKey(tierJsonData, tier, JSON_MIN_LOOT, "This is required to indicate the min number of loot entries to drop.")
-                    && hasKey(tierJsonData, tier, JSON_MAX_LOOT, "This is required to indicate the max number of loot entries to drop.")
-                    && hasKey(tierJsonData, tier, JSON_LOOT_ARRAY, "This is required to generate items to drop"))
+        final Thread thread = new Thread(() -> {
+            final List<String> messages = new ArrayList();
+            try
             {
-                minLootCount[tier] = Math.max(1, tierJsonData.getAsJsonPrimitive(JSON_MIN_LOOT).getAsInt());
-                maxLootCount[tier] = Math.max(1, tierJsonData.getAsJsonPrimitive(JSON_MAX_LOOT).getAsInt());
-                if (tierJsonData.has(JSON_COMMAND))
+                final LootTable currentTable = getTable(tier);
+                final LootTable newTable = LootTableExport.append(currentTable, stacks, messages);
+                if (newTable == currentTable)
                 {
-                    commands[tier] = tierJsonData.getAsJsonPrimitive(JSON_COMMAND).getAsString();
+                    reloading.set(false);
+                    WJLootBoxes.serverTasks.add(() -> callback.accept(false, messages));
+                    return;
                 }
 
-                final JsonArray lootEntries = tierJsonData.getAsJsonArray(JSON_LOOT_ARRAY);
+                setTable(newTable);
+                messages.add("Tier " + tier + " now has " + newTable.size() + " entries");
 
-                for (JsonElement lootEntryElement : lootEntries)
-                {
-                    if (lootEntryElement.isJsonObject())
+                saveDataFor(newTable, getSourceFileForTier(tier), (file, error) -> {
+                    reloading.set(false);
+                    if (error == null)
                     {
-                        final JsonObject lootJsonData = lootEntryElement.getAsJsonObject();
+                        messages.add("Saved to " + file);
+                    }
+                    else
+                    {
+                        messages.add("Failed to save " + file + ": " + error.getMessage());
+                    }
+                    callback.accept(error == null, messages);
+                });
+            }
+            catch (Exception e)
+            {
+                reloading.set(false);
+                WJLootBoxes.LOGGER.error("Unexpected error exporting stacks to tier " + tier + " loot table", e);
+                messages.add("Unexpected error: " + e.getMessage());
+                WJLootBoxes.serverTasks.add(() -> callback.accept(false, messages));
+            }
+        }, "WJ_LootExport");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
 
-                        //Load data
-                        final String itemName = lootJsonData.get(JSON_ITEM_ID).getAsString();
+    /**
+     * Called to save the loot data to the file system. Files are
+     * written in the background by {@link WJLootBoxes#fileWriter}.
+     */
+    public void saveLootData()
+    {
+        for (int tier = 0; tier < tiers; tier++)
+        {
+            saveDataFor(getTable(tier), getSourceFileForTier(tier));
+        }
+    }
 
-                        //Create entry
-                        ILootEntry lootEntry;
-                        if (itemName.startsWith("ore@"))
-                        {
-                            lootEntry = LootEntryOre.newEntry(itemName.substring(4), lootJsonData);
-                        }
-                        else if (itemName.startsWith("give@"))
-                        {
-                            lootEntry = LootEntryGive.newEntry(itemName.substring(5), lootJsonData);
-                        }
-                        else if (itemName.startsWith("command@"))
-                        {
-                            lootEntry = LootEntryCommand.newEntry(itemName.substring(8), lootJsonData);
-                        }
-                        else
-                        {
-                            lootEntry = LootEntryItemStack.newEntry(itemName, lootJsonData);
-                        }
+    /**
+     * Loads the loot table for the tier from the file. Uses the compiled cache if
+     * it matches the file, otherwise the file is read as a stream. Each loot entry
+     * is built as soon as it is read rather than loading the entire file into
+     * memory first.
+     *
+     * @param tier
+     * @param file
+     * @param registryHash - hash of the item registry, see {@link LootTableCache#hashItemRegistry()}
+     * @param stats        - counts entries that failed to load
+     * @return table loaded, or an empty table if the file doesn't exist or is invalid
+     * @throws IOException
+     */
+    protected LootTable loadDataFor(int tier, File file, long registryHash, LootTableStats stats) throws IOException
+    {
+        if (file.exists() && file.isFile())
+        {
+            final long start = System.nanoTime();
+
+            //NBT files are already quick to load, no need for the cache
+            if (isBinaryFile(file))
+            {
+                final LootTable table = LootTableNBT.read(tier, file, stats);
+                WJLootBoxes.LOGGER.info(String.format("Loaded tier %d loot table from NBT in %.2f ms with %d entries and %d failures",
+                        tier, (System.nanoTime() - start) / 1e6, table.size(), stats.failures));
+                return table;
+            }
+
+            //Try cache first
+            final byte[] sourceHash = useTableCache ? LootTableCache.hashFile(file) : null;
+            if (sourceHash != null)
+            {
+                final LootTable cachedTable = tableCache.read(tier, sourceHash, registryHash);
+                if (cachedTable != null)
+                {
+                    WJLootBoxes.LOGGER.info(String.format("Loaded tier %d loot table from cache in %.2f ms with %d entries",
+                            tier, (System.nanoTime() - start) / 1e6, cachedTable.size()));
+                    return cachedTable;
+                }
+            }
 
-                        if (lootEntry != null)
+            LootTable table;
+            try (JsonReader jsonReader = new JsonReader(new BufferedReader(new FileReader(file))))
+            {
+                table = loadDataFor(tier, jsonReader, stats);
+            }
+
+            WJLootBoxes.LOGGER.info(String.format("Loaded tier %d loot table in %.2f ms with %d entries and %d failures",
+                    tier, (System.nanoTime() - start) / 1e6, table.size(), stats.failures));
+
+            //Only cache clean loads so warnings about missing items keep showing
+            if (sourceHash != null && stats.failures == 0 && table.size() > 0)
+            {
+                tableCache.write(table, sourceHash, registryHash);
+            }
+            return table;
+        }
+        return LootTable.empty(tier);
+    }
+
+    protected LootTable loadDataFor(int tier, JsonReader jsonReader, LootTableStats stats) throws IOException
+    {
+        if (jsonReader.peek() != JsonToken.BEGIN_OBJECT)
+        {
+            throw new IOException("Failed to load tier " + tier + " loot data due to JSON not being an object." +
+                    "Tier loot table data should be nested inside of {} for it to be considered an object");
+        }
+
+        int minLoot = -1;
+        int maxLoot = -1;
+        String command = DEFAULT_COMMAND + tier;
+        boolean hasEntries = false;
+        final List<ILootEntry> entries = new ArrayList();
+
+        jsonReader.beginObject();
+        while (jsonReader.hasNext())
+        {
+            switch (jsonReader.nextName())
+            {
+                case JSON_MIN_LOOT:
+                    minLoot = Math.max(1, jsonReader.nextInt());
+                    break;
+                case JSON_MAX_LOOT:
+                    maxLoot = Math.max(1, jsonReader.nextInt());
+                    break;
+                case JSON_COMMAND:
+                    command = jsonReader.nextString();
+                    break;
+                case JSON_LOOT_ARRAY:
+                    hasEntries = true;
+                    jsonReader.beginArray();
+                    while (jsonReader.hasNext())
+                    {
+                        if (jsonReader.peek() == JsonToken.BEGIN_OBJECT)
                         {
-                            //Add to array
-                            loot[tier].add(lootEntry);
+                            //Only a single entry is held in memory at a time
+                            final ILootEntry lootEntry = loadLootEntry(tier, jsonReader);
+                            if (lootEntry != null)
+                            {
+                                entries.add(lootEntry);
+                            }
+                            else
+                            {
+                                stats.failures++;
+                            }
                         }
                         else
                         {
-                            WJLootBoxes.LOGGER.warn("Skipping loot entry for tier " + tier + " loot table data. Failed to locate (item/block/ore) to create entry for '" + itemName + "'.");
+                            jsonReader.skipValue();
                         }
                     }
+                    jsonReader.endArray();
+                    break;
+                default:
+                    jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+
+        //Validate data
+        requireKey(minLoot != -1, tier, JSON_MIN_LOOT, "This is required to indicate the min number of loot entries to drop.");
+        requireKey(maxLoot != -1, tier, JSON_MAX_LOOT, "This is required to indicate the max number of loot entries to drop.");
+        requireKey(hasEntries, tier, JSON_LOOT_ARRAY, "This is required to generate items to drop");
+        return new LootTable(tier, minLoot, maxLoot, command, false, entries);
+    }
+
+    /**
+     * Reads a loot entry from the reader. NBT is converted straight from
+     * the reader, everything else is read into a small JSON object.
+     *
+     * @param tier       - tier being loaded, used for error output
+     * @param jsonReader - reader positioned at the start of the entry
+     * @return entry, or null if it failed to load
+     * @throws IOException if the JSON is invalid
+     */
+    protected ILootEntry loadLootEntry(int tier, JsonReader jsonReader) throws IOException
+    {
+        final JsonObject lootJsonData = new JsonObject();
+        NBTTagCompound nbt = null;
+        boolean nbtFailed = false;
+
+        jsonReader.beginObject();
+        while (jsonReader.hasNext())
+        {
+            final String name = jsonReader.nextName();
+            if (JSON_ITEM_NBT.equals(name) && jsonReader.peek() == JsonToken.BEGIN_OBJECT)
+            {
+                try
+                {
+                    nbt = JsonConverterNBT.read(jsonReader);
                 }
+                catch (JsonConverterNBT.NBTConversionException e)
+                {
+                    //Reader is already past the NBT, finish the entry so the rest of the table loads
+                    WJLootBoxes.LOGGER.warn("Skipping loot entry for tier " + tier + " loot table data. Failed to convert NBT: " + e.getMessage());
+                    nbtFailed = true;
+                }
+            }
+            else
+            {
+                lootJsonData.add(name, Streams.parse(jsonReader));
             }
         }
-        else
+        jsonReader.endObject();
+
+        return nbtFailed ? null : loadLootEntry(tier, lootJsonData, nbt);
+    }
+
+    /**
+     * Creates a loot entry from its JSON data
+     *
+     * @param tier         - tier being loaded, used for error output
+     * @param lootJsonData - data for the entry
+     * @return entry, or null if it failed to load
+     */
+    protected ILootEntry loadLootEntry(int tier, JsonObject lootJsonData)
+    {
+        return loadLootEntry(tier, lootJsonData, null);
+    }
+
+    /**
+     * Creates a loot entry from its JSON data
+     *
+     * @param tier         - tier being loaded, used for error output
+     * @param lootJsonData - data for the entry
+     * @param nbt          - NBT already read for the entry, null to use the NBT in the JSON data
+     * @return entry, or null if it failed to load
+     */
+    protected ILootEntry loadLootEntry(int tier, JsonObject lootJsonData, @Nullable NBTTagCompound nbt)
+    {
+        String itemName = null;
+        try
         {
-            WJLootBoxes.LOGGER.error("Failed to load tier " + tier + " loot data due to JSON not being an object." +
-                    "Tier loot table data should be nested inside of {} for it to be considered an object");
+            //Load data
+            itemName = lootJsonData.get(JSON_ITEM_ID).getAsString();
+
+            //Create entry
+            ILootEntry lootEntry;
+            if (itemName.startsWith("ore@"))
+            {
+                lootEntry = LootEntryOre.newEntry(itemName.substring(4), lootJsonData);
+            }
+            else if (itemName.startsWith("give@"))
+            {
+                lootEntry = LootEntryGive.newEntry(itemName.substring(5), lootJsonData);
+            }
+            else if (itemName.startsWith("command@"))
+            {
+                lootEntry = LootEntryCommand.newEntry(itemName.substring(8), lootJsonData);
+            }
+            else
+            {
+                lootEntry = LootEntryItemStack.newEntry(itemName, lootJsonData, nbt);
+            }
+
+            if (lootEntry == null)
+            {
+                WJLootBoxes.LOGGER.warn("Skipping loot entry for tier " + tier + " loot table data. Failed to locate (item/block/ore) to create entry for '" + itemName + "'.");
+            }
+            return lootEntry;
         }
+        catch (Exception e)
+        {
+            WJLootBoxes.LOGGER.warn("Skipping loot entry for tier " + tier + " loot table data. Unexpected error while loading '" + itemName + "' from " + lootJsonData, e);
+        }
+        return null;
     }
 
-    protected boolean hasKey(JsonObject jsonData, int tier, String key, String error_message)
+    protected static void requireKey(boolean found, int tier, String key, String error_message) throws IOException
     {
-        if (!jsonData.has(key))
+        if (!found)
         {
-            WJLootBoxes.LOGGER.error("Failed to load tier " + tier + " loot data due to missing entry [" + key + "]. "
+            throw new IOException("Failed to load tier " + tier + " loot data due to missing entry [" + key + "]. "
                     + error_message);
-            return false;
         }
-        return true;
     }
 
-    protected void saveDataFor(int tier, File writeFile) throws IOException
+    protected void saveDataFor(LootTable table, File writeFile)
+    {
+        saveDataFor(table, writeFile, null);
+    }
+
+    /**
+     * Queues the table to be written to the file. Tables never change,
+     * so the writer thread can read the table while the game keeps going.
+     *
+     * @param table     - table to save
+     * @param writeFile - file to write, saved as NBT for .dat files and JSON otherwise
+     * @param callback  - called on the main thread once written, can be null
+     */
+    protected void saveDataFor(LootTable table, File writeFile, @Nullable FileWriteService.WriteCallback callback)
+    {
+        if (isBinaryFile(writeFile))
+        {
+            WJLootBoxes.fileWriter.write(writeFile, stream -> LootTableNBT.write(table, stream), callback);
+        }
+        else
+        {
+            WJLootBoxes.fileWriter.write(writeFile, stream -> {
+                final JsonWriter jsonWriter = FileWriteService.createJsonWriter(stream);
+                writeDataFor(table, jsonWriter);
+                jsonWriter.flush();
+            }, callback);
+        }
+    }
+
+    /**
+     * Writes the table as JSON, entries are streamed out one at a time
+     *
+     * @param table      - table to write
+     * @param jsonWriter - writer to output to
+     * @throws IOException
+     */
+    protected void writeDataFor(LootTable table, JsonWriter jsonWriter) throws IOException
     {
-        //Generate JSON for output
-        JsonObject object = new JsonObject();
-        object.addProperty(JSON_MIN_LOOT, minLootCount[tier]);
-        object.addProperty(JSON_MAX_LOOT, maxLootCount[tier]);
-        object.addProperty(JSON_COMMAND, commands[tier]);
+        jsonWriter.beginObject();
+        jsonWriter.name(JSON_MIN_LOOT).value(table.minLootCount);
+        jsonWriter.name(JSON_MAX_LOOT).value(table.maxLootCount);
+        jsonWriter.name(JSON_COMMAND).value(table.command);
 
-        JsonArray array = new JsonArray();
-        if (loot[tier] != null)
+        jsonWriter.name(JSON_LOOT_ARRAY).beginArray();
+        for (int i = 0; i < table.size(); i++)
         {
-            for (ILootEntry lootEntry : loot[tier])
+            if (table.isItemStack(i))
+            {
+                writeItemEntry(table, i, jsonWriter);
+            }
+            else
             {
-                JsonElement element = saveLootEntry(lootEntry);
+                JsonElement element = saveLootEntry(table.objects[i]);
                 if (element != null)
                 {
-                    array.add(element);
+                    Streams.write(element, jsonWriter);
                 }
             }
         }
-        object.add(JSON_LOOT_ARRAY, array);
-
+        jsonWriter.endArray();
+        jsonWriter.endObject();
+    }
 
-        //Ensure the folder exists
-        if (!writeFile.getParentFile().exists())
+    /**
+     * Writes an item stack entry straight from the table columns, same
+     * output as {@link LootEntryItemStack#toJson()} without building the entry.
+     *
+     * @param table      - table holding the entry
+     * @param index      - entry index, must be an item stack entry
+     * @param jsonWriter - writer to output to
+     * @throws IOException
+     */
+    protected void writeItemEntry(LootTable table, int index, JsonWriter jsonWriter) throws IOException
+    {
+        final Item item = table.getItem(index);
+        if (item == null)
         {
-            writeFile.getParentFile().mkdirs();
+            //Item was removed, nothing to save the entry as
+            return;
         }
 
-        //Write file to disk
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        try (FileWriter fileWriter = new FileWriter(writeFile))
+        jsonWriter.beginObject();
+        jsonWriter.name(JSON_ITEM_ID).value(Item.itemRegistry.getNameForObject(item));
+        jsonWriter.name(JSON_ITEM_DATA).value(table.meta[index]);
+
+        final int nbtIndex = table.nbtIndex[index];
+        if (nbtIndex >= 0 && !table.nbtTemplates[nbtIndex].hasNoTags())
         {
-            fileWriter.write(gson.toJson(object));
+            jsonWriter.name(JSON_ITEM_NBT);
+            JsonConverterNBT.write(jsonWriter, table.nbtTemplates[nbtIndex]);
         }
+
+        jsonWriter.name(JSON_ITEM_MIN_COUNT).value(table.minCount[index]);
+        jsonWriter.name(JSON_ITEM_MAX_COUNT).value(table.maxCount[index]);
+        //Boxed so the float is written as is, not widened to a double
+        jsonWriter.name(JSON_ITEM_CHANCE).value((Number) table.chance[index]);
+        jsonWriter.endObject();
     }
 
     public static JsonElement saveLootEntry(ILootEntry lootEntry)
@@ -409,39 +1090,57 @@ public class LootHandler
         return new File(lootDataFolder, "loot_table_tier_" + tier + ".json");
     }
 
+    protected File getBinaryFileForTier(int tier)
+    {
+        return new File(lootDataFolder, "loot_table_tier_" + tier + ".dat");
+    }
+
+    /**
+     * Gets the file the tier is loaded from, the NBT file is
+     * used over the JSON file when both exist.
+     *
+     * @param tier
+     * @return file, may not exist
+     */
+    protected File getSourceFileForTier(int tier)
+    {
+        final File binaryFile = getBinaryFileForTier(tier);
+        return binaryFile.isFile() ? binaryFile : getFileForTier(tier);
+    }
+
+    protected static boolean isBinaryFile(File file)
+    {
+        return file.getName().endsWith(".dat");
+    }
+
     private void generateDefaultData()
     {
-        minLootCount[0] = 1;
-        maxLootCount[0] = 3;
-        allowDuplicateDrops[0] = true;
-        loot[0].add(new LootEntryItemStack(new ItemStack(Items.stick), 5, 100, 1));
-        loot[0].add(new LootEntryItemStack(new ItemStack(Items.leather_boots), 1, 1, 0.1f));
-        loot[0].add(new LootEntryItemStack(new ItemStack(Items.carrot), 5, 10, 0.5f));
-        loot[0].add(new LootEntryItemStack(new ItemStack(Items.stone_axe), 1, 2, 0.3f));
-        loot[0].add(new LootEntryItemStack(new ItemStack(Items.cooked_beef), 3, 10, 0.1f));
-
-
-        minLootCount[1] = 1;
-        maxLootCount[1] = 5;
-        allowDuplicateDrops[1] = true;
-        loot[1].add(new LootEntryItemStack(new ItemStack(Blocks.stone), 5, 100, 1));
-        loot[1].add(new LootEntryItemStack(new ItemStack(Items.leather_chestplate), 1, 1, 0.1f));
-        loot[1].add(new LootEntryItemStack(new ItemStack(Items.flint_and_steel), 1, 1, 0.5f));
-        loot[1].add(new LootEntryItemStack(new ItemStack(Items.stone_pickaxe), 1, 3, 0.3f));
-        loot[1].add(new LootEntryItemStack(new ItemStack(Items.chainmail_helmet), 1, 1, 0.1f));
-
-        minLootCount[2] = 2;
-        maxLootCount[2] = 6;
-        allowDuplicateDrops[2] = true;
-        loot[2].add(new LootEntryItemStack(new ItemStack(Blocks.dirt), 5, 100, 1));
-        loot[2].add(new LootEntryItemStack(new ItemStack(Items.leather_boots), 1, 1, 0.1f));
-        loot[2].add(new LootEntryItemStack(new ItemStack(Blocks.bookshelf), 5, 10, 0.5f));
-        loot[2].add(new LootEntryItemStack(new ItemStack(Items.iron_axe), 1, 2, 0.3f));
-        loot[2].add(new LootEntryItemStack(new ItemStack(Items.iron_ingot), 3, 10, 0.1f));
-
-        minLootCount[3] = 3;
-        maxLootCount[3] = 7;
-        allowDuplicateDrops[3] = true;
+        final LootTable[] defaultTables = new LootTable[tiers];
+
+        List<ILootEntry> loot = new ArrayList();
+        loot.add(new LootEntryItemStack(new ItemStack(Items.stick), 5, 100, 1));
+        loot.add(new LootEntryItemStack(new ItemStack(Items.leather_boots), 1, 1, 0.1f));
+        loot.add(new LootEntryItemStack(new ItemStack(Items.carrot), 5, 10, 0.5f));
+        loot.add(new LootEntryItemStack(new ItemStack(Items.stone_axe), 1, 2, 0.3f));
+        loot.add(new LootEntryItemStack(new ItemStack(Items.cooked_beef), 3, 10, 0.1f));
+        defaultTables[0] = new LootTable(0, 1, 3, DEFAULT_COMMAND + 0, true, loot);
+
+        loot = new ArrayList();
+        loot.add(new LootEntryItemStack(new ItemStack(Blocks.stone), 5, 100, 1));
+        loot.add(new LootEntryItemStack(new ItemStack(Items.leather_chestplate), 1, 1, 0.1f));
+        loot.add(new LootEntryItemStack(new ItemStack(Items.flint_and_steel), 1, 1, 0.5f));
+        loot.add(new LootEntryItemStack(new ItemStack(Items.stone_pickaxe), 1, 3, 0.3f));
+        loot.add(new LootEntryItemStack(new ItemStack(Items.chainmail_helmet), 1, 1, 0.1f));
+        defaultTables[1] = new LootTable(1, 1, 5, DEFAULT_COMMAND + 1, true, loot);
+
+        loot = new ArrayList();
+        loot.add(new LootEntryItemStack(new ItemStack(Blocks.dirt), 5, 100, 1));
+        loot.add(new LootEntryItemStack(new ItemStack(Items.leather_boots), 1, 1, 0.1f));
+        loot.add(new LootEntryItemStack(new ItemStack(Blocks.bookshelf), 5, 10, 0.5f));
+        loot.add(new LootEntryItemStack(new ItemStack(Items.iron_axe), 1, 2, 0.3f));
+        loot.add(new LootEntryItemStack(new ItemStack(Items.iron_ingot), 3, 10, 0.1f));
+        defaultTables[2] = new LootTable(2, 2, 6, DEFAULT_COMMAND + 2, true, loot);
+
         Enchantment[] aenchantment = Enchantment.enchantmentsList;
         ArrayList<ItemStack> books = new ArrayList();
         for (Enchantment enchantment : aenchantment)
@@ -455,22 +1154,39 @@ public class LootHandler
             }
         }
 
-        loot[3] = books.stream().map(b -> new LootEntryItemStack(b, 1, 3, 0.1f)).collect(Collectors.toList());
+        loot = books.stream().map(b -> new LootEntryItemStack(b, 1, 3, 0.1f)).collect(Collectors.toList());
+        defaultTables[3] = new LootTable(3, 3, 7, DEFAULT_COMMAND + 3, true, loot);
 
-        minLootCount[4] = 4;
-        maxLootCount[4] = 10;
-        allowDuplicateDrops[4] = true;
-        loot[4].add(new LootEntryItemStack(new ItemStack(Items.flint), 5, 100, 1));
-        loot[4].add(new LootEntryItemStack(new ItemStack(Items.diamond_axe), 1, 1, 0.1f));
-        loot[4].add(new LootEntryItemStack(new ItemStack(Items.blaze_rod), 5, 10, 0.5f));
-        loot[4].add(new LootEntryItemStack(new ItemStack(Items.diamond_boots), 1, 2, 0.3f));
-        loot[4].add(new LootEntryItemStack(new ItemStack(Items.diamond_hoe), 1, 2, 0.1f));
-        loot[4].add(new LootEntryItemStack(new ItemStack(Items.diamond_horse_armor), 1, 1, 0.1f));
-        loot[4].add(new LootEntryItemStack(new ItemStack(Items.diamond_pickaxe), 1, 1, 0.1f));
-        loot[4].add(new LootEntryItemStack(new ItemStack(Items.diamond_shovel), 1, 2, 0.5f));
-        loot[4].add(new LootEntryItemStack(new ItemStack(Items.diamond_sword), 1, 2, 0.3f));
-        loot[4].add(new LootEntryItemStack(new ItemStack(Items.diamond), 3, 10, 0.8f));
+        loot = new ArrayList();
+        loot.add(new LootEntryItemStack(new ItemStack(Items.flint), 5, 100, 1));
+        loot.add(new LootEntryItemStack(new ItemStack(Items.diamond_axe), 1, 1, 0.1f));
+        loot.add(new LootEntryItemStack(new ItemStack(Items.blaze_rod), 5, 10, 0.5f));
+        loot.add(new LootEntryItemStack(new ItemStack(Items.diamond_boots), 1, 2, 0.3f));
+        loot.add(new LootEntryItemStack(new ItemStack(Items.diamond_hoe), 1, 2, 0.1f));
+        loot.add(new LootEntryItemStack(new ItemStack(Items.diamond_horse_armor), 1, 1, 0.1f));
+        loot.add(new LootEntryItemStack(new ItemStack(Items.diamond_pickaxe), 1, 1, 0.1f));
+        loot.add(new LootEntryItemStack(new ItemStack(Items.diamond_shovel), 1, 2, 0.5f));
+        loot.add(new LootEntryItemStack(new ItemStack(Items.diamond_sword), 1, 2, 0.3f));
+        loot.add(new LootEntryItemStack(new ItemStack(Items.diamond), 3, 10, 0.8f));
+        defaultTables[4] = new LootTable(4, 4, 10, DEFAULT_COMMAND + 4, true, loot);
+
+        //Fill in any tiers past the defaults
+        for (int tier = 0; tier < tiers; tier++)
+        {
+            if (defaultTables[tier] == null)
+            {
+                defaultTables[tier] = LootTable.empty(tier);
+            }
+        }
+
+        tables = defaultTables;
 
         saveLootData();
     }
+
+    /** Counts collected while loading a table, used for the load report */
+    protected static class LootTableStats
+    {
+        public int failures;
+    }
 }
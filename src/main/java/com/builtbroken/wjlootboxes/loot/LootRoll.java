@@ -0,0 +1,101 @@
+package com.builtbroken.wjlootboxes.loot;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+
+import java.util.Arrays;
+
+/**
+ * Loot that was rolled ahead of time, such as when a box is placed by the spawner.
+ * Item stacks are stored already merged so opening the box is a plain copy-out.
+ * Entries that can't be stored as items (commands) or that can't be rolled off the
+ * main thread (ore dictionary) are stored by their index in the loot table and
+ * given when the box is opened.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class LootRoll
+{
+    public static final String NBT_TIER = "tier";
+    public static final String NBT_TABLE_HASH = "tableHash";
+    public static final String NBT_ITEMS = "items";
+    public static final String NBT_ITEM_SIZE = "size";
+    public static final String NBT_ENTRIES = "entries";
+
+    /** Tier of the loot table the roll was made from */
+    public final int tier;
+    /** Hash of the loot table at the time of the roll, used to detect table changes */
+    public final int tableHash;
+
+    /** Merged item stacks rolled */
+    public final LootCollector collector = new LootCollector();
+
+    /** Index of entries in the loot table to trigger when given */
+    private int[] entries = new int[0];
+
+    public LootRoll(int tier, int tableHash)
+    {
+        this.tier = tier;
+        this.tableHash = tableHash;
+    }
+
+    public void addEntry(int index)
+    {
+        if (index >= 0)
+        {
+            entries = Arrays.copyOf(entries, entries.length + 1);
+            entries[entries.length - 1] = index;
+        }
+    }
+
+    public int[] getEntries()
+    {
+        return entries;
+    }
+
+    public NBTTagCompound writeToNBT(NBTTagCompound nbt)
+    {
+        nbt.setInteger(NBT_TIER, tier);
+        nbt.setInteger(NBT_TABLE_HASH, tableHash);
+
+        NBTTagList items = new NBTTagList();
+        for (ItemStack stack : collector.stacks)
+        {
+            NBTTagCompound itemTag = stack.writeToNBT(new NBTTagCompound());
+            //Vanilla stores count as a byte, merged stacks can go over that
+            itemTag.setInteger(NBT_ITEM_SIZE, stack.stackSize);
+            items.appendTag(itemTag);
+        }
+        nbt.setTag(NBT_ITEMS, items);
+
+        if (entries.length > 0)
+        {
+            nbt.setIntArray(NBT_ENTRIES, entries);
+        }
+        return nbt;
+    }
+
+    public static LootRoll readFromNBT(NBTTagCompound nbt)
+    {
+        LootRoll roll = new LootRoll(nbt.getInteger(NBT_TIER), nbt.getInteger(NBT_TABLE_HASH));
+
+        NBTTagList items = nbt.getTagList(NBT_ITEMS, 10);
+        for (int i = 0; i < items.tagCount(); i++)
+        {
+            NBTTagCompound itemTag = items.getCompoundTagAt(i);
+            ItemStack stack = ItemStack.loadItemStackFromNBT(itemTag);
+            if (stack != null)
+            {
+                stack.stackSize = itemTag.getInteger(NBT_ITEM_SIZE);
+                roll.collector.add(stack);
+            }
+        }
+
+        if (nbt.hasKey(NBT_ENTRIES))
+        {
+            roll.entries = nbt.getIntArray(NBT_ENTRIES);
+        }
+        return roll;
+    }
+}
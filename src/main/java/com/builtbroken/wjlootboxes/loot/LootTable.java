@@ -0,0 +1,395 @@
+package com.builtbroken.wjlootboxes.loot;
+
+import com.builtbroken.wjlootboxes.WJLootBoxes;
+import com.builtbroken.wjlootboxes.core.loot.LootSampler;
+import com.builtbroken.wjlootboxes.core.loot.LootSource;
+import com.builtbroken.wjlootboxes.loot.entry.ILootEntry;
+import com.builtbroken.wjlootboxes.loot.entry.LootEntry;
+import com.builtbroken.wjlootboxes.loot.entry.stack.LootEntryItemStack;
+import com.google.gson.JsonElement;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Loot table for a single tier of box. Tables are never changed once
+ * created, loading new data creates a new table which replaces the old one.
+ * This allows rolls in progress to finish on the table they started with.
+ * <p>
+ * Item stack entries, which make up almost all of a large table, are stored as
+ * columns of primitive values rather than as entry objects. Stacks are only created
+ * when an entry is rolled. Other entries (ore, give, command) are kept as objects.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class LootTable implements LootSource
+{
+    /** Tier of box the table is used for */
+    public final int tier;
+    /** Min number of loot entries to drop */
+    public final int minLootCount;
+    /** Max number of loot entries to drop */
+    public final int maxLootCount;
+    /** Command to run when a box is opened */
+    public final String command;
+    /** Can the same entry be dropped more than once per box */
+    public final boolean allowDuplicateDrops;
+    /** Hash of the table content, used to detect changes for pre-rolled loot */
+    public final int hash;
+
+    //Entry columns, indexed by entry
+    /** Chance of the entry dropping once picked */
+    final float[] chance;
+    /** Min stack size to drop */
+    final int[] minCount;
+    /** Max stack size to drop */
+    final int[] maxCount;
+    /** Item registry id, -1 if the entry is stored in {@link #objects} */
+    final int[] itemId;
+    /** Item damage value */
+    final short[] meta;
+    /** Index in {@link #nbtTemplates}, -1 for no NBT */
+    final int[] nbtIndex;
+    /** NBT used by entries, shared through {@link NBTTemplatePool}. Never given out without a copy. */
+    final NBTTagCompound[] nbtTemplates;
+    /** Entries that are not plain item stacks, null for item stack entries */
+    final ILootEntry[] objects;
+
+    public LootTable(int tier, int minLootCount, int maxLootCount, String command, boolean allowDuplicateDrops, List<ILootEntry> entries)
+    {
+        this(tier, minLootCount, maxLootCount, command, allowDuplicateDrops, entries, computeHash(minLootCount, maxLootCount, allowDuplicateDrops, entries));
+    }
+
+    /**
+     * Creates a table with a hash that was already computed
+     */
+    public LootTable(int tier, int minLootCount, int maxLootCount, String command, boolean allowDuplicateDrops, List<ILootEntry> entries, int hash)
+    {
+        this.tier = tier;
+        this.minLootCount = minLootCount;
+        this.maxLootCount = maxLootCount;
+        this.command = command;
+        this.allowDuplicateDrops = allowDuplicateDrops;
+        this.hash = hash;
+
+        final int size = entries.size();
+        this.chance = new float[size];
+        this.minCount = new int[size];
+        this.maxCount = new int[size];
+        this.itemId = new int[size];
+        this.meta = new short[size];
+        this.nbtIndex = new int[size];
+        this.objects = new ILootEntry[size];
+
+        //Split entries into columns
+        final HashMap<NBTTagCompound, Integer> nbtToIndex = new HashMap();
+        final List<NBTTagCompound> templates = new ArrayList();
+        for (int i = 0; i < size; i++)
+        {
+            final ILootEntry entry = entries.get(i);
+            itemId[i] = -1;
+            nbtIndex[i] = -1;
+
+            if (entry instanceof LootEntry)
+            {
+                chance[i] = ((LootEntry) entry).chanceToDrop;
+                minCount[i] = ((LootEntry) entry).minCount;
+                maxCount[i] = ((LootEntry) entry).maxCount;
+            }
+
+            if (entry instanceof LootEntryItemStack && ((LootEntryItemStack) entry).stack != null && ((LootEntryItemStack) entry).stack.getItem() != null)
+            {
+                final ItemStack stack = ((LootEntryItemStack) entry).stack;
+                itemId[i] = Item.getIdFromItem(stack.getItem());
+                meta[i] = (short) stack.getItemDamage();
+
+                final NBTTagCompound nbt = NBTTemplatePool.intern(stack.getTagCompound());
+                if (nbt != null)
+                {
+                    Integer index = nbtToIndex.get(nbt);
+                    if (index == null)
+                    {
+                        index = templates.size();
+                        templates.add(nbt);
+                        nbtToIndex.put(nbt, index);
+                    }
+                    nbtIndex[i] = index;
+                }
+            }
+            else
+            {
+                objects[i] = entry;
+            }
+        }
+        this.nbtTemplates = templates.toArray(new NBTTagCompound[templates.size()]);
+    }
+
+    /**
+     * Creates a table from columns that were already built, such as when
+     * loading from {@link LootTableCache}. Arrays are used as is, not copied.
+     */
+    LootTable(int tier, int minLootCount, int maxLootCount, String command, boolean allowDuplicateDrops, int hash,
+              float[] chance, int[] minCount, int[] maxCount, int[] itemId, short[] meta, int[] nbtIndex,
+              NBTTagCompound[] nbtTemplates, ILootEntry[] objects)
+    {
+        this.tier = tier;
+        this.minLootCount = minLootCount;
+        this.maxLootCount = maxLootCount;
+        this.command = command;
+        this.allowDuplicateDrops = allowDuplicateDrops;
+        this.hash = hash;
+        this.chance = chance;
+        this.minCount = minCount;
+        this.maxCount = maxCount;
+        this.itemId = itemId;
+        this.meta = meta;
+        this.nbtIndex = nbtIndex;
+        this.nbtTemplates = nbtTemplates;
+        this.objects = objects;
+    }
+
+    /**
+     * Creates a table with no entries
+     *
+     * @param tier
+     * @return empty table using the default command
+     */
+    public static LootTable empty(int tier)
+    {
+        return new LootTable(tier, 0, 0, LootHandler.DEFAULT_COMMAND + tier, false, Collections.emptyList());
+    }
+
+    /**
+     * Number of entries in the table
+     *
+     * @return size
+     */
+    @Override
+    public int size()
+    {
+        return objects.length;
+    }
+
+    @Override
+    public int getMinLootCount()
+    {
+        return minLootCount;
+    }
+
+    @Override
+    public int getMaxLootCount()
+    {
+        return maxLootCount;
+    }
+
+    @Override
+    public boolean allowDuplicateDrops()
+    {
+        return allowDuplicateDrops;
+    }
+
+    /**
+     * Checks if the entry is a plain item stack, these are
+     * rolled with {@link #rollStack(int, Random)}
+     *
+     * @param index - entry index
+     * @return true if stored as columns
+     */
+    public boolean isItemStack(int index)
+    {
+        return itemId[index] >= 0;
+    }
+
+    public float getChance(int index)
+    {
+        return chance[index];
+    }
+
+    public int getMinCount(int index)
+    {
+        return minCount[index];
+    }
+
+    public int getMaxCount(int index)
+    {
+        return maxCount[index];
+    }
+
+    /**
+     * Gets the item of an item stack entry
+     *
+     * @param index - entry index
+     * @return item, or null if not an item stack entry or the item is missing
+     */
+    public Item getItem(int index)
+    {
+        return isItemStack(index) ? Item.getItemById(itemId[index]) : null;
+    }
+
+    /**
+     * Gets the entry at the index. Item stack entries are rebuilt as
+     * new objects, so this should not be used while rolling loot.
+     *
+     * @param index - entry index
+     * @return entry, can be null if the entry failed to load
+     */
+    public ILootEntry getEntry(int index)
+    {
+        if (isItemStack(index))
+        {
+            return new LootEntryItemStack(createStack(index, 1), minCount[index], maxCount[index], chance[index]);
+        }
+        return objects[index];
+    }
+
+    /**
+     * Rebuilds all entries, used for saving
+     *
+     * @return new list of entries
+     */
+    public List<ILootEntry> getEntries()
+    {
+        final List<ILootEntry> entries = new ArrayList(size());
+        for (int i = 0; i < size(); i++)
+        {
+            entries.add(getEntry(i));
+        }
+        return entries;
+    }
+
+    /**
+     * Rolls if the entry should drop
+     *
+     * @param index  - entry index
+     * @param random
+     * @return true if it should drop
+     */
+    @Override
+    public boolean shouldDrop(int index, Random random)
+    {
+        if (isItemStack(index))
+        {
+            return random.nextFloat() < chance[index];
+        }
+        return objects[index] != null && objects[index].shouldDrop(random);
+    }
+
+    /**
+     * Creates the stack for an item stack entry with a random size
+     *
+     * @param index  - entry index, must be an item stack entry
+     * @param random - random to use, owned by the calling thread
+     * @return new stack, or null if the item no longer exists
+     */
+    public ItemStack rollStack(int index, Random random)
+    {
+        //Same as LootEntryStack#randomizeStackSize
+        final int stackSize = LootSampler.rollCount(minCount[index], maxCount[index], random);
+
+        final ItemStack stack = createStack(index, stackSize);
+        if (stack == null)
+        {
+            WJLootBoxes.LOGGER.error("Failed to create stack for entry " + index + " of " + this + ", item " + itemId[index] + " is missing");
+        }
+        return stack;
+    }
+
+    /**
+     * Creates a new stack for an item stack entry
+     *
+     * @param index     - entry index, must be an item stack entry
+     * @param stackSize - size of the stack
+     * @return new stack, or null if the item no longer exists
+     */
+    protected ItemStack createStack(int index, int stackSize)
+    {
+        final Item item = Item.getItemById(itemId[index]);
+        if (item != null)
+        {
+            final ItemStack stack = new ItemStack(item, stackSize, meta[index]);
+            if (nbtIndex[index] >= 0)
+            {
+                //Template is shared by entries, each stack gets its own copy
+                stack.setTagCompound((NBTTagCompound) nbtTemplates[nbtIndex[index]].copy());
+            }
+            return stack;
+        }
+        return null;
+    }
+
+    /**
+     * Checks if the roll was made from this table
+     *
+     * @param roll
+     * @return true if the roll can be used, false if loot should be rolled again
+     */
+    public boolean matches(LootRoll roll)
+    {
+        return roll.tier == tier && roll.tableHash == hash;
+    }
+
+    /**
+     * Checks if the table is using the default loot command. Custom
+     * commands can do anything, so loot is not pre-rolled for them.
+     *
+     * @return true if default
+     */
+    public boolean isDefaultCommand()
+    {
+        return (LootHandler.DEFAULT_COMMAND + tier).equals(command);
+    }
+
+    /**
+     * Checks the table for data that is loaded fine but is likely a mistake
+     *
+     * @param problems - list to add a message to for each problem found
+     */
+    public void validate(List<String> problems)
+    {
+        if (minLootCount > maxLootCount)
+        {
+            problems.add("Tier " + tier + " has a min loot count of " + minLootCount + " which is more than its max of " + maxLootCount);
+        }
+        if (command == null || command.trim().isEmpty())
+        {
+            problems.add("Tier " + tier + " has no loot command");
+        }
+        for (int i = 0; i < size(); i++)
+        {
+            if (!isItemStack(i) && objects[i] == null)
+            {
+                problems.add("Tier " + tier + " has a missing entry at index " + i);
+            }
+        }
+    }
+
+    /**
+     * Generates a hash of the table content. Uses the saved
+     * form of the entries so it stays the same between restarts.
+     *
+     * @return hash
+     */
+    protected static int computeHash(int minLootCount, int maxLootCount, boolean allowDuplicateDrops, List<ILootEntry> entries)
+    {
+        int hash = 31 * minLootCount + maxLootCount;
+        hash = 31 * hash + (allowDuplicateDrops ? 1 : 0);
+        for (ILootEntry lootEntry : entries)
+        {
+            JsonElement element = LootHandler.saveLootEntry(lootEntry);
+            hash = 31 * hash + (element != null ? element.hashCode() : 0);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "LootTable[T: " + tier + ", " + minLootCount + "-" + maxLootCount + ", " + size() + " entries]@" + hashCode();
+    }
+}
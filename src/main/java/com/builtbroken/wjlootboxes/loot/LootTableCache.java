@@ -0,0 +1,404 @@
+package com.builtbroken.wjlootboxes.loot;
+
+import com.builtbroken.wjlootboxes.WJLootBoxes;
+import com.builtbroken.wjlootboxes.loot.entry.ILootEntry;
+import com.builtbroken.wjlootboxes.loot.entry.LootEntry;
+import com.builtbroken.wjlootboxes.loot.entry.command.LootEntryCommand;
+import com.builtbroken.wjlootboxes.loot.entry.command.LootEntryGive;
+import com.builtbroken.wjlootboxes.loot.entry.stack.LootEntryOre;
+import net.minecraft.item.Item;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Binary cache of compiled loot tables. Stores entries with registry ids already
+ * resolved, NBT already converted, and the table hash already computed. This
+ * avoids parsing the JSON and rebuilding every entry on each start.
+ * <p>
+ * Each cache file is only used if the hash of the source file and the item
+ * registry match the values stored when the cache was written.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class LootTableCache
+{
+    /** Identifies cache files, "WJLC" */
+    public static final int MAGIC = 0x574A4C43;
+    /** Change when the format changes to invalidate old files */
+    public static final int VERSION = 2;
+
+    /** Files larger than this are memory mapped rather than read into the heap */
+    public static final long MAP_THRESHOLD = 1024 * 1024;
+
+    public static final byte TYPE_ITEM = 0;
+    public static final byte TYPE_ORE = 1;
+    public static final byte TYPE_GIVE = 2;
+    public static final byte TYPE_COMMAND = 3;
+
+    /** Folder containing cache files */
+    public final File cacheFolder;
+
+    public LootTableCache(File cacheFolder)
+    {
+        this.cacheFolder = cacheFolder;
+    }
+
+    /**
+     * Reads the table from the cache
+     *
+     * @param tier
+     * @param sourceHash   - hash of the source file
+     * @param registryHash - hash of the item registry
+     * @return table, or null if there is no valid cache for the source
+     */
+    public LootTable read(int tier, byte[] sourceHash, long registryHash)
+    {
+        final File file = getFileForTier(tier);
+        if (file.exists() && file.isFile())
+        {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+            {
+                final long size = channel.size();
+                final ByteBuffer buffer;
+                if (size > MAP_THRESHOLD)
+                {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                }
+                else
+                {
+                    buffer = ByteBuffer.allocate((int) size);
+                    while (buffer.hasRemaining() && channel.read(buffer) >= 0)
+                    {
+                        //Read until full
+                    }
+                    buffer.flip();
+                }
+                return read(tier, buffer, sourceHash, registryHash);
+            }
+            catch (Exception e)
+            {
+                WJLootBoxes.LOGGER.warn("Failed to read loot table cache for tier " + tier + " from " + file + ", falling back to JSON", e);
+            }
+        }
+        return null;
+    }
+
+    protected LootTable read(int tier, ByteBuffer buffer, byte[] sourceHash, long registryHash) throws IOException
+    {
+        //Validate header
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+        {
+            return null;
+        }
+
+        final byte[] cachedSourceHash = new byte[buffer.getInt()];
+        buffer.get(cachedSourceHash);
+        if (!Arrays.equals(sourceHash, cachedSourceHash) || buffer.getLong() != registryHash || buffer.getInt() != tier)
+        {
+            return null;
+        }
+
+        //Table data
+        final int minLoot = buffer.getInt();
+        final int maxLoot = buffer.getInt();
+        final String command = readString(buffer);
+        final boolean allowDuplicates = buffer.get() != 0;
+        final int tableHash = buffer.getInt();
+
+        //Shared NBT
+        final NBTTagCompound[] nbtTemplates = new NBTTagCompound[buffer.getInt()];
+        for (int i = 0; i < nbtTemplates.length; i++)
+        {
+            nbtTemplates[i] = NBTTemplatePool.intern(readNBT(buffer));
+        }
+
+        //Entries, item stacks are read straight into the table columns
+        final int entryCount = buffer.getInt();
+        final float[] chance = new float[entryCount];
+        final int[] minCount = new int[entryCount];
+        final int[] maxCount = new int[entryCount];
+        final int[] itemId = new int[entryCount];
+        final short[] meta = new short[entryCount];
+        final int[] nbtIndex = new int[entryCount];
+        final ILootEntry[] objects = new ILootEntry[entryCount];
+        for (int i = 0; i < entryCount; i++)
+        {
+            itemId[i] = -1;
+            nbtIndex[i] = -1;
+
+            final byte type = buffer.get();
+            if (type == TYPE_ITEM)
+            {
+                itemId[i] = buffer.getInt();
+                meta[i] = buffer.getShort();
+                nbtIndex[i] = buffer.getInt();
+                minCount[i] = buffer.getInt();
+                maxCount[i] = buffer.getInt();
+                chance[i] = buffer.getFloat();
+                if (Item.getItemById(itemId[i]) == null || nbtIndex[i] >= nbtTemplates.length)
+                {
+                    //Registry changed without changing the hash, data can't be trusted
+                    return null;
+                }
+            }
+            else if (type == TYPE_ORE)
+            {
+                final String oreName = readString(buffer);
+                objects[i] = new LootEntryOre(oreName, buffer.getInt(), buffer.getInt(), buffer.getFloat());
+            }
+            else if (type == TYPE_GIVE)
+            {
+                final String item = readString(buffer);
+                final int data = buffer.getInt();
+                final String nbt = buffer.get() != 0 ? readString(buffer) : null;
+                objects[i] = new LootEntryGive(item, data, nbt, buffer.getInt(), buffer.getInt(), buffer.getFloat());
+            }
+            else if (type == TYPE_COMMAND)
+            {
+                final String entryCommand = readString(buffer);
+                objects[i] = new LootEntryCommand(entryCommand, buffer.getFloat());
+            }
+            else
+            {
+                return null;
+            }
+
+            //Columns hold the shared values for object entries as well
+            if (objects[i] instanceof LootEntry)
+            {
+                chance[i] = ((LootEntry) objects[i]).chanceToDrop;
+                minCount[i] = ((LootEntry) objects[i]).minCount;
+                maxCount[i] = ((LootEntry) objects[i]).maxCount;
+            }
+        }
+        return new LootTable(tier, minLoot, maxLoot, command, allowDuplicates, tableHash,
+                chance, minCount, maxCount, itemId, meta, nbtIndex, nbtTemplates, objects);
+    }
+
+    /**
+     * Writes the table to the cache. Tables containing entries the cache
+     * doesn't know how to store are skipped.
+     *
+     * @param table
+     * @param sourceHash   - hash of the source file the table was loaded from
+     * @param registryHash - hash of the item registry
+     */
+    public void write(LootTable table, byte[] sourceHash, long registryHash)
+    {
+        final File file = getFileForTier(table.tier);
+        final File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try
+        {
+            if (!cacheFolder.exists())
+            {
+                cacheFolder.mkdirs();
+            }
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))
+            {
+                if (!write(table, out, sourceHash, registryHash))
+                {
+                    return;
+                }
+            }
+
+            //Replace in one step so a partly written file is never read
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (Exception e)
+        {
+            WJLootBoxes.LOGGER.warn("Failed to write loot table cache for tier " + table.tier + " to " + file, e);
+        }
+        finally
+        {
+            tempFile.delete();
+        }
+    }
+
+    protected boolean write(LootTable table, DataOutputStream out, byte[] sourceHash, long registryHash) throws IOException
+    {
+        //Header
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(sourceHash.length);
+        out.write(sourceHash);
+        out.writeLong(registryHash);
+        out.writeInt(table.tier);
+
+        //Table data
+        out.writeInt(table.minLootCount);
+        out.writeInt(table.maxLootCount);
+        writeString(out, table.command);
+        out.writeBoolean(table.allowDuplicateDrops);
+        out.writeInt(table.hash);
+
+        //Shared NBT
+        out.writeInt(table.nbtTemplates.length);
+        for (NBTTagCompound nbt : table.nbtTemplates)
+        {
+            writeNBT(out, nbt);
+        }
+
+        //Entries
+        out.writeInt(table.size());
+        for (int i = 0; i < table.size(); i++)
+        {
+            final ILootEntry lootEntry = table.objects[i];
+            if (table.isItemStack(i))
+            {
+                out.writeByte(TYPE_ITEM);
+                out.writeInt(table.itemId[i]);
+                out.writeShort(table.meta[i]);
+                out.writeInt(table.nbtIndex[i]);
+                out.writeInt(table.minCount[i]);
+                out.writeInt(table.maxCount[i]);
+                out.writeFloat(table.chance[i]);
+            }
+            else if (lootEntry instanceof LootEntryOre)
+            {
+                final LootEntryOre entry = (LootEntryOre) lootEntry;
+                out.writeByte(TYPE_ORE);
+                writeString(out, entry.oreName);
+                out.writeInt(entry.minCount);
+                out.writeInt(entry.maxCount);
+                out.writeFloat(entry.chanceToDrop);
+            }
+            else if (lootEntry instanceof LootEntryGive)
+            {
+                final LootEntryGive entry = (LootEntryGive) lootEntry;
+                out.writeByte(TYPE_GIVE);
+                writeString(out, entry.item);
+                out.writeInt(entry.data);
+                out.writeBoolean(entry.nbt != null);
+                if (entry.nbt != null)
+                {
+                    writeString(out, entry.nbt);
+                }
+                out.writeInt(entry.minCount);
+                out.writeInt(entry.maxCount);
+                out.writeFloat(entry.chanceToDrop);
+            }
+            else if (lootEntry instanceof LootEntryCommand)
+            {
+                final LootEntryCommand entry = (LootEntryCommand) lootEntry;
+                out.writeByte(TYPE_COMMAND);
+                writeString(out, entry.command);
+                out.writeFloat(entry.chanceToDrop);
+            }
+            else
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected static void writeNBT(DataOutputStream out, NBTTagCompound nbt) throws IOException
+    {
+        if (nbt == null)
+        {
+            out.writeInt(-1);
+        }
+        else
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            CompressedStreamTools.write(nbt, new DataOutputStream(bytes));
+            out.writeInt(bytes.size());
+            bytes.writeTo(out);
+        }
+    }
+
+    protected static NBTTagCompound readNBT(ByteBuffer buffer) throws IOException
+    {
+        final int length = buffer.getInt();
+        if (length < 0)
+        {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return CompressedStreamTools.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    protected static void writeString(DataOutputStream out, String string) throws IOException
+    {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    protected static String readString(ByteBuffer buffer)
+    {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public File getFileForTier(int tier)
+    {
+        return new File(cacheFolder, "loot_table_tier_" + tier + ".bin");
+    }
+
+    /**
+     * Generates a hash of the file's content
+     *
+     * @param file
+     * @return SHA-1 of the file
+     * @throws IOException
+     */
+    public static byte[] hashFile(File file) throws IOException
+    {
+        try
+        {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            try (InputStream stream = new BufferedInputStream(new FileInputStream(file)))
+            {
+                final byte[] buffer = new byte[8192];
+                int read;
+                while ((read = stream.read(buffer)) > 0)
+                {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            return digest.digest();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IOException("Failed to get SHA-1 digest", e);
+        }
+    }
+
+    /**
+     * Generates a hash of the item registry's names and ids. Any change to
+     * the registry, such as a mod being added or removed, changes the hash.
+     *
+     * @return hash
+     */
+    public static long hashItemRegistry()
+    {
+        long hash = 0;
+        for (Object key : Item.itemRegistry.getKeys())
+        {
+            if (key instanceof String)
+            {
+                final Object item = Item.itemRegistry.getObject((String) key);
+                final long entryHash = ((long) key.hashCode() << 32) ^ Item.itemRegistry.getIDForObject(item);
+
+                //Order of keys isn't stable, so combine without depending on order
+                hash += entryHash * 0x9E3779B97F4A7C15L ^ (entryHash >>> 29);
+            }
+        }
+        return hash;
+    }
+}
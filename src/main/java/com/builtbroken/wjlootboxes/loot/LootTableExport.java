@@ -0,0 +1,143 @@
+package com.builtbroken.wjlootboxes.loot;
+
+import com.builtbroken.wjlootboxes.loot.entry.ILootEntry;
+import com.builtbroken.wjlootboxes.loot.entry.stack.LootEntryItemStack;
+import net.minecraft.inventory.IInventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Adds the contents of inventories to loot tables. Stacks are merged by item,
+ * meta and NBT, and stacks already in the table are skipped, so the same
+ * chest can be exported more than once without adding entries twice.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class LootTableExport
+{
+    /** Chance given to exported entries */
+    public static final float DEFAULT_CHANCE = 1;
+
+    /**
+     * Copies the stacks out of the inventory, must be called on the main thread
+     *
+     * @param inventory - inventory to read
+     * @return copy of each stack in the inventory
+     */
+    public static List<ItemStack> copyStacks(IInventory inventory)
+    {
+        final List<ItemStack> stacks = new ArrayList();
+        for (int slot = 0; slot < inventory.getSizeInventory(); slot++)
+        {
+            final ItemStack stack = inventory.getStackInSlot(slot);
+            if (stack != null && stack.getItem() != null && stack.stackSize > 0)
+            {
+                stacks.add(stack.copy());
+            }
+        }
+        return stacks;
+    }
+
+    /**
+     * Creates a table with the stacks added to the end of the table
+     *
+     * @param table    - table to add to, not changed
+     * @param stacks   - stacks to add, each unique stack becomes one entry
+     * @param messages - list to add a summary to
+     * @return new table, or the same table if there was nothing new to add
+     */
+    public static LootTable append(LootTable table, List<ItemStack> stacks, List<String> messages)
+    {
+        //Stacks already in the table
+        final HashSet<StackKey> existing = new HashSet();
+        for (int i = 0; i < table.size(); i++)
+        {
+            if (table.isItemStack(i))
+            {
+                final NBTTagCompound nbt = table.nbtIndex[i] >= 0 ? table.nbtTemplates[table.nbtIndex[i]] : null;
+                existing.add(new StackKey(table.itemId[i], table.meta[i], nbt));
+            }
+        }
+
+        //Merge stacks, stack sizes seen set the min and max count
+        final LinkedHashMap<StackKey, int[]> counts = new LinkedHashMap();
+        final LinkedHashMap<StackKey, ItemStack> templates = new LinkedHashMap();
+        int skipped = 0;
+        for (ItemStack stack : stacks)
+        {
+            final StackKey key = new StackKey(Item.getIdFromItem(stack.getItem()), (short) stack.getItemDamage(), stack.getTagCompound());
+            if (existing.contains(key))
+            {
+                skipped++;
+                continue;
+            }
+
+            final int[] count = counts.get(key);
+            if (count == null)
+            {
+                counts.put(key, new int[]{stack.stackSize, stack.stackSize});
+                templates.put(key, stack);
+            }
+            else
+            {
+                count[0] = Math.min(count[0], stack.stackSize);
+                count[1] = Math.max(count[1], stack.stackSize);
+            }
+        }
+
+        messages.add("Read " + stacks.size() + " stacks, " + counts.size() + " new entries, " + skipped + " already in tier " + table.tier);
+        if (counts.isEmpty())
+        {
+            return table;
+        }
+
+        final List<ILootEntry> entries = table.getEntries();
+        for (StackKey key : counts.keySet())
+        {
+            final int[] count = counts.get(key);
+            final ItemStack stack = templates.get(key).copy();
+            stack.stackSize = 1;
+            entries.add(new LootEntryItemStack(stack, count[0], count[1], DEFAULT_CHANCE));
+        }
+        return new LootTable(table.tier, table.minLootCount, table.maxLootCount, table.command, table.allowDuplicateDrops, entries);
+    }
+
+    /** Item, meta and NBT of a stack, NBT is compared by content */
+    protected static final class StackKey
+    {
+        final int itemId;
+        final short meta;
+        final NBTTagCompound nbt;
+
+        StackKey(int itemId, short meta, NBTTagCompound nbt)
+        {
+            this.itemId = itemId;
+            this.meta = meta;
+            //Empty tags save the same as no tag
+            this.nbt = nbt != null && !nbt.hasNoTags() ? nbt : null;
+        }
+
+        @Override
+        public boolean equals(Object object)
+        {
+            if (object instanceof StackKey)
+            {
+                final StackKey other = (StackKey) object;
+                return itemId == other.itemId && meta == other.meta && (nbt == null ? other.nbt == null : nbt.equals(other.nbt));
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (31 * itemId + meta) * 31 + (nbt != null ? nbt.hashCode() : 0);
+        }
+    }
+}
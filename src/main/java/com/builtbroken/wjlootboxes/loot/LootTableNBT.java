@@ -0,0 +1,329 @@
+package com.builtbroken.wjlootboxes.loot;
+
+import com.builtbroken.wjlootboxes.WJLootBoxes;
+import com.builtbroken.wjlootboxes.loot.entry.ILootEntry;
+import com.builtbroken.wjlootboxes.loot.entry.LootEntry;
+import com.builtbroken.wjlootboxes.loot.entry.command.LootEntryCommand;
+import com.builtbroken.wjlootboxes.loot.entry.command.LootEntryGive;
+import com.builtbroken.wjlootboxes.loot.entry.stack.LootEntryOre;
+import net.minecraft.item.Item;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraftforge.common.util.Constants;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import static com.builtbroken.wjlootboxes.loot.LootHandler.*;
+
+/**
+ * Loot table stored as compressed NBT, an alternative to the JSON files for tables
+ * carrying a lot of NBT. Shared item NBT is stored once and referenced by index,
+ * and item stacks are stored by registry name so files work between worlds.
+ * <p>
+ * Format, root compound:
+ * <pre>
+ *     format         - int, {@link #FORMAT}
+ *     loot_min_count - int
+ *     loot_max_count - int
+ *     loot_command   - string
+ *     table_hash     - int, hash of the table so pre-rolled loot stays valid
+ *     nbt_templates  - list of compounds, NBT shared by item entries
+ *     loot_entries   - list of compounds, each with a type byte and the fields for that type
+ * </pre>
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class LootTableNBT
+{
+    /** Change when the format changes in a way old readers can't handle */
+    public static final int FORMAT = 1;
+
+    /** Size of the buffer used when reading files */
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    public static final String NBT_FORMAT = "format";
+    public static final String NBT_TABLE_HASH = "table_hash";
+    public static final String NBT_TEMPLATES = "nbt_templates";
+    public static final String NBT_TYPE = "type";
+    public static final String NBT_TEMPLATE_INDEX = "nbt_index";
+    public static final String NBT_ORE = "ore";
+    public static final String NBT_GIVE_NBT = "nbt";
+    public static final String NBT_COMMAND = "command";
+
+    /**
+     * Reads the table from a compressed NBT file
+     *
+     * @param tier  - tier being loaded
+     * @param file  - file to read
+     * @param stats - stats to update with entries that failed to load
+     * @return table
+     * @throws IOException if the file can't be read or is not a valid table
+     */
+    public static LootTable read(int tier, File file, LootTableStats stats) throws IOException
+    {
+        final NBTTagCompound nbt;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+             InputStream stream = new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE))
+        {
+            nbt = CompressedStreamTools.readCompressed(stream);
+        }
+        return read(tier, nbt, stats);
+    }
+
+    /**
+     * Reads the table from NBT
+     *
+     * @param tier  - tier being loaded
+     * @param nbt   - root tag of the table
+     * @param stats - stats to update with entries that failed to load
+     * @return table
+     * @throws IOException if the tag is not a valid table
+     */
+    public static LootTable read(int tier, NBTTagCompound nbt, LootTableStats stats) throws IOException
+    {
+        if (nbt.getInteger(NBT_FORMAT) != FORMAT)
+        {
+            throw new IOException("Tier " + tier + " loot table uses format " + nbt.getInteger(NBT_FORMAT) + ", only format " + FORMAT + " is supported");
+        }
+        requireKey(nbt.hasKey(JSON_MIN_LOOT), tier, JSON_MIN_LOOT, "This is required to indicate the min number of loot entries to drop.");
+        requireKey(nbt.hasKey(JSON_MAX_LOOT), tier, JSON_MAX_LOOT, "This is required to indicate the max number of loot entries to drop.");
+        requireKey(nbt.hasKey(JSON_LOOT_ARRAY), tier, JSON_LOOT_ARRAY, "This is required to generate items to drop");
+
+        //Same limits as the JSON loader
+        final int minLoot = Math.max(1, nbt.getInteger(JSON_MIN_LOOT));
+        final int maxLoot = Math.max(1, nbt.getInteger(JSON_MAX_LOOT));
+        final String command = nbt.hasKey(JSON_COMMAND) ? nbt.getString(JSON_COMMAND) : DEFAULT_COMMAND + tier;
+
+        //Shared NBT
+        final NBTTagList templateList = nbt.getTagList(NBT_TEMPLATES, Constants.NBT.TAG_COMPOUND);
+        final NBTTagCompound[] nbtTemplates = new NBTTagCompound[templateList.tagCount()];
+        for (int i = 0; i < nbtTemplates.length; i++)
+        {
+            nbtTemplates[i] = NBTTemplatePool.intern(templateList.getCompoundTagAt(i));
+        }
+
+        //Entries, item stacks are read straight into the table columns
+        final NBTTagList entryList = nbt.getTagList(JSON_LOOT_ARRAY, Constants.NBT.TAG_COMPOUND);
+        final int entryCount = entryList.tagCount();
+        final float[] chance = new float[entryCount];
+        final int[] minCount = new int[entryCount];
+        final int[] maxCount = new int[entryCount];
+        final int[] itemId = new int[entryCount];
+        final short[] meta = new short[entryCount];
+        final int[] nbtIndex = new int[entryCount];
+        final ILootEntry[] objects = new ILootEntry[entryCount];
+
+        int size = 0;
+        for (int i = 0; i < entryCount; i++)
+        {
+            final NBTTagCompound entry = entryList.getCompoundTagAt(i);
+            itemId[size] = -1;
+            nbtIndex[size] = -1;
+
+            final byte type = entry.getByte(NBT_TYPE);
+            if (type == LootTableCache.TYPE_ITEM)
+            {
+                final String itemName = entry.getString(JSON_ITEM_ID);
+                final Object item = Item.itemRegistry.getObject(itemName);
+                final int index = entry.hasKey(NBT_TEMPLATE_INDEX) ? entry.getInteger(NBT_TEMPLATE_INDEX) : -1;
+                if (!(item instanceof Item))
+                {
+                    WJLootBoxes.LOGGER.warn("Skipping loot entry " + i + " for tier " + tier + " loot table data. Failed to locate item for '" + itemName + "'");
+                    stats.failures++;
+                    continue;
+                }
+                if (index >= nbtTemplates.length)
+                {
+                    WJLootBoxes.LOGGER.warn("Skipping loot entry " + i + " for tier " + tier + " loot table data. NBT index " + index + " does not exist");
+                    stats.failures++;
+                    continue;
+                }
+
+                itemId[size] = Item.getIdFromItem((Item) item);
+                meta[size] = entry.getShort(JSON_ITEM_DATA);
+                nbtIndex[size] = index;
+                minCount[size] = entry.getInteger(JSON_ITEM_MIN_COUNT);
+                maxCount[size] = entry.getInteger(JSON_ITEM_MAX_COUNT);
+                chance[size] = entry.getFloat(JSON_ITEM_CHANCE);
+            }
+            else if (type == LootTableCache.TYPE_ORE)
+            {
+                objects[size] = new LootEntryOre(entry.getString(NBT_ORE),
+                        entry.getInteger(JSON_ITEM_MIN_COUNT), entry.getInteger(JSON_ITEM_MAX_COUNT), entry.getFloat(JSON_ITEM_CHANCE));
+            }
+            else if (type == LootTableCache.TYPE_GIVE)
+            {
+                objects[size] = new LootEntryGive(entry.getString(JSON_ITEM_ID), entry.getInteger(JSON_ITEM_DATA),
+                        entry.hasKey(NBT_GIVE_NBT) ? entry.getString(NBT_GIVE_NBT) : null,
+                        entry.getInteger(JSON_ITEM_MIN_COUNT), entry.getInteger(JSON_ITEM_MAX_COUNT), entry.getFloat(JSON_ITEM_CHANCE));
+            }
+            else if (type == LootTableCache.TYPE_COMMAND)
+            {
+                objects[size] = new LootEntryCommand(entry.getString(NBT_COMMAND), entry.getFloat(JSON_ITEM_CHANCE));
+            }
+            else
+            {
+                WJLootBoxes.LOGGER.warn("Skipping loot entry " + i + " for tier " + tier + " loot table data. Unknown entry type " + type);
+                stats.failures++;
+                continue;
+            }
+
+            //Columns hold the shared values for object entries as well
+            if (objects[size] instanceof LootEntry)
+            {
+                chance[size] = ((LootEntry) objects[size]).chanceToDrop;
+                minCount[size] = ((LootEntry) objects[size]).minCount;
+                maxCount[size] = ((LootEntry) objects[size]).maxCount;
+            }
+            size++;
+        }
+
+        final LootTable table = new LootTable(tier, minLoot, maxLoot, command, false, nbt.getInteger(NBT_TABLE_HASH),
+                trim(chance, size), trim(minCount, size), trim(maxCount, size), trim(itemId, size), trim(meta, size),
+                trim(nbtIndex, size), nbtTemplates, trim(objects, size));
+
+        //Stored hash was for every entry, recompute so pre-rolled loot for the full table isn't used
+        if (size != entryCount || !nbt.hasKey(NBT_TABLE_HASH))
+        {
+            return new LootTable(tier, minLoot, maxLoot, command, false, table.getEntries());
+        }
+        return table;
+    }
+
+    /**
+     * Writes the table as compressed NBT, same format as
+     * {@link CompressedStreamTools#writeCompressed(NBTTagCompound, OutputStream)}
+     * but leaves the stream open.
+     *
+     * @param table  - table to write
+     * @param stream - stream to write to
+     * @throws IOException
+     */
+    public static void write(LootTable table, OutputStream stream) throws IOException
+    {
+        final GZIPOutputStream gzip = new GZIPOutputStream(stream, BUFFER_SIZE);
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzip, BUFFER_SIZE));
+        CompressedStreamTools.write(write(table), out);
+        out.flush();
+        gzip.finish();
+    }
+
+    /**
+     * Writes the table to NBT
+     *
+     * @param table - table to write
+     * @return root tag of the table
+     * @throws IOException if the table contains an entry that can't be stored
+     */
+    public static NBTTagCompound write(LootTable table) throws IOException
+    {
+        final NBTTagCompound nbt = new NBTTagCompound();
+        nbt.setInteger(NBT_FORMAT, FORMAT);
+        nbt.setInteger(JSON_MIN_LOOT, table.minLootCount);
+        nbt.setInteger(JSON_MAX_LOOT, table.maxLootCount);
+        nbt.setString(JSON_COMMAND, table.command);
+        nbt.setInteger(NBT_TABLE_HASH, table.hash);
+
+        //Shared NBT, templates are never changed so the table's copy is used as is
+        final NBTTagList templateList = new NBTTagList();
+        for (NBTTagCompound template : table.nbtTemplates)
+        {
+            templateList.appendTag(template);
+        }
+        nbt.setTag(NBT_TEMPLATES, templateList);
+
+        //Entries
+        final NBTTagList entryList = new NBTTagList();
+        for (int i = 0; i < table.size(); i++)
+        {
+            final NBTTagCompound entry = new NBTTagCompound();
+            final ILootEntry lootEntry = table.objects[i];
+            if (table.isItemStack(i))
+            {
+                final Item item = table.getItem(i);
+                if (item == null)
+                {
+                    //Item was removed, nothing to save the entry as
+                    continue;
+                }
+                entry.setByte(NBT_TYPE, LootTableCache.TYPE_ITEM);
+                entry.setString(JSON_ITEM_ID, Item.itemRegistry.getNameForObject(item));
+                entry.setShort(JSON_ITEM_DATA, table.meta[i]);
+                if (table.nbtIndex[i] >= 0)
+                {
+                    entry.setInteger(NBT_TEMPLATE_INDEX, table.nbtIndex[i]);
+                }
+                entry.setInteger(JSON_ITEM_MIN_COUNT, table.minCount[i]);
+                entry.setInteger(JSON_ITEM_MAX_COUNT, table.maxCount[i]);
+                entry.setFloat(JSON_ITEM_CHANCE, table.chance[i]);
+            }
+            else if (lootEntry instanceof LootEntryOre)
+            {
+                final LootEntryOre oreEntry = (LootEntryOre) lootEntry;
+                entry.setByte(NBT_TYPE, LootTableCache.TYPE_ORE);
+                entry.setString(NBT_ORE, oreEntry.oreName);
+                entry.setInteger(JSON_ITEM_MIN_COUNT, oreEntry.minCount);
+                entry.setInteger(JSON_ITEM_MAX_COUNT, oreEntry.maxCount);
+                entry.setFloat(JSON_ITEM_CHANCE, oreEntry.chanceToDrop);
+            }
+            else if (lootEntry instanceof LootEntryGive)
+            {
+                final LootEntryGive giveEntry = (LootEntryGive) lootEntry;
+                entry.setByte(NBT_TYPE, LootTableCache.TYPE_GIVE);
+                entry.setString(JSON_ITEM_ID, giveEntry.item);
+                entry.setInteger(JSON_ITEM_DATA, giveEntry.data);
+                if (giveEntry.nbt != null)
+                {
+                    entry.setString(NBT_GIVE_NBT, giveEntry.nbt);
+                }
+                entry.setInteger(JSON_ITEM_MIN_COUNT, giveEntry.minCount);
+                entry.setInteger(JSON_ITEM_MAX_COUNT, giveEntry.maxCount);
+                entry.setFloat(JSON_ITEM_CHANCE, giveEntry.chanceToDrop);
+            }
+            else if (lootEntry instanceof LootEntryCommand)
+            {
+                final LootEntryCommand commandEntry = (LootEntryCommand) lootEntry;
+                entry.setByte(NBT_TYPE, LootTableCache.TYPE_COMMAND);
+                entry.setString(NBT_COMMAND, commandEntry.command);
+                entry.setFloat(JSON_ITEM_CHANCE, commandEntry.chanceToDrop);
+            }
+            else if (lootEntry != null)
+            {
+                throw new IOException("Loot entry " + lootEntry + " can't be stored as NBT");
+            }
+            else
+            {
+                continue;
+            }
+            entryList.appendTag(entry);
+        }
+        nbt.setTag(JSON_LOOT_ARRAY, entryList);
+        return nbt;
+    }
+
+    private static float[] trim(float[] array, int size)
+    {
+        return array.length == size ? array : Arrays.copyOf(array, size);
+    }
+
+    private static int[] trim(int[] array, int size)
+    {
+        return array.length == size ? array : Arrays.copyOf(array, size);
+    }
+
+    private static short[] trim(short[] array, int size)
+    {
+        return array.length == size ? array : Arrays.copyOf(array, size);
+    }
+
+    private static ILootEntry[] trim(ILootEntry[] array, int size)
+    {
+        return array.length == size ? array : Arrays.copyOf(array, size);
+    }
+}
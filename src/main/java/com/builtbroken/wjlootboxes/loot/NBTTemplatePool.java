@@ -0,0 +1,120 @@
+package com.builtbroken.wjlootboxes.loot;
+
+import com.google.gson.JsonElement;
+import net.minecraft.nbt.NBTTagCompound;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pool of NBT used by loot entries. Entries with the same NBT, such as enchanted books
+ * or named gear, share one tag instead of each holding their own copy.
+ * <p>
+ * Tags are matched by content, using the structural {@link NBTTagCompound#equals(Object)}
+ * and {@link NBTTagCompound#hashCode()}. Tags returned by the pool are shared and must
+ * never be changed, copy the tag before giving it out on a stack.
+ * <p>
+ * Safe to use from the threads loading loot tables.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public final class NBTTemplatePool
+{
+    /** Pool of the tables in use */
+    private static volatile NBTTemplatePool active = new NBTTemplatePool();
+    /** Pool of the tables being loaded, null if no load is running */
+    private static volatile NBTTemplatePool loading;
+
+    /** Tag content to the shared tag */
+    private final ConcurrentHashMap<NBTTagCompound, NBTTagCompound> templates = new ConcurrentHashMap();
+
+    /** JSON already converted, avoids converting the same JSON again */
+    private final ConcurrentHashMap<JsonElement, NBTTagCompound> converted = new ConcurrentHashMap();
+
+    private NBTTemplatePool()
+    {
+    }
+
+    /**
+     * Pool tags are added to, the loading pool while a load runs
+     */
+    private static NBTTemplatePool current()
+    {
+        final NBTTemplatePool pool = loading;
+        return pool != null ? pool : active;
+    }
+
+    /**
+     * Gets the shared tag with the same content
+     *
+     * @param nbt - tag to look up, should not be changed after this call
+     * @return shared tag, or null if the tag is null
+     */
+    public static NBTTagCompound intern(NBTTagCompound nbt)
+    {
+        if (nbt == null)
+        {
+            return null;
+        }
+        final NBTTagCompound existing = current().templates.putIfAbsent(nbt, nbt);
+        return existing != null ? existing : nbt;
+    }
+
+    /**
+     * Converts the JSON to NBT, see {@link JsonConverterNBT#handle(JsonElement)}
+     *
+     * @param element - JSON for the tag, should not be changed after this call
+     * @return shared tag
+     */
+    public static NBTTagCompound fromJson(JsonElement element)
+    {
+        final NBTTemplatePool pool = current();
+        NBTTagCompound nbt = pool.converted.get(element);
+        if (nbt == null)
+        {
+            nbt = intern(JsonConverterNBT.handle(element));
+            pool.converted.putIfAbsent(element, nbt);
+        }
+        return nbt;
+    }
+
+    /**
+     * Number of unique tags in the pool
+     *
+     * @return size
+     */
+    public static int size()
+    {
+        return current().templates.size();
+    }
+
+    /**
+     * Starts a new pool for loading loot tables, so tags only used by old tables
+     * can be garbage collected once the new tables are in use. The pool in use
+     * is kept until {@link #publishLoad()}.
+     */
+    public static synchronized void beginLoad()
+    {
+        loading = new NBTTemplatePool();
+    }
+
+    /**
+     * Makes the pool of the load the pool in use, called once the loaded tables
+     * replace the old ones
+     */
+    public static synchronized void publishLoad()
+    {
+        if (loading != null)
+        {
+            active = loading;
+            loading = null;
+        }
+    }
+
+    /**
+     * Throws away the pool of the load, called when the loaded tables are not used
+     */
+    public static synchronized void discardLoad()
+    {
+        loading = null;
+    }
+}
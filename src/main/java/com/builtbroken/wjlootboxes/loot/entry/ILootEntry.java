@@ -1,10 +1,12 @@
 package com.builtbroken.wjlootboxes.loot.entry;
 
+import com.builtbroken.wjlootboxes.loot.LootCollector;
 import com.google.gson.JsonElement;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.world.World;
 
 import javax.annotation.Nullable;
+import java.util.Random;
 
 /**
  * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
@@ -23,6 +25,24 @@ public interface ILootEntry
      */
     void givePlayer(@Nullable EntityPlayer player, World world, int x, int y, int z, int tier);
 
+    /**
+     * Called to add the loot to a collector so it can be merged with the rest
+     * of the roll before being given out. Entries that do not produce item
+     * stacks can ignore the collector, by default they are given directly.
+     *
+     * @param player
+     * @param world
+     * @param x
+     * @param y
+     * @param z
+     * @param tier
+     * @param collector - collector for the current roll
+     */
+    default void collectLoot(@Nullable EntityPlayer player, World world, int x, int y, int z, int tier, LootCollector collector)
+    {
+        givePlayer(player, world, x, y, z, tier);
+    }
+
     /**
      * Called to see if the entry should be dropped to the player. Called before
      * {@link #givePlayer(EntityPlayer, World, int, int, int, int)} to generate a random
@@ -37,6 +57,16 @@ public interface ILootEntry
      */
     boolean shouldDrop(@Nullable EntityPlayer player, World world, int x, int y, int z, int tier);
 
+    /**
+     * Called to see if the entry should be dropped when loot is rolled ahead
+     * of time without a player or world. Such as when the spawner thread
+     * pre-rolls loot for a box it is placing.
+     *
+     * @param random - random to use, owned by the calling thread
+     * @return true if the entry should be dropped
+     */
+    boolean shouldDrop(Random random);
+
     /**
      * Converts the loot entry to JSON for saving
      *
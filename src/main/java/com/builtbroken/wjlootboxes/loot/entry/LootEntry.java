@@ -8,6 +8,7 @@ import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.world.World;
 
 import javax.annotation.Nullable;
+import java.util.Random;
 
 /**
  * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
@@ -33,7 +34,13 @@ public abstract class LootEntry implements ILootEntry
     @Override
     public boolean shouldDrop(@Nullable EntityPlayer player, World world, int x, int y, int z, int tier)
     {
-        return world.rand.nextFloat() < chanceToDrop;
+        return shouldDrop(world.rand);
+    }
+
+    @Override
+    public boolean shouldDrop(Random random)
+    {
+        return random.nextFloat() < chanceToDrop;
     }
 
     @Override
@@ -11,6 +11,7 @@ import net.minecraft.server.MinecraftServer;
 import net.minecraft.world.World;
 
 import javax.annotation.Nullable;
+import java.util.Random;
 
 /**
  * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
@@ -60,7 +61,13 @@ public class LootEntryCommand implements ILootEntry
     @Override
     public boolean shouldDrop(@Nullable EntityPlayer player, World world, int x, int y, int z, int tier)
     {
-        return world.rand.nextFloat() < chanceToDrop;
+        return shouldDrop(world.rand);
+    }
+
+    @Override
+    public boolean shouldDrop(Random random)
+    {
+        return random.nextFloat() < chanceToDrop;
     }
 
     @Override
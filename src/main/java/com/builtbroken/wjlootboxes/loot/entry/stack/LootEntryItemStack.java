@@ -2,11 +2,13 @@ package com.builtbroken.wjlootboxes.loot.entry.stack;
 
 import com.builtbroken.wjlootboxes.loot.JsonConverterNBT;
 import com.builtbroken.wjlootboxes.loot.LootHandler;
+import com.builtbroken.wjlootboxes.loot.NBTTemplatePool;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 import net.minecraft.block.Block;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
 
 /**
  * Entry for the loot table
@@ -18,8 +20,6 @@ public class LootEntryItemStack extends LootEntryStack
 {
     public ItemStack stack;
 
-    public String originalData;
-
     public LootEntryItemStack(ItemStack stack, int min, int max, float chance)
     {
         super(min, max, chance);
@@ -27,6 +27,19 @@ public class LootEntryItemStack extends LootEntryStack
     }
 
     public static LootEntryItemStack newEntry(String itemName, JsonObject lootData)
+    {
+        return newEntry(itemName, lootData, null);
+    }
+
+    /**
+     * Creates an entry from JSON
+     *
+     * @param itemName - registry name of the item or block
+     * @param lootData - data for the entry
+     * @param nbt      - NBT already read for the entry, null to use the NBT in the JSON data
+     * @return entry, or null if the item doesn't exist
+     */
+    public static LootEntryItemStack newEntry(String itemName, JsonObject lootData, NBTTagCompound nbt)
     {
         int min = lootData.get(LootHandler.JSON_ITEM_MIN_COUNT).getAsInt();
         int max = lootData.get(LootHandler.JSON_ITEM_MAX_COUNT).getAsInt();
@@ -51,6 +64,15 @@ public class LootEntryItemStack extends LootEntryStack
 
         if (stack != null)
         {
+            if (nbt != null)
+            {
+                stack.setTagCompound(NBTTemplatePool.intern(nbt));
+            }
+            else if (lootData.has(LootHandler.JSON_ITEM_NBT) && lootData.get(LootHandler.JSON_ITEM_NBT).isJsonObject())
+            {
+                //Shared with other entries using the same NBT, getStack() hands out copies
+                stack.setTagCompound(NBTTemplatePool.fromJson(lootData.get(LootHandler.JSON_ITEM_NBT)));
+            }
             return new LootEntryItemStack(stack, min, max, chance);
         }
         return null;
@@ -59,7 +81,7 @@ public class LootEntryItemStack extends LootEntryStack
     @Override
     public ItemStack getStack()
     {
-        return stack;
+        return stack.copy();
     }
 
     @Override
@@ -79,6 +101,6 @@ public class LootEntryItemStack extends LootEntryStack
     @Override
     public String toString()
     {
-        return "LootEntry[" + originalData + ", " + minCount + "-" + maxCount + ", " + chanceToDrop + "]@" + hashCode();
+        return "LootEntry[" + stack + ", " + minCount + "-" + maxCount + ", " + chanceToDrop + "]@" + hashCode();
     }
 }
@@ -48,6 +48,13 @@ public class LootEntryOre extends LootEntryStack
         return null;
     }
 
+    @Override
+    public boolean canRollOffThread()
+    {
+        //Ore dictionary isn't synchronized and can register new ores on look up
+        return false;
+    }
+
     @Override
     protected void writeToJson(JsonObject lootData)
     {
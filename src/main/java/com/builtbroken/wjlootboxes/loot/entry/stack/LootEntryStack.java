@@ -1,13 +1,15 @@
 package com.builtbroken.wjlootboxes.loot.entry.stack;
 
 import com.builtbroken.wjlootboxes.WJLootBoxes;
+import com.builtbroken.wjlootboxes.core.loot.LootSampler;
+import com.builtbroken.wjlootboxes.loot.LootCollector;
 import com.builtbroken.wjlootboxes.loot.entry.LootEntry;
-import net.minecraft.entity.item.EntityItem;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.item.ItemStack;
 import net.minecraft.world.World;
 
 import javax.annotation.Nullable;
+import java.util.Random;
 
 /**
  * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
@@ -20,11 +22,19 @@ public abstract class LootEntryStack extends LootEntry
         super(min, max, chance);
     }
 
-    /** Stack to drop */
+    /** Stack to drop, should be a new instance as the size is changed by the caller */
     public abstract ItemStack getStack();
 
     @Override
     public void givePlayer(@Nullable EntityPlayer player, World world, int x, int y, int z, int tier)
+    {
+        LootCollector collector = new LootCollector();
+        collectLoot(player, world, x, y, z, tier, collector);
+        collector.dispense(player, world, x, y, z);
+    }
+
+    @Override
+    public void collectLoot(@Nullable EntityPlayer player, World world, int x, int y, int z, int tier, LootCollector collector)
     {
         //Get stack, will randomize for ore dictionary
         ItemStack stack = getStack();
@@ -35,8 +45,8 @@ public abstract class LootEntryStack extends LootEntry
             //Sets the stack size of the dropped stack
             getStackDrop(player, stack, world, x, y, z);
 
-            //Give item
-            giveStack(player, world, x, y, z, stack);
+            //Merge with the rest of the roll, collector handles giving the item
+            collector.add(stack);
         }
         else
         {
@@ -44,51 +54,44 @@ public abstract class LootEntryStack extends LootEntry
         }
     }
 
-    protected void getStackDrop(@Nullable EntityPlayer player, ItemStack stack, World world, int x, int y, int z)
+    /**
+     * Checks if {@link #rollStack(Random)} can be called from the spawner thread
+     *
+     * @return true if the stack doesn't read game data the main thread can change
+     */
+    public boolean canRollOffThread()
     {
-        //Randomize stack size
-        stack.stackSize = minCount;
-        if (minCount < maxCount)
-        {
-            stack.stackSize += world.rand.nextInt(maxCount - minCount);
-        }
+        return true;
     }
 
-    protected void giveStack(@Nullable EntityPlayer player, World world, int x, int y, int z, ItemStack stack)
+    /**
+     * Creates the stack to drop without a player or world, used
+     * when loot is rolled ahead of time. Only call off the main
+     * thread if {@link #canRollOffThread()} is true.
+     *
+     * @param random - random to use, owned by the calling thread
+     * @return stack with a random size, or null if the stack could not be created
+     */
+    public ItemStack rollStack(Random random)
     {
-        //Drop items until stack is empty
-        while (stack != null && stack.stackSize > 0)
+        ItemStack stack = getStack();
+        if (stack != null && stack.getItem() != null)
         {
-            //Limit stack to stack max size
-            int itemLimit = Math.min(stack.getMaxStackSize(), stack.stackSize);
-            if (itemLimit < stack.stackSize)
-            {
-                ItemStack copy = stack.copy();
-                copy.stackSize = itemLimit;
-                stack.stackSize -= itemLimit;
-                if (!player.inventory.addItemStackToInventory(copy))
-                {
-                    dropStack(world, x, y, z, copy);
-                }
-            }
-            else
-            {
-                if (!player.inventory.addItemStackToInventory(stack))
-                {
-                    dropStack(world, x, y, z, stack);
-                }
-                stack = null;
-            }
+            randomizeStackSize(stack, random);
+            return stack;
         }
+        WJLootBoxes.LOGGER.error("Received invalid stack from " + this);
+        return null;
     }
 
-    protected void dropStack(World world, int x, int y, int z, ItemStack stack)
+    protected void getStackDrop(@Nullable EntityPlayer player, ItemStack stack, World world, int x, int y, int z)
     {
-        //Create
-        EntityItem item = new EntityItem(world);
-        item.setPosition(x + 0.5, y + 0.5, z + 0.5);
-        item.setEntityItemStack(stack);
-        //Spawn entity
-        world.spawnEntityInWorld(item);
+        randomizeStackSize(stack, world.rand);
+    }
+
+    protected void randomizeStackSize(ItemStack stack, Random random)
+    {
+        //Randomize stack size
+        stack.stackSize = LootSampler.rollCount(minCount, maxCount, random);
     }
 }
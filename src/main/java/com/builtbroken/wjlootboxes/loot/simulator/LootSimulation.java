@@ -0,0 +1,151 @@
+package com.builtbroken.wjlootboxes.loot.simulator;
+
+import com.builtbroken.wjlootboxes.core.loot.LootSampler;
+import com.builtbroken.wjlootboxes.loot.LootHandler;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Opens a large number of boxes for a loot table to see what players will actually
+ * get. Follows the same steps as {@link LootHandler#selectLoot} so the odds match the
+ * game, including how entries are picked, rather than the chances written in the table.
+ * Both pick entries using {@link LootSampler}.
+ * <p>
+ * Work is split over a fork join pool, each part uses its own random so no
+ * locking is needed while rolling.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class LootSimulation extends RecursiveTask<LootSimulationResult>
+{
+    /** Number of rolls below which a part is run instead of split */
+    public static final long ROLLS_PER_TASK = 50000;
+    /** Limit on stack sizes tracked separately in the histogram */
+    public static final int MAX_TRACKED_STACK_SIZE = 65536;
+
+    private final LootSimulationTable table;
+    private final long start;
+    private final long rolls;
+    private final long seed;
+
+    public LootSimulation(LootSimulationTable table, long start, long rolls, long seed)
+    {
+        this.table = table;
+        this.start = start;
+        this.rolls = rolls;
+        this.seed = seed;
+    }
+
+    /**
+     * Runs the simulation on the common pool, blocks until done
+     *
+     * @param table - table to roll
+     * @param rolls - number of boxes to open
+     * @param seed  - seed for the randoms, same seed gives the same result
+     * @return result
+     */
+    public static LootSimulationResult simulate(LootSimulationTable table, long rolls, long seed)
+    {
+        return ForkJoinPool.commonPool().invoke(new LootSimulation(table, 0, rolls, seed));
+    }
+
+    @Override
+    protected LootSimulationResult compute()
+    {
+        if (rolls > ROLLS_PER_TASK)
+        {
+            final long half = rolls / 2;
+            final LootSimulation first = new LootSimulation(table, start, half, seed);
+            final LootSimulation second = new LootSimulation(table, start + half, rolls - half, seed);
+            first.fork();
+            final LootSimulationResult result = second.compute();
+            result.merge(first.join());
+            return result;
+        }
+        return roll();
+    }
+
+    /**
+     * Rolls this part of the simulation
+     *
+     * @return result for the part
+     */
+    protected LootSimulationResult roll()
+    {
+        final int size = table.size();
+
+        int maxStackSize = 0;
+        for (int i = 0; i < size; i++)
+        {
+            maxStackSize = Math.max(maxStackSize, table.maxStackSize(i));
+        }
+        final LootSimulationResult result = new LootSimulationResult(table, Math.min(MAX_TRACKED_STACK_SIZE, maxStackSize));
+
+        //Seed from the start index so each part rolls differently, while the same seed still repeats the same result
+        final Random random = new Random(seed ^ (start * 0x9E3779B97F4A7C15L));
+
+        //Entries counted for the current box, marked with the box number instead of cleared each box
+        final int[] picked = new int[size];
+        final int[] pickedThisBox = new int[LootSampler.getMaxPicks(table)];
+
+        for (int box = 1; box <= rolls; box++)
+        {
+            //Same picks as the game
+            final int count = LootSampler.select(table, table, random, pickedThisBox);
+
+            //Collect totals for the box
+            result.rolls++;
+            result.totalEntries += count;
+            if (count == 0)
+            {
+                result.emptyBoxes++;
+            }
+            for (int i = 0; i < count; i++)
+            {
+                final int index = pickedThisBox[i];
+                if (picked[index] != box)
+                {
+                    //Counted once per box
+                    result.boxesWith[index]++;
+                    picked[index] = box;
+                }
+                result.drops[index]++;
+
+                final int stackSize = rollStackSize(random, index);
+                if (stackSize > 0)
+                {
+                    result.items[index] += stackSize;
+                    result.totalItems += stackSize;
+                    result.stackSizes[Math.min(stackSize, result.stackSizes.length - 1)]++;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Rolls the number of items given by the entry
+     *
+     * @param random
+     * @param index
+     * @return number of items
+     */
+    protected int rollStackSize(Random random, int index)
+    {
+        final int min = table.minCount[index];
+        final int max = table.maxCount[index];
+        if (table.types[index] == LootSimulationTable.TYPE_STACK)
+        {
+            //Same as LootEntryStack#randomizeStackSize
+            return LootSampler.rollCount(min, max, random);
+        }
+        else if (table.types[index] == LootSimulationTable.TYPE_GIVE)
+        {
+            //Same as LootEntryGive#givePlayer
+            return Math.max(1, min) + (max > min ? random.nextInt(max) : 0);
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,120 @@
+package com.builtbroken.wjlootboxes.loot.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Totals collected by a {@link LootSimulation}. Results from each part of the
+ * simulation are merged together to get the result for the whole run.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class LootSimulationResult
+{
+    /** Max number of histogram lines to output */
+    public static final int HISTOGRAM_LINES = 10;
+
+    public final LootSimulationTable table;
+
+    /** Number of boxes opened */
+    public long rolls;
+    /** Number of boxes that dropped nothing */
+    public long emptyBoxes;
+    /** Number of entries picked over all boxes */
+    public long totalEntries;
+    /** Number of items dropped over all boxes */
+    public long totalItems;
+
+    /** Times each entry was picked */
+    public final long[] drops;
+    /** Items dropped by each entry */
+    public final long[] items;
+    /** Boxes each entry was picked at least once in */
+    public final long[] boxesWith;
+    /** Number of stacks rolled for each stack size, last slot counts anything larger */
+    public final long[] stackSizes;
+
+    public LootSimulationResult(LootSimulationTable table, int maxStackSize)
+    {
+        this.table = table;
+        this.drops = new long[table.size()];
+        this.items = new long[table.size()];
+        this.boxesWith = new long[table.size()];
+        this.stackSizes = new long[maxStackSize + 1];
+    }
+
+    /**
+     * Adds the totals of the other result to this one
+     *
+     * @param other - result for the same table
+     */
+    public void merge(LootSimulationResult other)
+    {
+        rolls += other.rolls;
+        emptyBoxes += other.emptyBoxes;
+        totalEntries += other.totalEntries;
+        totalItems += other.totalItems;
+        for (int i = 0; i < drops.length; i++)
+        {
+            drops[i] += other.drops[i];
+            items[i] += other.items[i];
+            boxesWith[i] += other.boxesWith[i];
+        }
+        for (int i = 0; i < stackSizes.length; i++)
+        {
+            stackSizes[i] += other.stackSizes[i];
+        }
+    }
+
+    /**
+     * Generates a readable report of the result
+     *
+     * @return lines of output
+     */
+    public List<String> toReport()
+    {
+        final List<String> lines = new ArrayList();
+        final double boxes = Math.max(1, rolls);
+        lines.add(String.format("Tier %d: %d boxes, %.3f entries/box, %.3f items/box, %.2f%% empty",
+                table.tier, rolls, totalEntries / boxes, totalItems / boxes, 100 * emptyBoxes / boxes));
+
+        //Per entry
+        for (int i = 0; i < drops.length; i++)
+        {
+            lines.add(String.format("  #%d %s: chance %.2f%%, in %.2f%% of boxes, %.4f drops/box, %.3f items/box",
+                    i, table.names[i], 100 * table.chance[i], 100 * boxesWith[i] / boxes, drops[i] / boxes, items[i] / boxes));
+        }
+
+        //Stack size histogram, grouped so it fits in chat
+        long stacks = 0;
+        int largest = 0;
+        for (int i = 0; i < stackSizes.length; i++)
+        {
+            stacks += stackSizes[i];
+            if (stackSizes[i] > 0)
+            {
+                largest = i;
+            }
+        }
+        if (stacks > 0)
+        {
+            lines.add("  Stack sizes:");
+            final int width = Math.max(1, (largest + HISTOGRAM_LINES) / HISTOGRAM_LINES);
+            for (int start = 0; start <= largest; start += width)
+            {
+                long count = 0;
+                final int end = Math.min(largest, start + width - 1);
+                for (int i = start; i <= end; i++)
+                {
+                    count += stackSizes[i];
+                }
+                if (count > 0)
+                {
+                    final String range = start == end ? Integer.toString(start) : start + "-" + end;
+                    lines.add(String.format("    %s: %.2f%%", range, 100.0 * count / stacks));
+                }
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,220 @@
+package com.builtbroken.wjlootboxes.loot.simulator;
+
+import com.builtbroken.wjlootboxes.core.loot.LootSource;
+import com.builtbroken.wjlootboxes.loot.LootHandler;
+import com.builtbroken.wjlootboxes.loot.LootTable;
+import com.builtbroken.wjlootboxes.loot.entry.ILootEntry;
+import com.builtbroken.wjlootboxes.loot.entry.LootEntry;
+import com.builtbroken.wjlootboxes.loot.entry.command.LootEntryCommand;
+import com.builtbroken.wjlootboxes.loot.entry.command.LootEntryGive;
+import com.builtbroken.wjlootboxes.loot.entry.stack.LootEntryStack;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import net.minecraft.item.Item;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Copy of a loot table reduced to the numbers needed to simulate rolls. Does not use
+ * any game classes once created, so it can be used off the main thread or without
+ * a game running at all.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class LootSimulationTable implements LootSource
+{
+    /** Entry drops an item stack, see {@link LootEntryStack} */
+    public static final byte TYPE_STACK = 0;
+    /** Entry gives items using the give command, see {@link LootEntryGive} */
+    public static final byte TYPE_GIVE = 1;
+    /** Entry runs a command, drops no items */
+    public static final byte TYPE_COMMAND = 2;
+    /** Entry is missing or of an unknown type, never drops */
+    public static final byte TYPE_MISSING = 3;
+
+    public final int tier;
+    public final int minLootCount;
+    public final int maxLootCount;
+    public final boolean allowDuplicateDrops;
+
+    /** Name of each entry, used for output */
+    public final String[] names;
+    public final byte[] types;
+    public final int[] minCount;
+    public final int[] maxCount;
+    public final float[] chance;
+
+    public LootSimulationTable(int tier, int minLootCount, int maxLootCount, boolean allowDuplicateDrops, int size)
+    {
+        this.tier = tier;
+        this.minLootCount = minLootCount;
+        this.maxLootCount = maxLootCount;
+        this.allowDuplicateDrops = allowDuplicateDrops;
+        this.names = new String[size];
+        this.types = new byte[size];
+        this.minCount = new int[size];
+        this.maxCount = new int[size];
+        this.chance = new float[size];
+    }
+
+    @Override
+    public int size()
+    {
+        return names.length;
+    }
+
+    @Override
+    public int getMinLootCount()
+    {
+        return minLootCount;
+    }
+
+    @Override
+    public int getMaxLootCount()
+    {
+        return maxLootCount;
+    }
+
+    @Override
+    public boolean allowDuplicateDrops()
+    {
+        return allowDuplicateDrops;
+    }
+
+    @Override
+    public boolean shouldDrop(int index, Random random)
+    {
+        return types[index] != TYPE_MISSING && random.nextFloat() < chance[index];
+    }
+
+    /**
+     * Largest stack size the entry can roll, mirrors
+     * {@link LootEntryStack#randomizeStackSize} and {@link LootEntryGive#givePlayer}
+     *
+     * @param index
+     * @return max size
+     */
+    public int maxStackSize(int index)
+    {
+        if (types[index] == TYPE_STACK)
+        {
+            return minCount[index] < maxCount[index] ? maxCount[index] - 1 : minCount[index];
+        }
+        else if (types[index] == TYPE_GIVE)
+        {
+            return Math.max(1, minCount[index]) + (maxCount[index] > minCount[index] ? maxCount[index] - 1 : 0);
+        }
+        return 0;
+    }
+
+    /**
+     * Copies a loaded loot table
+     *
+     * @param table
+     * @return simulation table
+     */
+    public static LootSimulationTable from(LootTable table)
+    {
+        final LootSimulationTable simTable = new LootSimulationTable(table.tier, table.minLootCount, table.maxLootCount, table.allowDuplicateDrops, table.size());
+        for (int i = 0; i < table.size(); i++)
+        {
+            if (table.isItemStack(i))
+            {
+                final Item item = table.getItem(i);
+                simTable.types[i] = TYPE_STACK;
+                simTable.minCount[i] = table.getMinCount(i);
+                simTable.maxCount[i] = table.getMaxCount(i);
+                simTable.chance[i] = table.getChance(i);
+                simTable.names[i] = item != null ? Item.itemRegistry.getNameForObject(item) : "missing item";
+                continue;
+            }
+
+            final ILootEntry entry = table.getEntry(i);
+            if (entry instanceof LootEntry)
+            {
+                final LootEntry lootEntry = (LootEntry) entry;
+                simTable.types[i] = lootEntry instanceof LootEntryStack ? TYPE_STACK : lootEntry instanceof LootEntryGive ? TYPE_GIVE : TYPE_COMMAND;
+                simTable.minCount[i] = lootEntry.minCount;
+                simTable.maxCount[i] = lootEntry.maxCount;
+                simTable.chance[i] = lootEntry.chanceToDrop;
+
+                final JsonElement json = lootEntry.toJson();
+                simTable.names[i] = json.isJsonObject() && json.getAsJsonObject().has(LootHandler.JSON_ITEM_ID)
+                        ? json.getAsJsonObject().get(LootHandler.JSON_ITEM_ID).getAsString() : lootEntry.toString();
+            }
+            else if (entry instanceof LootEntryCommand)
+            {
+                //Rolls its chance and uses up a pick like any other entry, but drops no items
+                simTable.types[i] = TYPE_COMMAND;
+                simTable.chance[i] = ((LootEntryCommand) entry).chanceToDrop;
+                simTable.names[i] = "command@" + ((LootEntryCommand) entry).command;
+            }
+            else
+            {
+                simTable.types[i] = TYPE_MISSING;
+                simTable.names[i] = String.valueOf(entry);
+            }
+        }
+        return simTable;
+    }
+
+    /**
+     * Reads a table from the JSON saved by {@link LootHandler} without loading any
+     * items. Used by {@link LootSimulatorMain} to check tables outside of the game.
+     *
+     * @param tier
+     * @param jsonData
+     * @return simulation table
+     */
+    public static LootSimulationTable fromJson(int tier, JsonObject jsonData)
+    {
+        final int minLoot = Math.max(1, jsonData.get(LootHandler.JSON_MIN_LOOT).getAsInt());
+        final int maxLoot = Math.max(1, jsonData.get(LootHandler.JSON_MAX_LOOT).getAsInt());
+
+        //Entries missing data are skipped by the game, so they are skipped here as well
+        final List<JsonObject> entries = new ArrayList();
+        final JsonArray array = jsonData.getAsJsonArray(LootHandler.JSON_LOOT_ARRAY);
+        for (JsonElement element : array)
+        {
+            if (element.isJsonObject())
+            {
+                final JsonObject entry = element.getAsJsonObject();
+                if (entry.has(LootHandler.JSON_ITEM_ID) && entry.has(LootHandler.JSON_ITEM_CHANCE)
+                        && (isCommand(entry) || entry.has(LootHandler.JSON_ITEM_MIN_COUNT) && entry.has(LootHandler.JSON_ITEM_MAX_COUNT)))
+                {
+                    entries.add(entry);
+                }
+            }
+        }
+
+        final LootSimulationTable simTable = new LootSimulationTable(tier, minLoot, maxLoot, false, entries.size());
+        for (int i = 0; i < entries.size(); i++)
+        {
+            final JsonObject entry = entries.get(i);
+            final String name = entry.get(LootHandler.JSON_ITEM_ID).getAsString();
+            simTable.names[i] = name;
+            simTable.types[i] = name.startsWith("command@") ? TYPE_COMMAND : name.startsWith("give@") ? TYPE_GIVE : TYPE_STACK;
+            if (simTable.types[i] != TYPE_COMMAND)
+            {
+                simTable.minCount[i] = entry.get(LootHandler.JSON_ITEM_MIN_COUNT).getAsInt();
+                simTable.maxCount[i] = entry.get(LootHandler.JSON_ITEM_MAX_COUNT).getAsInt();
+            }
+            simTable.chance[i] = entry.get(LootHandler.JSON_ITEM_CHANCE).getAsFloat();
+        }
+        return simTable;
+    }
+
+    /**
+     * Command entries are saved without counts, see {@link LootEntryCommand#toJson()}
+     *
+     * @param entry
+     * @return true if the entry runs a command
+     */
+    private static boolean isCommand(JsonObject entry)
+    {
+        return entry.get(LootHandler.JSON_ITEM_ID).getAsString().startsWith("command@");
+    }
+}
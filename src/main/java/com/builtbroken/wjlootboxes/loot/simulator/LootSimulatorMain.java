@@ -0,0 +1,76 @@
+package com.builtbroken.wjlootboxes.loot.simulator;
+
+import com.google.gson.JsonElement;
+import com.google.gson.internal.Streams;
+import com.google.gson.stream.JsonReader;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the loot simulation on the loot table files in a folder without starting the game.
+ * Used to check tables in CI before they are shipped to a server.
+ * <p>
+ * Usage: {@code LootSimulatorMain <loot folder> [rolls per tier] [seed]}
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class LootSimulatorMain
+{
+    /** Matches the files saved by the loot handler */
+    private static final Pattern FILE_PATTERN = Pattern.compile("loot_table_tier_(\\d+)\\.json");
+
+    public static void main(String... args)
+    {
+        if (args.length < 1)
+        {
+            System.err.println("Usage: LootSimulatorMain <loot folder> [rolls per tier] [seed]");
+            System.exit(2);
+        }
+
+        final File folder = new File(args[0]);
+        final long rolls = args.length > 1 ? Long.parseLong(args[1]) : 1000000;
+        final long seed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+
+        final File[] files = folder.listFiles();
+        if (files == null)
+        {
+            System.err.println("Loot folder " + folder.getAbsolutePath() + " does not exist");
+            System.exit(2);
+        }
+        Arrays.sort(files);
+
+        int failures = 0;
+        for (File file : files)
+        {
+            final Matcher matcher = FILE_PATTERN.matcher(file.getName());
+            if (matcher.matches())
+            {
+                final int tier = Integer.parseInt(matcher.group(1));
+                try (BufferedReader reader = new BufferedReader(new FileReader(file)))
+                {
+                    final JsonElement element = Streams.parse(new JsonReader(reader));
+                    final LootSimulationTable table = LootSimulationTable.fromJson(tier, element.getAsJsonObject());
+
+                    final long time = System.nanoTime();
+                    final LootSimulationResult result = LootSimulation.simulate(table, rolls, seed);
+                    for (String line : result.toReport())
+                    {
+                        System.out.println(line);
+                    }
+                    System.out.println(String.format("  Simulated in %.1f ms", (System.nanoTime() - time) / 1e6));
+                }
+                catch (Exception e)
+                {
+                    failures++;
+                    System.err.println("Failed to simulate " + file + ": " + e);
+                }
+            }
+        }
+        System.exit(failures > 0 ? 1 : 0);
+    }
+}
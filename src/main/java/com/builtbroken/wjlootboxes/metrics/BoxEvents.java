@@ -0,0 +1,111 @@
+package com.builtbroken.wjlootboxes.metrics;
+
+/**
+ * Hooks for Java Flight Recorder events. This class does nothing, the events are
+ * sent by a subclass in the jfr source set which is only loaded when the runtime
+ * supports JFR. See {@link #create()}.
+ * <p>
+ * Each timed event is started with a begin method, which returns the event or null,
+ * then passed to the end method once the work is done. Null is returned whenever the
+ * event is not being recorded, so nothing is allocated unless a recording is running.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class BoxEvents
+{
+    /** Class sending the JFR events, compiled from src/jfr/java */
+    public static final String JFR_EVENTS_CLASS = "com.builtbroken.wjlootboxes.jfr.JfrBoxEvents";
+
+    /**
+     * Creates the JFR events if the runtime supports them
+     *
+     * @return events, or a no-op instance if JFR isn't available
+     */
+    public static BoxEvents create()
+    {
+        try
+        {
+            //Checked first so the events class is never loaded without jdk.jfr
+            Class.forName("jdk.jfr.FlightRecorder");
+            final Object events = Class.forName(JFR_EVENTS_CLASS).newInstance();
+            if (events instanceof BoxEvents && ((BoxEvents) events).isSupported())
+            {
+                return (BoxEvents) events;
+            }
+        }
+        catch (Throwable e)
+        {
+            //Runtime without JFR or jar built without the jfr source set
+        }
+        return new BoxEvents();
+    }
+
+    /**
+     * @return true if events are sent
+     */
+    public boolean isSupported()
+    {
+        return false;
+    }
+
+    /** Scanner pass over all loaded chunks of a dimension */
+    public Object beginScanPass()
+    {
+        return null;
+    }
+
+    public void endScanPass(Object event, int dimension, int chunks, int spawnPoints)
+    {
+    }
+
+    /** Scanner checking a single chunk for box positions */
+    public Object beginChunkScan()
+    {
+        return null;
+    }
+
+    public void endChunkScan(Object event, int dimension, int chunkX, int chunkZ, int boxes, int tries, int spawnPoints)
+    {
+    }
+
+    /** Main thread placing the boxes found by the scanner */
+    public Object beginPlacementDrain()
+    {
+        return null;
+    }
+
+    public void endPlacementDrain(Object event, int dimension, int drained, int placed)
+    {
+    }
+
+    /** Box opened or broken */
+    public Object beginLootDropped()
+    {
+        return null;
+    }
+
+    public void endLootDropped(Object event, int dimension, int x, int y, int z, int tier, boolean preRolled)
+    {
+    }
+
+    /** Loot rolled for a box */
+    public Object beginLootRoll()
+    {
+        return null;
+    }
+
+    public void endLootRoll(Object event, int tier, int entries, boolean preRolled)
+    {
+    }
+
+    /**
+     * Single entry picked by a loot roll, sent as it happens rather than timed
+     *
+     * @param tier  - tier of the table
+     * @param index - index of the entry in the table
+     * @param items - number of items created, 0 for entries that don't create items
+     */
+    public void lootEntryRolled(int tier, int index, int items)
+    {
+    }
+}
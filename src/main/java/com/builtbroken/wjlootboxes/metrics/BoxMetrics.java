@@ -0,0 +1,313 @@
+package com.builtbroken.wjlootboxes.metrics;
+
+import com.builtbroken.wjlootboxes.WJLootBoxes;
+import com.builtbroken.wjlootboxes.core.spawn.SpawnRejection;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and timings for the box spawner and loot rolls. Recorded from the scanner
+ * thread and the main thread without locks or allocation, read by
+ * {@code /wjlootbox stats} and over JMX.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class BoxMetrics implements BoxMetricsMXBean
+{
+    /** Name the metrics are registered under in JMX */
+    public static final String JMX_NAME = "com.builtbroken.wjlootboxes:type=BoxMetrics";
+
+    //Scanner
+    /** Chunks checked by the scanner */
+    public final LongAdder chunksScanned = new LongAdder();
+    /** Time taken by each pass over a world, not counting sleeps between chunk batches */
+    public final LatencyHistogram scanPasses = new LatencyHistogram();
+    /** Positions checked for a box */
+    public final LongAdder spawnTries = new LongAdder();
+    /** Positions found for a box */
+    public final LongAdder spawnPoints = new LongAdder();
+    /** Positions turned down, indexed by {@link SpawnRejection#ordinal()} */
+    public final AtomicLongArray spawnRejections = new AtomicLongArray(SpawnRejection.VALUES.length);
+
+    //Placement
+    /** Placements added to the queue */
+    public final LongAdder placementsQueued = new LongAdder();
+    /** Placements taken off the queue */
+    public final LongAdder placementsDrained = new LongAdder();
+    /** Boxes placed in the world */
+    public final LongAdder boxesPlaced = new LongAdder();
+    /** Placements no longer valid once drained */
+    public final LongAdder placementsRejected = new LongAdder();
+    /** Time taken to drain the queue, only ticks with placements are recorded */
+    public final LatencyHistogram placementDrain = new LatencyHistogram();
+
+    //Loot
+    /** Loot rolls for each tier, both pre-rolled and rolled when opened */
+    public final AtomicLongArray rollsPerTier;
+    /** Time taken to roll loot */
+    public final LatencyHistogram rollLatency = new LatencyHistogram();
+    /** Items given out, both into inventories and dropped */
+    public final LongAdder itemsDispensed = new LongAdder();
+    /** Item entities spawned to drop loot */
+    public final LongAdder entityDrops = new LongAdder();
+
+    /** Spawner counters for each dimension */
+    private final ConcurrentHashMap<Integer, DimensionMetrics> dimensions = new ConcurrentHashMap();
+
+    /** Chunks and time of the last scan pass, used for the scan rate */
+    private volatile long lastPassChunks;
+    private volatile long lastPassNanos;
+
+    private ObjectName registeredName;
+
+    public BoxMetrics(int tiers)
+    {
+        this.rollsPerTier = new AtomicLongArray(tiers);
+    }
+
+    /**
+     * Gets the counters for a dimension, created on first use. Callers on hot
+     * paths should keep the object rather than looking it up each time.
+     *
+     * @param dimension
+     * @return counters for the dimension
+     */
+    public DimensionMetrics getDimension(int dimension)
+    {
+        final DimensionMetrics existing = dimensions.get(dimension);
+        return existing != null ? existing : dimensions.computeIfAbsent(dimension, DimensionMetrics::new);
+    }
+
+    /**
+     * Counters of all dimensions recorded so far
+     *
+     * @return dimensions sorted by id
+     */
+    public List<DimensionMetrics> getDimensions()
+    {
+        final List<DimensionMetrics> list = new ArrayList(dimensions.values());
+        list.sort((a, b) -> Integer.compare(a.dimension, b.dimension));
+        return list;
+    }
+
+    /**
+     * Called by the scanner after each pass over a world
+     *
+     * @param chunks - chunks scanned in the pass
+     * @param nanos  - time spent scanning, not counting sleeps
+     */
+    public void recordScanPass(int chunks, long nanos)
+    {
+        chunksScanned.add(chunks);
+        scanPasses.record(nanos);
+        lastPassChunks = chunks;
+        lastPassNanos = nanos;
+    }
+
+    /**
+     * Called when a position is checked for a box
+     *
+     * @param rejection - reason the position was turned down, null if a box can spawn
+     */
+    public void recordSpawnCheck(SpawnRejection rejection)
+    {
+        if (rejection != null)
+        {
+            spawnRejections.incrementAndGet(rejection.ordinal());
+        }
+    }
+
+    /**
+     * Called after loot is rolled
+     *
+     * @param tier  - tier rolled
+     * @param nanos - time taken
+     */
+    public void recordRoll(int tier, long nanos)
+    {
+        if (tier >= 0 && tier < rollsPerTier.length())
+        {
+            rollsPerTier.incrementAndGet(tier);
+        }
+        rollLatency.record(nanos);
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server
+     */
+    public void registerJMX()
+    {
+        try
+        {
+            registeredName = new ObjectName(JMX_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(registeredName))
+            {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, registeredName);
+            }
+        }
+        catch (Exception e)
+        {
+            WJLootBoxes.LOGGER.warn("Failed to register metrics with JMX", e);
+            registeredName = null;
+        }
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server
+     */
+    public void unregisterJMX()
+    {
+        if (registeredName != null)
+        {
+            try
+            {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+            }
+            catch (Exception e)
+            {
+                WJLootBoxes.LOGGER.warn("Failed to unregister metrics from JMX", e);
+            }
+            registeredName = null;
+        }
+    }
+
+    /**
+     * Generates a readable report of the metrics
+     *
+     * @return lines of output
+     */
+    public List<String> toReport()
+    {
+        final List<String> lines = new ArrayList();
+        lines.add(String.format("Scanner: %d chunks, %.1f chunks/s last pass, passes %s",
+                getChunksScanned(), getChunksScannedPerSecond(), scanPasses.toSummary()));
+        lines.add("Spawn checks: " + getSpawnTries() + " tries, " + getSpawnPoints() + " found, rejected " + getSpawnRejections());
+        lines.add("Placement: " + getPlacementQueueDepth() + " queued, " + getBoxesPlaced() + " placed, " + getPlacementsRejected() + " no longer valid");
+        lines.add("Drain per tick: " + placementDrain.toSummary());
+
+        final StringBuilder rolls = new StringBuilder("Rolls per tier:");
+        for (int tier = 0; tier < rollsPerTier.length(); tier++)
+        {
+            rolls.append(' ').append(tier).append('=').append(rollsPerTier.get(tier));
+        }
+        lines.add(rolls.toString());
+        lines.add("Roll time: " + rollLatency.toSummary());
+        lines.add("Dispensed: " + itemsDispensed.sum() + " items, " + entityDrops.sum() + " item entities");
+        return lines;
+    }
+
+    @Override
+    public long getChunksScanned()
+    {
+        return chunksScanned.sum();
+    }
+
+    @Override
+    public double getChunksScannedPerSecond()
+    {
+        final long nanos = lastPassNanos;
+        return nanos > 0 ? lastPassChunks * 1e9 / nanos : 0;
+    }
+
+    @Override
+    public long getScanPasses()
+    {
+        return scanPasses.getCount();
+    }
+
+    @Override
+    public long getSpawnTries()
+    {
+        return spawnTries.sum();
+    }
+
+    @Override
+    public long getSpawnPoints()
+    {
+        return spawnPoints.sum();
+    }
+
+    @Override
+    public Map<String, Long> getSpawnRejections()
+    {
+        final Map<String, Long> map = new LinkedHashMap();
+        for (SpawnRejection rejection : SpawnRejection.VALUES)
+        {
+            map.put(rejection.name().toLowerCase(), spawnRejections.get(rejection.ordinal()));
+        }
+        return map;
+    }
+
+    @Override
+    public long getPlacementQueueDepth()
+    {
+        return Math.max(0, placementsQueued.sum() - placementsDrained.sum());
+    }
+
+    @Override
+    public long getBoxesPlaced()
+    {
+        return boxesPlaced.sum();
+    }
+
+    @Override
+    public long getPlacementsRejected()
+    {
+        return placementsRejected.sum();
+    }
+
+    @Override
+    public long getDrainTimeP50Micros()
+    {
+        return placementDrain.getPercentile(0.5) / 1000;
+    }
+
+    @Override
+    public long getDrainTimeP99Micros()
+    {
+        return placementDrain.getPercentile(0.99) / 1000;
+    }
+
+    @Override
+    public long getDrainTimeMaxMicros()
+    {
+        return placementDrain.getMax() / 1000;
+    }
+
+    @Override
+    public long[] getRollsPerTier()
+    {
+        final long[] rolls = new long[rollsPerTier.length()];
+        for (int tier = 0; tier < rolls.length; tier++)
+        {
+            rolls[tier] = rollsPerTier.get(tier);
+        }
+        return rolls;
+    }
+
+    @Override
+    public long getRollLatencyP50Micros()
+    {
+        return rollLatency.getPercentile(0.5) / 1000;
+    }
+
+    @Override
+    public long getRollLatencyP99Micros()
+    {
+        return rollLatency.getPercentile(0.99) / 1000;
+    }
+
+    @Override
+    public long getRollLatencyMaxMicros()
+    {
+        return rollLatency.getMax() / 1000;
+    }
+}
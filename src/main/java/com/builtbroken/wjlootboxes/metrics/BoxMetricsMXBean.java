@@ -0,0 +1,43 @@
+package com.builtbroken.wjlootboxes.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link BoxMetrics}. Times are in micro-seconds.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public interface BoxMetricsMXBean
+{
+    long getChunksScanned();
+
+    double getChunksScannedPerSecond();
+
+    long getScanPasses();
+
+    long getSpawnTries();
+
+    long getSpawnPoints();
+
+    Map<String, Long> getSpawnRejections();
+
+    long getPlacementQueueDepth();
+
+    long getBoxesPlaced();
+
+    long getPlacementsRejected();
+
+    long getDrainTimeP50Micros();
+
+    long getDrainTimeP99Micros();
+
+    long getDrainTimeMaxMicros();
+
+    long[] getRollsPerTier();
+
+    long getRollLatencyP50Micros();
+
+    long getRollLatencyP99Micros();
+
+    long getRollLatencyMaxMicros();
+}
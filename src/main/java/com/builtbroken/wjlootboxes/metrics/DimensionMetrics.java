@@ -0,0 +1,69 @@
+package com.builtbroken.wjlootboxes.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spawner counters for a single dimension, see {@link BoxMetrics#getDimension(int)}.
+ * Recorded alongside the totals in {@link BoxMetrics}.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class DimensionMetrics
+{
+    public final int dimension;
+
+    /** Chunks checked by the scanner */
+    public final LongAdder chunksScanned = new LongAdder();
+    /** Time spent scanning, not counting sleeps between chunk batches */
+    public final LongAdder scanNanos = new LongAdder();
+    /** Placements added to the queue */
+    public final LongAdder placementsQueued = new LongAdder();
+    /** Placements taken off the queue */
+    public final LongAdder placementsDrained = new LongAdder();
+    /** Boxes placed in the world */
+    public final LongAdder boxesPlaced = new LongAdder();
+
+    /** Chunks and time of the last scan pass, used for the scan rate */
+    private volatile long lastPassChunks;
+    private volatile long lastPassNanos;
+
+    public DimensionMetrics(int dimension)
+    {
+        this.dimension = dimension;
+    }
+
+    /**
+     * Called by the scanner after each pass over the dimension
+     *
+     * @param chunks - chunks scanned in the pass
+     * @param nanos  - time spent scanning, not counting sleeps
+     */
+    public void recordScanPass(int chunks, long nanos)
+    {
+        chunksScanned.add(chunks);
+        scanNanos.add(nanos);
+        lastPassChunks = chunks;
+        lastPassNanos = nanos;
+    }
+
+    /**
+     * Chunks scanned per second of scanning during the last pass
+     *
+     * @return rate, 0 if not scanned yet
+     */
+    public double getChunksScannedPerSecond()
+    {
+        final long nanos = lastPassNanos;
+        return nanos > 0 ? lastPassChunks * 1e9 / nanos : 0;
+    }
+
+    /**
+     * Placements waiting to be placed by the main thread
+     *
+     * @return queue size
+     */
+    public long getPlacementQueueDepth()
+    {
+        return Math.max(0, placementsQueued.sum() - placementsDrained.sum());
+    }
+}
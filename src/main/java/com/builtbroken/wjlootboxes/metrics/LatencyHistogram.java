@@ -0,0 +1,167 @@
+package com.builtbroken.wjlootboxes.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of times, in nano-seconds. Each time is counted in the bucket
+ * for its highest set bit, so bucket N holds times from 2^N up to 2^(N+1). Percentiles
+ * are reported as the top of the bucket they fall in, which is within a factor of two.
+ * <p>
+ * Recording never allocates or locks, so it is safe to call on hot paths from any thread.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class LatencyHistogram
+{
+    /** One bucket per bit of a long */
+    public static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a time
+     *
+     * @param nanos - time in nano-seconds, negative values are counted as 0
+     */
+    public void record(long nanos)
+    {
+        final long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketFor(value));
+        count.increment();
+        total.add(value);
+
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value))
+        {
+            //Retry until the max is at least the value
+        }
+    }
+
+    /**
+     * Gets the bucket the value is counted in
+     *
+     * @param value - time in nano-seconds
+     * @return bucket index
+     */
+    public static int bucketFor(long value)
+    {
+        return value <= 0 ? 0 : 63 - Long.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Number of times recorded
+     *
+     * @return count
+     */
+    public long getCount()
+    {
+        return count.sum();
+    }
+
+    /**
+     * Sum of all times recorded
+     *
+     * @return total in nano-seconds
+     */
+    public long getTotal()
+    {
+        return total.sum();
+    }
+
+    /**
+     * Average time recorded
+     *
+     * @return mean in nano-seconds, 0 if nothing was recorded
+     */
+    public long getMean()
+    {
+        final long n = count.sum();
+        return n > 0 ? total.sum() / n : 0;
+    }
+
+    /**
+     * Largest time recorded
+     *
+     * @return max in nano-seconds
+     */
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    /**
+     * Gets the time the percentile of recorded times are at or below,
+     * rounded up to the top of the bucket it falls in
+     *
+     * @param percentile - 0 to 1, such as 0.99
+     * @return time in nano-seconds, 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile)
+    {
+        //Copy counts first so the total matches the buckets read
+        final long[] counts = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            counts[i] = buckets.get(i);
+            n += counts[i];
+        }
+        if (n == 0)
+        {
+            return 0;
+        }
+
+        final long target = Math.max(1, (long) Math.ceil(n * percentile));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            seen += counts[i];
+            if (seen >= target)
+            {
+                //Top of the bucket, capped by the largest value seen
+                final long top = i >= 62 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+                return Math.min(top, getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Generates a short summary, such as "n=10 mean=1.2ms p50=1.0ms p99=2.1ms max=2.3ms"
+     *
+     * @return summary
+     */
+    public String toSummary()
+    {
+        return "n=" + getCount() + " mean=" + format(getMean()) + " p50=" + format(getPercentile(0.5))
+                + " p99=" + format(getPercentile(0.99)) + " max=" + format(getMax());
+    }
+
+    /**
+     * Formats nano-seconds in the largest unit that keeps the value above 1
+     *
+     * @param nanos
+     * @return formatted time
+     */
+    public static String format(long nanos)
+    {
+        if (nanos >= 1000000000L)
+        {
+            return String.format("%.2fs", nanos / 1e9);
+        }
+        else if (nanos >= 1000000)
+        {
+            return String.format("%.2fms", nanos / 1e6);
+        }
+        else if (nanos >= 1000)
+        {
+            return String.format("%.1fus", nanos / 1e3);
+        }
+        return nanos + "ns";
+    }
+}
@@ -0,0 +1,158 @@
+package com.builtbroken.wjlootboxes.metrics;
+
+import com.builtbroken.wjlootboxes.WJLootBoxes;
+import com.builtbroken.wjlootboxes.core.spawn.SpawnRejection;
+import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import cpw.mods.fml.common.gameevent.TickEvent;
+import net.minecraftforge.common.config.Configuration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes the {@link BoxMetrics} to a file in the Prometheus text format, for monitoring
+ * that reads metrics from files such as the node exporter's textfile collector.
+ * <p>
+ * The main thread only queues the write on the {@link com.builtbroken.wjlootboxes.FileWriteService},
+ * the metrics are read and formatted on the writer thread. The file is written to a temp
+ * file then moved in place, so a scrape never sees a half written file. The temp file
+ * ends in .tmp, which the textfile collector ignores.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class PrometheusExporter
+{
+    /** Prefix of all metric names */
+    public static final String PREFIX = "wjlootboxes_";
+
+    /** Should the metrics be written */
+    public boolean enabled = false;
+    /** File to write, relative paths are from the server folder */
+    public String path = "wjlootboxes.prom";
+    /** Time between writes in seconds */
+    public int interval = 15;
+
+    /** Time of the next write, in milli-seconds */
+    private long nextWrite;
+
+    @SubscribeEvent
+    public void onServerTick(TickEvent.ServerTickEvent event)
+    {
+        if (enabled && event.phase == TickEvent.Phase.END)
+        {
+            final long now = System.currentTimeMillis();
+            if (now >= nextWrite)
+            {
+                nextWrite = now + interval * 1000L;
+                WJLootBoxes.fileWriter.write(new File(path), stream -> write(WJLootBoxes.metrics, stream), null);
+            }
+        }
+    }
+
+    /**
+     * Writes the metrics in the Prometheus text format
+     *
+     * @param metrics - metrics to write
+     * @param stream  - stream to write to, not closed
+     * @throws IOException
+     */
+    public static void write(BoxMetrics metrics, OutputStream stream) throws IOException
+    {
+        final StringBuilder out = new StringBuilder(4096);
+        final List<DimensionMetrics> dimensions = metrics.getDimensions();
+
+        //Spawner per dimension
+        header(out, "boxes_placed_total", "counter", "Boxes placed by the spawner");
+        for (DimensionMetrics dimension : dimensions)
+        {
+            sample(out, "boxes_placed_total", "dimension", dimension.dimension, dimension.boxesPlaced.sum());
+        }
+        header(out, "chunks_scanned_total", "counter", "Chunks checked by the spawner");
+        for (DimensionMetrics dimension : dimensions)
+        {
+            sample(out, "chunks_scanned_total", "dimension", dimension.dimension, dimension.chunksScanned.sum());
+        }
+        header(out, "scan_seconds_total", "counter", "Time spent scanning chunks, not counting sleeps");
+        for (DimensionMetrics dimension : dimensions)
+        {
+            sample(out, "scan_seconds_total", "dimension", dimension.dimension, dimension.scanNanos.sum() / 1e9);
+        }
+        header(out, "scan_chunks_per_second", "gauge", "Chunks scanned per second of scanning during the last pass");
+        for (DimensionMetrics dimension : dimensions)
+        {
+            sample(out, "scan_chunks_per_second", "dimension", dimension.dimension, dimension.getChunksScannedPerSecond());
+        }
+        header(out, "placement_queue_depth", "gauge", "Placements waiting for the main thread");
+        for (DimensionMetrics dimension : dimensions)
+        {
+            sample(out, "placement_queue_depth", "dimension", dimension.dimension, dimension.getPlacementQueueDepth());
+        }
+
+        //Spawn checks
+        header(out, "spawn_tries_total", "counter", "Positions checked for a box");
+        sample(out, "spawn_tries_total", null, null, metrics.getSpawnTries());
+        header(out, "spawn_rejections_total", "counter", "Positions turned down for a box");
+        for (SpawnRejection rejection : SpawnRejection.VALUES)
+        {
+            sample(out, "spawn_rejections_total", "reason", rejection.name().toLowerCase(), metrics.spawnRejections.get(rejection.ordinal()));
+        }
+        header(out, "placements_rejected_total", "counter", "Placements no longer valid once taken off the queue");
+        sample(out, "placements_rejected_total", null, null, metrics.getPlacementsRejected());
+
+        //Loot
+        header(out, "loot_rolls_total", "counter", "Loot rolls, both rolled ahead of time and when opened");
+        for (int tier = 0; tier < metrics.rollsPerTier.length(); tier++)
+        {
+            sample(out, "loot_rolls_total", "tier", tier, metrics.rollsPerTier.get(tier));
+        }
+        header(out, "loot_roll_seconds", "summary", "Time taken to roll loot, quantiles are rounded up to a power of two nano-seconds");
+        sample(out, "loot_roll_seconds", "quantile", "0.5", metrics.rollLatency.getPercentile(0.5) / 1e9);
+        sample(out, "loot_roll_seconds", "quantile", "0.99", metrics.rollLatency.getPercentile(0.99) / 1e9);
+        sample(out, "loot_roll_seconds_sum", null, null, metrics.rollLatency.getTotal() / 1e9);
+        sample(out, "loot_roll_seconds_count", null, null, metrics.rollLatency.getCount());
+        header(out, "items_dispensed_total", "counter", "Items given out, both into inventories and dropped");
+        sample(out, "items_dispensed_total", null, null, metrics.itemsDispensed.sum());
+        header(out, "entity_drops_total", "counter", "Item entities spawned to drop loot");
+        sample(out, "entity_drops_total", null, null, metrics.entityDrops.sum());
+
+        stream.write(out.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help)
+    {
+        out.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String label, Object labelValue, double value)
+    {
+        out.append(PREFIX).append(name);
+        if (label != null)
+        {
+            out.append('{').append(label).append("=\"").append(labelValue).append("\"}");
+        }
+        out.append(' ');
+        if (value == (long) value)
+        {
+            out.append((long) value);
+        }
+        else
+        {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    public void loadConfiguration(Configuration configuration)
+    {
+        final String category = "metrics_export";
+        enabled = configuration.getBoolean("enabled", category, enabled, "Write spawner and loot metrics to a file " +
+                "in the Prometheus text format, for the node exporter's textfile collector or similar.");
+        path = configuration.getString("path", category, path, "File to write the metrics to, relative paths are " +
+                "from the server folder. Should end in .prom for the textfile collector to read it.");
+        interval = configuration.getInt("interval", category, interval, 1, 3600, "Seconds between writes.");
+    }
+}
@@ -0,0 +1,246 @@
+package com.builtbroken.wjlootboxes.spawner;
+
+import com.builtbroken.wjlootboxes.WJLootBoxes;
+import com.builtbroken.wjlootboxes.core.spawn.SpawnArea;
+import com.builtbroken.wjlootboxes.core.spawn.SpawnRules;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import net.minecraft.block.Block;
+import net.minecraft.init.Blocks;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static com.builtbroken.wjlootboxes.spawner.BoxSpawnerWorld.*;
+
+/**
+ * Spawn settings for a single dimension. Settings are never changed once
+ * created, loading new settings creates a new object which replaces the old
+ * one. This way the scanner thread always sees a consistent set of settings.
+ * <p>
+ * Adds the blocks boxes can be placed on to the {@link SpawnRules}, along with
+ * loading and saving the settings as JSON.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public final class BoxSpawnSettings extends SpawnRules
+{
+    /** Meta mask used when all meta values of a block are supported */
+    public static final int ALL_META = 0xFFFF;
+
+    /** Block to bit mask of supported meta values, used to check if blocks are supported for placing crates on */
+    private final Map<Block, Integer> supportedBlocks;
+
+    public BoxSpawnSettings(int dimension, long timeToWaitBeforeScanningAChunkAgain, long timeToDelayBetweenChunkScans, long timeToDelayBetweenWorldScan,
+                            int chunksToScanPerRun, int boxesPerChunk, int triesPerChunk, int placementCheckHeightAdjust,
+                            float[] chancePerTier, Map<Block, Integer> supportedBlocks, List<? extends SpawnArea> allowedSpawnAreas)
+    {
+        super(dimension, timeToWaitBeforeScanningAChunkAgain, timeToDelayBetweenChunkScans, timeToDelayBetweenWorldScan,
+                chunksToScanPerRun, boxesPerChunk, triesPerChunk, placementCheckHeightAdjust,
+                chancePerTier, allowedSpawnAreas);
+        this.supportedBlocks = Collections.unmodifiableMap(new HashMap(supportedBlocks));
+    }
+
+    /**
+     * Creates the default settings used when no settings file exists
+     *
+     * @param dimension
+     * @return settings
+     */
+    public static BoxSpawnSettings defaults(int dimension)
+    {
+        Map<Block, Integer> blocks = new HashMap();
+        blocks.put(Blocks.grass, ALL_META);
+        blocks.put(Blocks.dirt, ALL_META);
+
+        return new BoxSpawnSettings(dimension,
+                TimeUnit.MINUTES.toMillis(10), //10 mins
+                TimeUnit.SECONDS.toMillis(1), //1 second
+                TimeUnit.MINUTES.toMillis(10), //10 mins
+                100, 1, 3, 5,
+                new float[]{0.3f, 0.2f, 0.1f, 0.05f, 0.01f},
+                blocks,
+                Collections.singletonList(new BoxSpawnArea(-100, -100, 100, 100)));
+    }
+
+    public boolean isSupportedBlock(Block block)
+    {
+        return isSupportedBlock(block, -1);
+    }
+
+    public boolean isSupportedBlock(Block block, int meta)
+    {
+        final Integer mask = supportedBlocks.get(block);
+        return mask != null && (meta < 0 || meta > 15 || (mask & (1 << meta)) != 0);
+    }
+
+    /**
+     * Loads settings from JSON, values missing for optional
+     * entries use the default settings.
+     *
+     * @param dimension
+     * @param element
+     * @return settings
+     */
+    public static BoxSpawnSettings fromJson(int dimension, JsonElement element)
+    {
+        if (!element.isJsonObject())
+        {
+            throw new IllegalArgumentException("Spawn settings for dimension " + dimension + " must be a JSON object");
+        }
+
+        final BoxSpawnSettings defaults = defaults(dimension);
+        final JsonObject jsonData = element.getAsJsonObject();
+        final long timeToDelayBetweenWorldScan = jsonData.get(JSON_DELAY_BETWEEN_SCANS).getAsLong();
+        final long timeToDelayBetweenChunkScans = jsonData.get(JSON_DELAY_BETWEEN_CHUNK_SCANS).getAsLong();
+        final long timeToWaitBeforeScanningAChunkAgain = jsonData.get(JSON_DELAY_TO_RESCAN_CHUNK).getAsLong();
+
+        final int chunksToScanPerRun = jsonData.get(JSON_CHUNKS_TO_SCAN).getAsInt();
+        final int boxesPerChunk = jsonData.get(JSON_BOXES_PER_CHUNK).getAsInt();
+        final int triesPerChunk = jsonData.get(JSON_TRIES_PER_CHUNK).getAsInt();
+        final int placementCheckHeightAdjust = jsonData.get(JSON_HEIGHT_ADJUST).getAsInt();
+
+        final float[] chancePerTier = defaults.chancePerTier.clone();
+        JsonArray chanceArray = jsonData.getAsJsonArray(JSON_CHANCES);
+        for (JsonElement entry : chanceArray)
+        {
+            if (entry.isJsonObject())
+            {
+                JsonObject chanceData = entry.getAsJsonObject();
+                int tier = chanceData.get(JSON_CHANCE_TIER).getAsInt();
+                float value = chanceData.get(JSON_CHANCE_VALUE).getAsFloat();
+
+                if (tier >= 0 && tier < WJLootBoxes.NUMBER_OF_TIERS && tier < chancePerTier.length)
+                {
+                    chancePerTier[tier] = value;
+                }
+            }
+        }
+
+        final Map<Block, Integer> supportedBlocks = new HashMap();
+        JsonArray blockArray = jsonData.getAsJsonArray(JSON_BLOCKS);
+        for (JsonElement entry : blockArray)
+        {
+            if (entry.isJsonObject())
+            {
+                JsonObject blockObject = entry.getAsJsonObject();
+                String id = blockObject.getAsJsonPrimitive(JSON_BLOCK_ID).getAsString();
+                Block block = Block.getBlockFromName(id);
+                if (block != null)
+                {
+                    //Blocks listed with meta only support the meta values listed
+                    int mask = supportedBlocks.containsKey(block) ? supportedBlocks.get(block) : 0;
+                    if (blockObject.has(JSON_BLOCK_META))
+                    {
+                        mask |= 1 << (blockObject.get(JSON_BLOCK_META).getAsInt() & 15);
+                    }
+                    supportedBlocks.put(block, mask);
+                }
+                else
+                {
+                    WJLootBoxes.LOGGER.error("BoxSpawnSettings#fromJson() - Failed to locate block '" + id + "' while load data for dimension '" + dimension + "'");
+                }
+            }
+        }
+
+        //Blocks listed without meta support all meta values
+        for (Map.Entry<Block, Integer> entry : supportedBlocks.entrySet())
+        {
+            if (entry.getValue() == 0)
+            {
+                entry.setValue(ALL_META);
+            }
+        }
+
+        List<SpawnArea> allowedSpawnAreas = Arrays.asList(defaults.allowedSpawnAreas);
+        if (jsonData.has(JSON_AREAS))
+        {
+            allowedSpawnAreas = new ArrayList();
+            JsonArray areaArray = jsonData.getAsJsonArray(JSON_AREAS);
+            for (JsonElement entry : areaArray)
+            {
+                if (entry.isJsonObject())
+                {
+                    JsonObject areaObject = entry.getAsJsonObject();
+                    int startX = areaObject.get(JSON_START_X).getAsInt();
+                    int startZ = areaObject.get(JSON_START_Z).getAsInt();
+                    int endX = areaObject.get(JSON_END_X).getAsInt();
+                    int endZ = areaObject.get(JSON_END_Z).getAsInt();
+                    allowedSpawnAreas.add(new BoxSpawnArea(startX, startZ, endX, endZ));
+                }
+            }
+        }
+
+        return new BoxSpawnSettings(dimension, timeToWaitBeforeScanningAChunkAgain, timeToDelayBetweenChunkScans, timeToDelayBetweenWorldScan,
+                chunksToScanPerRun, boxesPerChunk, triesPerChunk, placementCheckHeightAdjust,
+                chancePerTier, supportedBlocks, allowedSpawnAreas);
+    }
+
+    public void toJson(JsonObject object)
+    {
+        object.add(JSON_DELAY_BETWEEN_SCANS, new JsonPrimitive(timeToDelayBetweenWorldScan));
+        object.add(JSON_DELAY_BETWEEN_CHUNK_SCANS, new JsonPrimitive(timeToDelayBetweenChunkScans));
+        object.add(JSON_DELAY_TO_RESCAN_CHUNK, new JsonPrimitive(timeToWaitBeforeScanningAChunkAgain));
+        object.add(JSON_CHUNKS_TO_SCAN, new JsonPrimitive(chunksToScanPerRun));
+        object.add(JSON_BOXES_PER_CHUNK, new JsonPrimitive(boxesPerChunk));
+        object.add(JSON_TRIES_PER_CHUNK, new JsonPrimitive(triesPerChunk));
+        object.add(JSON_HEIGHT_ADJUST, new JsonPrimitive(placementCheckHeightAdjust));
+
+        //Load chance array
+        JsonArray chanceArray = new JsonArray();
+        for (int i = 0; i < chancePerTier.length; i++)
+        {
+            final float f = chancePerTier[i];
+
+            JsonObject chanceObject = new JsonObject();
+            chanceObject.add(JSON_CHANCE_TIER, new JsonPrimitive(i));
+            chanceObject.add(JSON_CHANCE_VALUE, new JsonPrimitive(f));
+            chanceArray.add(chanceObject);
+        }
+        object.add(JSON_CHANCES, chanceArray);
+
+        //Load block array
+        JsonArray blockArray = new JsonArray();
+        for (Map.Entry<Block, Integer> entry : supportedBlocks.entrySet())
+        {
+            if (entry.getKey() != null)
+            {
+                if (entry.getValue() == ALL_META)
+                {
+                    JsonObject blockObject = new JsonObject();
+                    blockObject.add(JSON_BLOCK_ID, new JsonPrimitive(Block.blockRegistry.getNameForObject(entry.getKey())));
+                    blockArray.add(blockObject);
+                }
+                else
+                {
+                    for (int meta = 0; meta < 16; meta++)
+                    {
+                        if ((entry.getValue() & (1 << meta)) != 0)
+                        {
+                            JsonObject blockObject = new JsonObject();
+                            blockObject.add(JSON_BLOCK_ID, new JsonPrimitive(Block.blockRegistry.getNameForObject(entry.getKey())));
+                            blockObject.add(JSON_BLOCK_META, new JsonPrimitive(meta));
+                            blockArray.add(blockObject);
+                        }
+                    }
+                }
+            }
+        }
+        object.add(JSON_BLOCKS, blockArray);
+
+        //Load block array
+        JsonArray areaArray = new JsonArray();
+        for (SpawnArea area : allowedSpawnAreas)
+        {
+            JsonObject areaObject = new JsonObject();
+            areaObject.add(JSON_START_X, new JsonPrimitive(area.startX));
+            areaObject.add(JSON_START_Z, new JsonPrimitive(area.startZ));
+            areaObject.add(JSON_END_X, new JsonPrimitive(area.endX));
+            areaObject.add(JSON_END_Z, new JsonPrimitive(area.endZ));
+            areaArray.add(areaObject);
+        }
+        object.add(JSON_AREAS, areaArray);
+    }
+}
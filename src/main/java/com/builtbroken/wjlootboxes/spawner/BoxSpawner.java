@@ -18,6 +18,13 @@ public class BoxSpawner
     private String spawnDataPath = "./spawning";
     private File dataFolder;
 
+    /** Should spawn settings be reloaded when their files change */
+    public boolean watchSettings = true;
+    /** Time in milli-seconds a file must stop changing before it is reloaded */
+    public int settingsReloadDelay = 1000;
+
+    private SpawnSettingsWatcher watcher;
+
     @SubscribeEvent
     public void onWorldTick(TickEvent.WorldTickEvent event)
     {
@@ -54,6 +61,31 @@ public class BoxSpawner
 
         spawnDataPath = configuration.getString("spawnDataPath", category, spawnDataPath, "Path to load " +
                 "box spawning data from. Add './' in front for relative path, or else use the full system path.");
+        watchSettings = configuration.getBoolean("watchSettings", category, watchSettings, "Reload the spawn " +
+                "settings for a world while the server is running when its settings file is changed.");
+        settingsReloadDelay = configuration.getInt("settingsReloadDelay", category, settingsReloadDelay, 0, 60000,
+                "Time in milli-seconds a settings file must stop changing before it is reloaded.");
+    }
+
+    /**
+     * Starts watching the spawn settings files for changes
+     */
+    public void startWatcher()
+    {
+        if (watchSettings && dataFolder != null && watcher == null)
+        {
+            watcher = new SpawnSettingsWatcher(this, dataFolder, settingsReloadDelay);
+            watcher.start();
+        }
+    }
+
+    public void stopWatcher()
+    {
+        if (watcher != null)
+        {
+            watcher.stopWatcher();
+            watcher = null;
+        }
     }
 
     public void loadSpawnData(File folder)
@@ -1,5 +1,6 @@
 package com.builtbroken.wjlootboxes.spawner;
 
+import com.builtbroken.wjlootboxes.loot.LootRoll;
 import net.minecraft.world.ChunkPosition;
 
 /**
@@ -10,6 +11,9 @@ public class BoxSpawnerPlacement extends ChunkPosition
 {
     public int tier;
 
+    /** Loot rolled by the scanner thread, null if loot should be rolled when opened */
+    public LootRoll loot;
+
     public BoxSpawnerPlacement(int x, int y, int z, int tier)
     {
         super(x, y, z);
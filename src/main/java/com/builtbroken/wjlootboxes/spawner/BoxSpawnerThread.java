@@ -2,9 +2,15 @@ package com.builtbroken.wjlootboxes.spawner;
 
 import com.builtbroken.wjlootboxes.WJLootBoxes;
 import com.builtbroken.wjlootboxes.box.TileEntityLootbox;
+import com.builtbroken.wjlootboxes.core.spawn.SpawnPlanner;
+import com.builtbroken.wjlootboxes.core.spawn.SpawnPointSink;
+import com.builtbroken.wjlootboxes.core.spawn.SpawnRejection;
+import com.builtbroken.wjlootboxes.core.spawn.SpawnTerrain;
+import com.builtbroken.wjlootboxes.log.EventType;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.world.ChunkCoordIntPair;
 import net.minecraft.world.ChunkPosition;
+import net.minecraft.world.IBlockAccess;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldServer;
 import net.minecraft.world.chunk.Chunk;
@@ -30,6 +36,15 @@ public class BoxSpawnerThread extends Thread
     /** Map of worlds to last time scanned */
     private HashMap<Integer, Long> lastWorldScanTimes = new HashMap();
 
+    /** Random used to pre-roll loot, owned by this thread */
+    private final Random lootRandom = new Random();
+
+    /** Picks positions inside chunks, owned by this thread */
+    private final SpawnPlanner planner = new SpawnPlanner();
+
+    /** Chunk being scanned, reused between chunks */
+    private final ChunkTerrain terrain = new ChunkTerrain();
+
     @Override
     public void run()
     {
@@ -39,7 +54,10 @@ public class BoxSpawnerThread extends Thread
             try
             {
                 final World currentScanWorld = world();
-                final BoxSpawnerWorld settings = WJLootBoxes.boxSpawner.get(currentScanWorld);
+                final BoxSpawnerWorld spawnerWorld = WJLootBoxes.boxSpawner.get(currentScanWorld);
+
+                //Settings are read once per pass, reloads are picked up on the next pass
+                final BoxSpawnSettings settings = spawnerWorld != null ? spawnerWorld.getSettings() : null;
                 if (currentScanWorld instanceof WorldServer && settings != null)
                 {
                     final WorldServer world = (WorldServer) world();
@@ -56,6 +74,10 @@ public class BoxSpawnerThread extends Thread
                     Collections.shuffle(que);
 
                     int chunksScanned = 0;
+                    int spawnPoints = 0;
+                    final Object passEvent = WJLootBoxes.events.beginScanPass();
+                    final long passStart = System.nanoTime();
+                    long sleptNanos = 0;
                     //Loop until we run out of stuff
                     while (!que.isEmpty() && shouldRun)
                     {
@@ -71,7 +93,7 @@ public class BoxSpawnerThread extends Thread
                                 lastScanned.put(pair, System.currentTimeMillis());
 
                                 //Handle
-                                handleChunk(settings, world, chunk);
+                                spawnPoints += handleChunk(spawnerWorld, settings, world, world.rand, chunk);
 
                                 //Keep track of chunks scanned
                                 chunksScanned++;
@@ -80,11 +102,18 @@ public class BoxSpawnerThread extends Thread
                             //Sleep if we have scanned enough chunks (helps free up CPU on busy servers)
                             if (chunksScanned > settings.chunksToScanPerRun && settings.timeToDelayBetweenChunkScans > 0)
                             {
+                                final long sleepStart = System.nanoTime();
                                 sleep(settings.timeToDelayBetweenChunkScans);
+                                sleptNanos += System.nanoTime() - sleepStart;
                             }
                         }
                     }
 
+                    final long scanNanos = System.nanoTime() - passStart - sleptNanos;
+                    WJLootBoxes.metrics.recordScanPass(chunksScanned, scanNanos);
+                    spawnerWorld.metrics.recordScanPass(chunksScanned, scanNanos);
+                    WJLootBoxes.events.endScanPass(passEvent, settings.dimension, chunksScanned, spawnPoints);
+
                     //Keep track of the last time we scanned
                     lastScanTimes.put(currentScanningWorld, lastScanned);
                     lastWorldScanTimes.put(currentScanningWorld, System.currentTimeMillis());
@@ -107,52 +136,30 @@ public class BoxSpawnerThread extends Thread
         WJLootBoxes.LOGGER.info("Scanner Thread has stopped");
     }
 
-    private void handleChunk(BoxSpawnerWorld settings, World world, Chunk chunk)
+    /**
+     * Looks for positions to place boxes in the chunk
+     *
+     * @param spawnerWorld - spawner to queue placements on
+     * @param settings     - settings to check against
+     * @param access       - blocks to check, normally the world
+     * @param random       - random used to pick positions, normally the world's
+     * @param chunk        - chunk to scan
+     * @return number of positions found
+     */
+    public int handleChunk(BoxSpawnerWorld spawnerWorld, BoxSpawnSettings settings, IBlockAccess access, Random random, Chunk chunk)
     {
-        int crates = countCrates(chunk);
-        if (crates < settings.boxesPerChunk)
-        {
-            //Try so many times to spawn boxes
-            for (int i = 0; i < settings.boxesPerChunk; i++)
-            {
-                //Get data
-                int tier = world.rand.nextInt(WJLootBoxes.NUMBER_OF_TIERS);
-                float chance = settings.chancePerTier[tier];
+        final Object chunkEvent = WJLootBoxes.events.beginChunkScan();
 
-                //Randomize
-                if (chance > world.rand.nextFloat())
-                {
-                    //try 3 times to find a usable block
-                    out:
-                    // exit point for loop
-                    for (int c = 0; c < settings.triesPerChunk; c++)
-                    {
-                        //random position inside chunk
-                        int x = 8 - world.rand.nextInt(8) + world.rand.nextInt(7);
-                        int z = 8 - world.rand.nextInt(8) + world.rand.nextInt(7);
-                        int y = world.rand.nextInt(chunk.getHeightValue(x, z));
-
-                        //Allow a few up and down positions
-                        for (int yz = y - settings.placementCheckHeightAdjust; yz < (settings.placementCheckHeightAdjust + y); yz++)
-                        {
-                            //Offset by
-                            int xz = chunk.xPosition * 16 + x;
-                            int zz = chunk.zPosition * 16 + z;
+        int crates = countCrates(chunk);
+        terrain.set(spawnerWorld, settings, access, chunk);
+        final int spawnPoints = planner.planChunk(settings, WJLootBoxes.NUMBER_OF_TIERS, chunk.xPosition, chunk.zPosition, crates, terrain, random, terrain);
+        terrain.set(null, null, null, null);
 
-                            if (settings.canSpawnHere(xz, yz, zz))
-                            {
-                                System.out.println(String.format("Generated spawn point for box %d %d %d %d", settings.dimension, xz, yz, yz));
-                                settings.placementQueue.add(new BoxSpawnerPlacement(xz, yz, zz, tier));
-                                break out;
-                            }
-                        }
-                    }
-                }
-            }
-        }
+        WJLootBoxes.events.endChunkScan(chunkEvent, settings.dimension, chunk.xPosition, chunk.zPosition, crates, planner.tries, spawnPoints);
+        return spawnPoints;
     }
 
-    private int countCrates(Chunk chunk)
+    public static int countCrates(Chunk chunk)
     {
         int count = 0;
         Map<ChunkPosition, TileEntity> tileEntityMap = chunk.chunkTileEntityMap;
@@ -204,4 +211,55 @@ public class BoxSpawnerThread extends Thread
         stopScanner();
         lastScanTimes.clear();
     }
+
+    /**
+     * Gives the {@link SpawnPlanner} access to the chunk being scanned, and queues the
+     * positions it finds for placement
+     */
+    private class ChunkTerrain implements SpawnTerrain, SpawnPointSink
+    {
+        private BoxSpawnerWorld spawnerWorld;
+        private BoxSpawnSettings settings;
+        private IBlockAccess access;
+        private Chunk chunk;
+
+        void set(BoxSpawnerWorld spawnerWorld, BoxSpawnSettings settings, IBlockAccess access, Chunk chunk)
+        {
+            this.spawnerWorld = spawnerWorld;
+            this.settings = settings;
+            this.access = access;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int getHeight(int localX, int localZ)
+        {
+            return chunk.getHeightValue(localX, localZ);
+        }
+
+        @Override
+        public SpawnRejection check(int x, int y, int z)
+        {
+            WJLootBoxes.metrics.spawnTries.increment();
+            final SpawnRejection rejection = BoxSpawnerWorld.checkSpawn(access, settings, x, y, z);
+            WJLootBoxes.metrics.recordSpawnCheck(rejection);
+            return rejection;
+        }
+
+        @Override
+        public void onSpawnPoint(int x, int y, int z, int tier)
+        {
+            WJLootBoxes.metrics.spawnPoints.increment();
+            WJLootBoxes.eventLog.log(EventType.SPAWN_POINT, settings.dimension, x, y, z, tier);
+            BoxSpawnerPlacement placement = new BoxSpawnerPlacement(x, y, z, tier);
+            if (WJLootBoxes.lootHandler.preRollLoot && WJLootBoxes.lootHandler.isDefaultCommand(tier))
+            {
+                //Roll loot now so it isn't done on the main thread when opened
+                placement.loot = WJLootBoxes.lootHandler.rollLoot(tier, lootRandom);
+            }
+            spawnerWorld.placementQueue.add(placement);
+            WJLootBoxes.metrics.placementsQueued.increment();
+            spawnerWorld.metrics.placementsQueued.increment();
+        }
+    }
 }
@@ -0,0 +1,133 @@
+package com.builtbroken.wjlootboxes.spawner;
+
+import com.builtbroken.wjlootboxes.WJLootBoxes;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Watches the spawn settings folder and reloads the settings for a dimension when
+ * its file is changed. Editors tend to write a file several times when saving, so
+ * a file is only reloaded once it has stopped changing for {@link #reloadDelay}.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class SpawnSettingsWatcher extends Thread
+{
+    /** Matches the files created by {@link BoxSpawner#getFileForWorld(int)} */
+    private static final Pattern FILE_PATTERN = Pattern.compile("spawn_settings_for_dim_(-?\\d+)\\.json");
+
+    /** Checked in all loops in order to kill the thread if false */
+    public volatile boolean shouldRun = true;
+
+    private final BoxSpawner boxSpawner;
+    private final File folder;
+    private final long reloadDelay;
+
+    /** Dimensions with changed files to last time a change was seen (in milli-seconds) */
+    private final HashMap<Integer, Long> pendingReloads = new HashMap();
+
+    public SpawnSettingsWatcher(BoxSpawner boxSpawner, File folder, long reloadDelay)
+    {
+        super("WJ_SpawnSettingsWatcher");
+        this.boxSpawner = boxSpawner;
+        this.folder = folder;
+        this.reloadDelay = reloadDelay;
+        setDaemon(true);
+    }
+
+    @Override
+    public void run()
+    {
+        WJLootBoxes.LOGGER.info("Spawn settings watcher has started for " + folder);
+        try (WatchService watchService = FileSystems.getDefault().newWatchService())
+        {
+            folder.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            while (shouldRun)
+            {
+                WatchKey key = watchService.poll(Math.max(50, reloadDelay / 4), TimeUnit.MILLISECONDS);
+                if (key != null)
+                {
+                    for (WatchEvent<?> event : key.pollEvents())
+                    {
+                        if (event.kind() != StandardWatchEventKinds.OVERFLOW)
+                        {
+                            onFileChanged(((Path) event.context()).getFileName().toString());
+                        }
+                    }
+                    if (!key.reset())
+                    {
+                        WJLootBoxes.LOGGER.error("Spawn settings folder " + folder + " can no longer be watched, changes will not be reloaded");
+                        break;
+                    }
+                }
+                reloadSettledFiles();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            //Stopped by server shutdown
+        }
+        catch (IOException e)
+        {
+            WJLootBoxes.LOGGER.error("Failed to watch spawn settings folder " + folder, e);
+        }
+        WJLootBoxes.LOGGER.info("Spawn settings watcher has stopped");
+    }
+
+    private void onFileChanged(String fileName)
+    {
+        Matcher matcher = FILE_PATTERN.matcher(fileName);
+        if (matcher.matches())
+        {
+            try
+            {
+                pendingReloads.put(Integer.parseInt(matcher.group(1)), System.currentTimeMillis());
+            }
+            catch (NumberFormatException e)
+            {
+                //Not a valid dim id, ignore
+            }
+        }
+    }
+
+    /**
+     * Reloads the settings for files that have not changed for the reload delay
+     */
+    private void reloadSettledFiles()
+    {
+        final long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Integer, Long>> it = pendingReloads.entrySet().iterator();
+        while (it.hasNext())
+        {
+            Map.Entry<Integer, Long> entry = it.next();
+            if (now - entry.getValue() >= reloadDelay)
+            {
+                it.remove();
+
+                final int dim = entry.getKey();
+                final BoxSpawnerWorld spawnerWorld = boxSpawner.worldToSpawnHandler.get(dim);
+                if (spawnerWorld != null)
+                {
+                    if (spawnerWorld.loadData(boxSpawner.getFileForWorld(dim)))
+                    {
+                        WJLootBoxes.LOGGER.info("Reloaded spawn settings for dimension " + dim);
+                    }
+                }
+            }
+        }
+    }
+
+    public void stopWatcher()
+    {
+        shouldRun = false;
+        interrupt();
+    }
+}
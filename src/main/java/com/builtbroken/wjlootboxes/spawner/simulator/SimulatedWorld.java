@@ -0,0 +1,391 @@
+package com.builtbroken.wjlootboxes.spawner.simulator;
+
+import com.builtbroken.wjlootboxes.WJLootBoxes;
+import com.builtbroken.wjlootboxes.box.TileEntityLootbox;
+import net.minecraft.block.Block;
+import net.minecraft.init.Blocks;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.tileentity.TileEntityChest;
+import net.minecraft.world.ChunkPosition;
+import net.minecraft.world.IBlockAccess;
+import net.minecraft.world.biome.BiomeGenBase;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import net.minecraftforge.common.util.ForgeDirection;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * Stand-in for a world, used to run the spawner without a server. Holds a square of chunks
+ * centered on 0,0 built from a heightmap and answers block look ups from them, everything
+ * outside is air. Chunks are built without a world so nothing is lit, ticked, or saved.
+ * <p>
+ * Columns are filled based on their height: water over sand below sea level, bare stone
+ * on peaks, and grass over dirt with some tall grass everywhere else.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class SimulatedWorld implements IBlockAccess
+{
+    /** Columns with a lower top block are filled with water up to this level */
+    public static final int SEA_LEVEL = 62;
+    /** Columns with a higher top block are bare stone */
+    public static final int STONE_LEVEL = 72;
+    /** One in N chunks with tiles already has a lootbox, the rest of the tiles are chests */
+    public static final int LOOTBOX_CHUNKS = 4;
+
+    /** Synthetic heightmaps */
+    public enum Terrain
+    {
+        /** Grass at y 64, most checks pass */
+        FLAT,
+        /** Rolling grass hills with stone peaks, mix of passes and rejections */
+        HILLS,
+        /** Water over sand, nearly all checks are rejected for the ground */
+        OCEAN;
+
+        /**
+         * Generates the heightmap
+         *
+         * @param size - chunks along each side
+         * @return heights indexed by z * blocks + x, starting from the lowest corner
+         */
+        public int[] heights(int size)
+        {
+            final int blocks = size * 16;
+            final int[] heights = new int[blocks * blocks];
+            for (int x = 0; x < blocks; x++)
+            {
+                for (int z = 0; z < blocks; z++)
+                {
+                    final int worldX = x - size / 2 * 16;
+                    final int worldZ = z - size / 2 * 16;
+                    if (this == OCEAN)
+                    {
+                        heights[z * blocks + x] = 44 + (int) (4 * Math.sin(worldX / 7.0) * Math.cos(worldZ / 11.0));
+                    }
+                    else if (this == HILLS)
+                    {
+                        heights[z * blocks + x] = 64 + (int) (12 * Math.sin(worldX / 9.0) * Math.cos(worldZ / 13.0));
+                    }
+                    else
+                    {
+                        heights[z * blocks + x] = 64;
+                    }
+                }
+            }
+            return heights;
+        }
+    }
+
+    /** Chunks along each side */
+    public final int size;
+    /** Chunks indexed by {@link #index(int, int)} */
+    public final Chunk[] chunks;
+
+    private final int half;
+
+    /**
+     * Generates the chunks from a heightmap
+     *
+     * @param size          - chunks along each side
+     * @param heights       - top block of each column, indexed by z * blocks + x
+     * @param tilesPerChunk - tile entities to add to each chunk
+     * @param seed          - seed for the terrain details and tile positions
+     */
+    public SimulatedWorld(int size, int[] heights, int tilesPerChunk, long seed)
+    {
+        this.size = size;
+        this.half = size / 2;
+        this.chunks = new Chunk[size * size];
+
+        final Random random = new Random(seed);
+        for (int cx = -half; cx < size - half; cx++)
+        {
+            for (int cz = -half; cz < size - half; cz++)
+            {
+                chunks[index(cx, cz)] = generate(cx, cz, heights, tilesPerChunk, random);
+            }
+        }
+    }
+
+    /**
+     * Reads a heightmap from a gray scale image, brighter is higher with
+     * each shade being one block. Only whole chunks of the image are used.
+     *
+     * @param file - image to read
+     * @return heights indexed by z * blocks + x
+     * @throws IOException if the image can't be read or is smaller than a chunk
+     */
+    public static int[] readHeightmap(File file) throws IOException
+    {
+        final BufferedImage image = ImageIO.read(file);
+        if (image == null)
+        {
+            throw new IOException("Unsupported image format for heightmap " + file);
+        }
+
+        final int blocks = getHeightmapSize(image) * 16;
+        if (blocks == 0)
+        {
+            throw new IOException("Heightmap " + file + " must be at least 16x16");
+        }
+
+        final int[] heights = new int[blocks * blocks];
+        for (int x = 0; x < blocks; x++)
+        {
+            for (int z = 0; z < blocks; z++)
+            {
+                final int rgb = image.getRGB(x, z);
+                final int gray = (((rgb >> 16) & 0xFF) + ((rgb >> 8) & 0xFF) + (rgb & 0xFF)) / 3;
+                heights[z * blocks + x] = Math.max(1, Math.min(254, gray));
+            }
+        }
+        return heights;
+    }
+
+    /**
+     * Gets the number of chunks along each side of a heightmap image
+     *
+     * @param image
+     * @return chunks, image is cropped to a square of whole chunks
+     */
+    public static int getHeightmapSize(BufferedImage image)
+    {
+        return Math.min(image.getWidth(), image.getHeight()) / 16;
+    }
+
+    /**
+     * Gets the index of the chunk in {@link #chunks}
+     *
+     * @param chunkX
+     * @param chunkZ
+     * @return index
+     */
+    public int index(int chunkX, int chunkZ)
+    {
+        return (chunkX + half) * size + (chunkZ + half);
+    }
+
+    /**
+     * Gets the chunk
+     *
+     * @param chunkX
+     * @param chunkZ
+     * @return chunk, or null if outside the generated area
+     */
+    public Chunk getChunk(int chunkX, int chunkZ)
+    {
+        if (chunkX < -half || chunkX >= size - half || chunkZ < -half || chunkZ >= size - half)
+        {
+            return null;
+        }
+        return chunks[index(chunkX, chunkZ)];
+    }
+
+    /**
+     * Lowest chunk coordinate, the area runs from this to {@link #getMaxChunk()}
+     */
+    public int getMinChunk()
+    {
+        return -half;
+    }
+
+    /**
+     * Highest chunk coordinate
+     */
+    public int getMaxChunk()
+    {
+        return size - half - 1;
+    }
+
+    /**
+     * Places a box the same way the spawner does, using a chest if the
+     * lootbox block isn't registered
+     *
+     * @param x
+     * @param y
+     * @param z
+     * @param tier
+     */
+    public void placeBox(int x, int y, int z, int tier)
+    {
+        final Chunk chunk = getChunk(x >> 4, z >> 4);
+        if (chunk != null)
+        {
+            final Block block = WJLootBoxes.blockLootbox != null ? WJLootBoxes.blockLootbox : Blocks.chest;
+            setBlock(chunk, x & 15, y, z & 15, block, tier);
+
+            final TileEntityLootbox tile = new TileEntityLootbox();
+            tile.xCoord = x;
+            tile.yCoord = y;
+            tile.zCoord = z;
+            chunk.chunkTileEntityMap.put(new ChunkPosition(x & 15, y, z & 15), tile);
+        }
+    }
+
+    /**
+     * Removes boxes from the chunk as if players opened them
+     *
+     * @param chunk  - chunk to open boxes in
+     * @param chance - chance of each box being opened
+     * @param random
+     * @return number of boxes removed
+     */
+    public static int openBoxes(Chunk chunk, double chance, Random random)
+    {
+        int opened = 0;
+        final Iterator<TileEntity> it = chunk.chunkTileEntityMap.values().iterator();
+        while (it.hasNext())
+        {
+            final TileEntity tile = it.next();
+            if (tile instanceof TileEntityLootbox && random.nextDouble() < chance)
+            {
+                it.remove();
+                setBlock(chunk, tile.xCoord & 15, tile.yCoord, tile.zCoord & 15, Blocks.air, 0);
+                opened++;
+            }
+        }
+        return opened;
+    }
+
+    protected Chunk generate(int chunkX, int chunkZ, int[] heights, int tilesPerChunk, Random random)
+    {
+        final Chunk chunk = new Chunk(null, chunkX, chunkZ);
+        final int blocks = size * 16;
+        for (int x = 0; x < 16; x++)
+        {
+            for (int z = 0; z < 16; z++)
+            {
+                int top = heights[((chunkZ + half) * 16 + z) * blocks + (chunkX + half) * 16 + x];
+
+                setBlock(chunk, x, 0, z, Blocks.bedrock, 0);
+                if (top < SEA_LEVEL)
+                {
+                    fill(chunk, x, z, 1, top - 3, Blocks.stone);
+                    fill(chunk, x, z, top - 3, top, Blocks.sand);
+                    fill(chunk, x, z, top, SEA_LEVEL + 1, Blocks.water);
+                    top = SEA_LEVEL;
+                }
+                else if (top > STONE_LEVEL)
+                {
+                    fill(chunk, x, z, 1, top + 1, Blocks.stone);
+                }
+                else
+                {
+                    fill(chunk, x, z, 1, top - 3, Blocks.stone);
+                    fill(chunk, x, z, top - 3, top, Blocks.dirt);
+                    setBlock(chunk, x, top, z, Blocks.grass, 0);
+                    if (random.nextInt(5) == 0)
+                    {
+                        top++;
+                        setBlock(chunk, x, top, z, Blocks.tallgrass, 1);
+                    }
+                }
+                chunk.heightMap[z << 4 | x] = top + 1;
+            }
+        }
+
+        final boolean hasLootbox = random.nextInt(LOOTBOX_CHUNKS) == 0;
+        for (int i = 0; i < tilesPerChunk; i++)
+        {
+            //Tiles underground at unique positions, placement checks don't look at them
+            final int x = i & 15;
+            final int z = (i >> 4) & 15;
+            final int y = 2 + (i >> 8);
+            final TileEntity tile = i == 0 && hasLootbox ? new TileEntityLootbox() : new TileEntityChest();
+            tile.xCoord = chunkX * 16 + x;
+            tile.yCoord = y;
+            tile.zCoord = chunkZ * 16 + z;
+            chunk.chunkTileEntityMap.put(new ChunkPosition(x, y, z), tile);
+        }
+        return chunk;
+    }
+
+    private static void fill(Chunk chunk, int x, int z, int startY, int endY, Block block)
+    {
+        for (int y = startY; y < endY; y++)
+        {
+            setBlock(chunk, x, y, z, block, 0);
+        }
+    }
+
+    private static void setBlock(Chunk chunk, int x, int y, int z, Block block, int meta)
+    {
+        final ExtendedBlockStorage[] storage = chunk.getBlockStorageArray();
+        if (storage[y >> 4] == null)
+        {
+            storage[y >> 4] = new ExtendedBlockStorage(y >> 4 << 4, true);
+        }
+        storage[y >> 4].func_150818_a(x, y & 15, z, block);
+        storage[y >> 4].setExtBlockMetadata(x, y & 15, z, meta);
+    }
+
+    @Override
+    public Block getBlock(int x, int y, int z)
+    {
+        final Chunk chunk = getChunk(x >> 4, z >> 4);
+        return chunk != null && y >= 0 && y < 256 ? chunk.getBlock(x & 15, y, z & 15) : Blocks.air;
+    }
+
+    @Override
+    public TileEntity getTileEntity(int x, int y, int z)
+    {
+        final Chunk chunk = getChunk(x >> 4, z >> 4);
+        return chunk != null ? (TileEntity) chunk.chunkTileEntityMap.get(new ChunkPosition(x & 15, y, z & 15)) : null;
+    }
+
+    @Override
+    public int getLightBrightnessForSkyBlocks(int x, int y, int z, int minLight)
+    {
+        return 15 << 20 | 15 << 4;
+    }
+
+    @Override
+    public int getBlockMetadata(int x, int y, int z)
+    {
+        final Chunk chunk = getChunk(x >> 4, z >> 4);
+        return chunk != null && y >= 0 && y < 256 ? chunk.getBlockMetadata(x & 15, y, z & 15) : 0;
+    }
+
+    @Override
+    public int isBlockProvidingPowerTo(int x, int y, int z, int side)
+    {
+        return 0;
+    }
+
+    @Override
+    public boolean isAirBlock(int x, int y, int z)
+    {
+        return getBlock(x, y, z).isAir(this, x, y, z);
+    }
+
+    @Override
+    public BiomeGenBase getBiomeGenForCoords(int x, int z)
+    {
+        return BiomeGenBase.plains;
+    }
+
+    @Override
+    public int getHeight()
+    {
+        return 256;
+    }
+
+    @Override
+    public boolean extendedLevelsInChunkCache()
+    {
+        return false;
+    }
+
+    @Override
+    public boolean isSideSolid(int x, int y, int z, ForgeDirection side, boolean _default)
+    {
+        return getBlock(x, y, z).isSideSolid(this, x, y, z, side);
+    }
+}
@@ -0,0 +1,263 @@
+package com.builtbroken.wjlootboxes.spawner.simulator;
+
+import com.builtbroken.wjlootboxes.WJLootBoxes;
+import com.builtbroken.wjlootboxes.spawner.*;
+import net.minecraft.world.chunk.Chunk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the box spawner over a {@link SimulatedWorld} for a number of simulated hours to
+ * see how settings play out, without a server. Passes are scheduled the same way as
+ * {@link BoxSpawnerThread#run()}, including the delays between chunks and worlds, and
+ * each chunk is scanned with {@link BoxSpawnerThread#handleChunk}.
+ * <p>
+ * The world is split into square regions of chunks. Each pass the scheduled chunks are
+ * handed to their region, and regions are scanned in parallel. A chunk only ever reads
+ * and places blocks inside itself, so regions don't need any locking. Each region has
+ * its own random, so a seed gives the same result on any number of threads.
+ * <p>
+ * Time passes by the delays in the settings. Time spent scanning is measured for the report
+ * but not added to the clock, it is small next to the delays and keeping it out means a
+ * seed gives the same result on any machine. Boxes are placed as soon as they are found
+ * rather than on the next tick, which is the same as long as the server isn't lagging behind.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class SpawnSimulation
+{
+    /** Chunks along each side of a region */
+    public static final int REGION_SIZE = 8;
+    /** Most samples to output, longer runs are sampled less often than every hour */
+    public static final int MAX_SAMPLES = 48;
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long NEVER = Long.MIN_VALUE;
+
+    public final BoxSpawnSettings settings;
+    public final SimulatedWorld world;
+    /** Chance of a box being opened by players each hour, 0 to leave boxes in place */
+    public final double openChancePerHour;
+
+    private final Region[] regions;
+    /** Region of each chunk, indexed the same as {@link SimulatedWorld#chunks} */
+    private final Region[] chunkRegions;
+    /** Time each chunk was last scanned in simulated milli-seconds */
+    private final long[] lastScanned;
+    /** Random used to schedule chunks, same as the world random in the game */
+    private final Random scanRandom;
+
+    /**
+     * @param settings          - settings to simulate
+     * @param world             - world to spawn boxes in, changed by the run
+     * @param openChancePerHour - chance each box is opened each hour
+     * @param seed              - seed for the randoms, same seed gives the same result
+     */
+    public SpawnSimulation(BoxSpawnSettings settings, SimulatedWorld world, double openChancePerHour, long seed)
+    {
+        this.settings = settings;
+        this.world = world;
+        this.openChancePerHour = openChancePerHour;
+        this.scanRandom = new Random(seed);
+        this.lastScanned = new long[world.chunks.length];
+
+        final int regionsPerSide = (world.size + REGION_SIZE - 1) / REGION_SIZE;
+        this.regions = new Region[regionsPerSide * regionsPerSide];
+        for (int i = 0; i < regions.length; i++)
+        {
+            regions[i] = new Region(seed * 31 + i);
+        }
+
+        this.chunkRegions = new Region[world.chunks.length];
+        for (int cx = world.getMinChunk(); cx <= world.getMaxChunk(); cx++)
+        {
+            for (int cz = world.getMinChunk(); cz <= world.getMaxChunk(); cz++)
+            {
+                final int index = world.index(cx, cz);
+                final Region region = regions[(cx - world.getMinChunk()) / REGION_SIZE * regionsPerSide + (cz - world.getMinChunk()) / REGION_SIZE];
+                region.chunks.add(index);
+                chunkRegions[index] = region;
+                lastScanned[index] = NEVER;
+            }
+        }
+    }
+
+    /**
+     * Runs the simulation, blocks until done
+     *
+     * @param hours    - simulated hours to run for
+     * @param executor - runs the regions
+     * @return result
+     */
+    public SpawnSimulationResult run(double hours, ExecutorService executor) throws InterruptedException, ExecutionException
+    {
+        final SpawnSimulationResult result = new SpawnSimulationResult(settings, world.chunks.length, hours);
+        final long end = (long) (hours * HOUR);
+        final long sampleEvery = Math.max(HOUR, (end + MAX_SAMPLES - 1) / MAX_SAMPLES / HOUR * HOUR);
+
+        final List<Integer> order = new ArrayList(world.chunks.length);
+        for (int i = 0; i < world.chunks.length; i++)
+        {
+            order.add(i);
+        }
+
+        long clock = 0;
+        long lastPass = 0;
+        long nextSample = Math.min(sampleEvery, end);
+        final SpawnSimulationResult.Sample sample = new SpawnSimulationResult.Sample();
+        while (clock < end)
+        {
+            final long passStart = clock;
+
+            //Schedule chunks the same way as the scanner thread
+            Collections.shuffle(order, scanRandom);
+            int chunksScanned = 0;
+            for (int index : order)
+            {
+                if (scanRandom.nextBoolean())
+                {
+                    if (lastScanned[index] == NEVER || clock - lastScanned[index] >= settings.timeToWaitBeforeScanningAChunkAgain)
+                    {
+                        lastScanned[index] = clock;
+                        chunkRegions[index].scheduled.add(index);
+                        chunksScanned++;
+                    }
+
+                    if (chunksScanned > settings.chunksToScanPerRun && settings.timeToDelayBetweenChunkScans > 0)
+                    {
+                        clock += settings.timeToDelayBetweenChunkScans;
+                    }
+                }
+            }
+
+            //Boxes opened since the last pass
+            final double openChance = openChancePerHour > 0
+                    ? 1 - Math.pow(1 - Math.min(1, openChancePerHour), (passStart - lastPass) / (double) HOUR) : 0;
+            for (Region region : regions)
+            {
+                region.openChance = openChance;
+            }
+            lastPass = passStart;
+
+            //Scan regions in parallel
+            long passNanos = 0;
+            for (Future<Region> future : executor.invokeAll(Arrays.asList(regions)))
+            {
+                final Region region = future.get();
+                passNanos += region.nanos;
+                sample.add(region);
+                result.add(region);
+            }
+            result.passes++;
+            result.chunksScanned += chunksScanned;
+            result.scanNanos += passNanos;
+
+            //At least a milli-second per pass so settings without delays still finish
+            clock = Math.max(clock + settings.timeToDelayBetweenWorldScan, passStart + 1);
+
+            while (nextSample <= clock && nextSample <= end)
+            {
+                result.addSample(nextSample / (double) HOUR, countBoxes(), sample);
+                nextSample = nextSample == end ? Long.MAX_VALUE : Math.min(end, nextSample + sampleEvery);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts boxes in the world
+     *
+     * @return boxes per chunk, index is the number of boxes with the last counting anything larger
+     */
+    protected long[] countBoxes()
+    {
+        final long[] counts = new long[settings.boxesPerChunk + 2];
+        for (Chunk chunk : world.chunks)
+        {
+            counts[Math.min(counts.length - 1, BoxSpawnerThread.countCrates(chunk))]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Square of chunks scanned by a single worker. Totals are for the last pass.
+     */
+    protected class Region implements Callable<Region>
+    {
+        /** Chunks in the region, as indices in {@link SimulatedWorld#chunks} */
+        public final List<Integer> chunks = new ArrayList();
+        /** Chunks to scan this pass */
+        public final List<Integer> scheduled = new ArrayList();
+
+        private final BoxSpawnerThread scanner = new BoxSpawnerThread();
+        private final BoxSpawnerWorld spawnerWorld = new BoxSpawnerWorld(settings.dimension);
+        private final Random random;
+
+        public double openChance;
+
+        public int spawnPoints;
+        public int rejected;
+        public int opened;
+        public final int[] placed = new int[WJLootBoxes.NUMBER_OF_TIERS];
+        public long nanos;
+
+        public Region(long seed)
+        {
+            this.random = new Random(seed);
+        }
+
+        @Override
+        public Region call()
+        {
+            spawnPoints = 0;
+            rejected = 0;
+            opened = 0;
+            nanos = 0;
+            for (int tier = 0; tier < placed.length; tier++)
+            {
+                placed[tier] = 0;
+            }
+
+            if (openChance > 0)
+            {
+                for (int index : chunks)
+                {
+                    opened += SimulatedWorld.openBoxes(world.chunks[index], openChance, random);
+                }
+            }
+
+            for (int index : scheduled)
+            {
+                final long start = System.nanoTime();
+                spawnPoints += scanner.handleChunk(spawnerWorld, settings, world, random, world.chunks[index]);
+                nanos += System.nanoTime() - start;
+
+                //Place right away, same checks as BoxSpawnerWorld#update
+                BoxSpawnerPlacement placement;
+                while ((placement = spawnerWorld.placementQueue.poll()) != null)
+                {
+                    if (BoxSpawnerWorld.checkSpawn(world, settings, placement.chunkPosX, placement.chunkPosY, placement.chunkPosZ) == null)
+                    {
+                        world.placeBox(placement.chunkPosX, placement.chunkPosY, placement.chunkPosZ, placement.tier);
+                        placed[placement.tier]++;
+                    }
+                    else
+                    {
+                        rejected++;
+                    }
+                }
+            }
+            scheduled.clear();
+            return this;
+        }
+    }
+}
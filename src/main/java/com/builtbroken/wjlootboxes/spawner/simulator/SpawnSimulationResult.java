@@ -0,0 +1,167 @@
+package com.builtbroken.wjlootboxes.spawner.simulator;
+
+import com.builtbroken.wjlootboxes.WJLootBoxes;
+import com.builtbroken.wjlootboxes.metrics.LatencyHistogram;
+import com.builtbroken.wjlootboxes.spawner.BoxSpawnSettings;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Totals collected by a {@link SpawnSimulation}, with samples of the boxes in the
+ * world taken as simulated time passes.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class SpawnSimulationResult
+{
+    public final BoxSpawnSettings settings;
+    /** Number of chunks in the world */
+    public final int chunks;
+    /** Simulated hours */
+    public final double hours;
+
+    /** Scanner passes over the world */
+    public long passes;
+    /** Chunks scanned over all passes */
+    public long chunksScanned;
+    /** Positions found for boxes */
+    public long spawnPoints;
+    /** Positions no longer valid once placed */
+    public long rejected;
+    /** Boxes opened by players */
+    public long opened;
+    /** Boxes placed for each tier */
+    public final long[] placed = new long[WJLootBoxes.NUMBER_OF_TIERS];
+    /** Time spent scanning chunks, as if done on one thread */
+    public long scanNanos;
+
+    public final List<Sample> samples = new ArrayList();
+
+    public SpawnSimulationResult(BoxSpawnSettings settings, int chunks, double hours)
+    {
+        this.settings = settings;
+        this.chunks = chunks;
+        this.hours = hours;
+    }
+
+    /**
+     * Adds the totals of a region's pass
+     *
+     * @param region
+     */
+    public void add(SpawnSimulation.Region region)
+    {
+        spawnPoints += region.spawnPoints;
+        rejected += region.rejected;
+        opened += region.opened;
+        for (int tier = 0; tier < placed.length; tier++)
+        {
+            placed[tier] += region.placed[tier];
+        }
+    }
+
+    /**
+     * Records the boxes in the world
+     *
+     * @param hour   - simulated time of the sample
+     * @param boxes  - number of chunks with each number of boxes
+     * @param totals - totals since the last sample, reset by the call
+     */
+    public void addSample(double hour, long[] boxes, Sample totals)
+    {
+        final Sample sample = new Sample();
+        sample.hour = hour;
+        sample.boxes = boxes;
+        sample.placed = totals.placed;
+        sample.opened = totals.opened;
+        sample.nanos = totals.nanos;
+        samples.add(sample);
+
+        totals.placed = 0;
+        totals.opened = 0;
+        totals.nanos = 0;
+    }
+
+    /**
+     * Generates a readable report of the result
+     *
+     * @return lines of output
+     */
+    public List<String> toReport()
+    {
+        final List<String> lines = new ArrayList();
+        long totalPlaced = 0;
+        for (long count : placed)
+        {
+            totalPlaced += count;
+        }
+
+        lines.add(String.format("Dimension %d: %d chunks over %.1f hours, %d passes, %d chunks scanned",
+                settings.dimension, chunks, hours, passes, chunksScanned));
+        lines.add(String.format("  Boxes: %d placed, %d opened, %d found but no longer valid", totalPlaced, opened, rejected));
+
+        //Boxes per chunk over time
+        lines.add("  Hour   boxes/chunk  full chunks  placed  opened  scan time");
+        for (Sample sample : samples)
+        {
+            long boxes = 0;
+            for (int count = 0; count < sample.boxes.length; count++)
+            {
+                boxes += count * sample.boxes[count];
+            }
+            //Last slot is anything over the limit, counted as full
+            final long full = sample.boxes[sample.boxes.length - 1] + sample.boxes[sample.boxes.length - 2];
+            lines.add(String.format("  %5.1f  %11.3f  %10.1f%%  %6d  %6d  %9s",
+                    sample.hour, boxes / (double) Math.max(1, chunks), 100.0 * full / Math.max(1, chunks),
+                    sample.placed, sample.opened, LatencyHistogram.format(sample.nanos)));
+        }
+
+        //Tier mix
+        final StringBuilder tiers = new StringBuilder("  Tier mix:");
+        for (int tier = 0; tier < placed.length; tier++)
+        {
+            tiers.append(String.format(" %d=%.1f%% (chance %.2f)", tier,
+                    100.0 * placed[tier] / Math.max(1, totalPlaced), settings.getChance(tier)));
+        }
+        lines.add(tiers.toString());
+
+        //CPU
+        final double nanosPerHour = scanNanos / Math.max(hours, 1e-9);
+        lines.add(String.format("  Scanner CPU: %s per hour, %s per chunk scanned, %.4f%% of one core",
+                LatencyHistogram.format((long) nanosPerHour),
+                LatencyHistogram.format(scanNanos / Math.max(1, chunksScanned)),
+                100 * nanosPerHour / 3.6e12));
+        return lines;
+    }
+
+    /**
+     * Boxes in the world at a point in time, and totals since the last sample
+     */
+    public static class Sample
+    {
+        /** Simulated time */
+        public double hour;
+        /** Number of chunks with each number of boxes, last slot is anything over the limit */
+        public long[] boxes;
+
+        public long placed;
+        public long opened;
+        public long nanos;
+
+        /**
+         * Adds the totals of a region's pass
+         *
+         * @param region
+         */
+        public void add(SpawnSimulation.Region region)
+        {
+            for (int count : region.placed)
+            {
+                placed += count;
+            }
+            opened += region.opened;
+            nanos += region.nanos;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.builtbroken.wjlootboxes.spawner.simulator;
+
+import com.builtbroken.wjlootboxes.WJLootBoxes;
+import com.builtbroken.wjlootboxes.loot.LootHandler;
+import com.builtbroken.wjlootboxes.spawner.BoxSpawnSettings;
+import com.google.gson.JsonElement;
+import com.google.gson.internal.Streams;
+import com.google.gson.stream.JsonReader;
+import net.minecraft.init.Bootstrap;
+import org.apache.logging.log4j.LogManager;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the box spawner with a spawn settings file over a simulated world without starting
+ * the game. Used to tune settings offline before they are put on a server.
+ * <p>
+ * Usage: {@code SpawnSimulatorMain <settings file> [hours] [flat|hills|ocean|heightmap image] [size in chunks] [seed] [open chance per hour]}
+ * <p>
+ * A heightmap image sets the size of the world from its width, one pixel per block.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class SpawnSimulatorMain
+{
+    /** Matches the files saved by the box spawner */
+    private static final Pattern FILE_PATTERN = Pattern.compile("spawn_settings_for_dim_(-?\\d+)\\.json");
+
+    public static void main(String... args)
+    {
+        if (args.length < 1)
+        {
+            System.err.println("Usage: SpawnSimulatorMain <settings file> [hours] [flat|hills|ocean|heightmap image] [size in chunks] [seed] [open chance per hour]");
+            System.exit(2);
+        }
+
+        final File file = new File(args[0]);
+        final double hours = args.length > 1 ? Double.parseDouble(args[1]) : 24;
+        final String terrain = args.length > 2 ? args[2] : "hills";
+        int size = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+        final long seed = args.length > 4 ? Long.parseLong(args[4]) : 0;
+        final double openChance = args.length > 5 ? Double.parseDouble(args[5]) : 0;
+
+        final Matcher matcher = FILE_PATTERN.matcher(file.getName());
+        final int dimension = matcher.matches() ? Integer.parseInt(matcher.group(1)) : 0;
+
+        //Blocks are needed to load settings and build the world
+        WJLootBoxes.LOGGER = LogManager.getLogger("WJ_LootBoxes");
+        Bootstrap.func_151354_b();
+        WJLootBoxes.lootHandler = new LootHandler(WJLootBoxes.NUMBER_OF_TIERS);
+        WJLootBoxes.lootHandler.preRollLoot = false;
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            final Thread thread = new Thread(r, "WJ_SpawnSimulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try
+        {
+            final BoxSpawnSettings settings;
+            try (BufferedReader reader = new BufferedReader(new FileReader(file)))
+            {
+                final JsonElement element = Streams.parse(new JsonReader(reader));
+                settings = BoxSpawnSettings.fromJson(dimension, element);
+            }
+
+            int[] heights;
+            try
+            {
+                heights = SimulatedWorld.Terrain.valueOf(terrain.toUpperCase()).heights(size);
+            }
+            catch (IllegalArgumentException e)
+            {
+                //Not a terrain name, load as an image
+                final File image = new File(terrain);
+                heights = SimulatedWorld.readHeightmap(image);
+                size = (int) Math.sqrt(heights.length) / 16;
+            }
+
+            final long time = System.nanoTime();
+            final SimulatedWorld world = new SimulatedWorld(size, heights, 0, seed);
+            final SpawnSimulationResult result = new SpawnSimulation(settings, world, openChance, seed).run(hours, executor);
+            for (String line : result.toReport())
+            {
+                System.out.println(line);
+            }
+            System.out.println(String.format("  Simulated in %.1f ms", (System.nanoTime() - time) / 1e6));
+        }
+        catch (Exception e)
+        {
+            System.err.println("Failed to simulate " + file + ": " + e);
+            System.exit(1);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        System.exit(0);
+    }
+}
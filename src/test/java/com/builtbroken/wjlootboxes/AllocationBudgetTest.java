@@ -0,0 +1,159 @@
+package com.builtbroken.wjlootboxes;
+
+import com.builtbroken.wjlootboxes.core.loot.LootSampler;
+import com.builtbroken.wjlootboxes.loot.LootBenchmarkData;
+import com.builtbroken.wjlootboxes.loot.LootHandler;
+import com.builtbroken.wjlootboxes.loot.LootTable;
+import com.builtbroken.wjlootboxes.spawner.BoxSpawnSettings;
+import com.builtbroken.wjlootboxes.spawner.BoxSpawnerPlacement;
+import com.builtbroken.wjlootboxes.spawner.BoxSpawnerWorld;
+import com.builtbroken.wjlootboxes.spawner.SpawnerBenchmarkData;
+import com.builtbroken.wjlootboxes.spawner.simulator.SimulatedWorld;
+import com.sun.management.ThreadMXBean;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks the bytes allocated by the hot paths against a budget per operation, using the
+ * allocation counter the JVM keeps for each thread.
+ * <p>
+ * Each check is warmed up first so the JIT has removed what it can, the budgets are for
+ * the steady state. Budgets of zero are paths that should never allocate, the rest cover
+ * the objects the path has to create plus some room for the JVM in use.
+ *
+ * @see <a href="https://github.com/BuiltBrokenModding/VoltzEngine/blob/development/license.md">License</a> for what you can and can't do with the code.
+ */
+public class AllocationBudgetTest
+{
+    /** Entries in the tables rolled */
+    public static final int TABLE_SIZE = 1000;
+    /** Number of positions checked, power of two so the index can be masked */
+    public static final int CANDIDATES = 1 << 14;
+    /** Chunks along each side of the world checked */
+    public static final int WORLD_SIZE = 16;
+
+    /** Calls measured per check, set by the allocOperations property */
+    private static final int OPERATIONS = Integer.getInteger("allocOperations", 100000);
+
+    /** Keeps results alive so the JIT can't remove the work */
+    public static int sink;
+
+    private static ThreadMXBean threads;
+
+    @BeforeClass
+    public static void setup()
+    {
+        threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue("Allocation counters are not supported by this JVM", threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        LootBenchmarkData.setup();
+    }
+
+    @Test
+    public void testPickEntries()
+    {
+        final LootTable table = LootBenchmarkData.createItemTable(0, TABLE_SIZE, 0);
+        final Random random = new Random(LootBenchmarkData.SEED);
+        final int[] picked = new int[LootSampler.getMaxPicks(table)];
+        assertBudget("Pick entries", 0, i -> sink += LootSampler.select(table, table, random, picked));
+    }
+
+    @Test
+    public void testTierRoll()
+    {
+        //Picking entries and building the stacks of a table without NBT
+        final LootTable table = LootBenchmarkData.createItemTable(0, TABLE_SIZE, 0);
+        final LootHandler handler = LootBenchmarkData.createHandler(table);
+        final Random random = new Random(LootBenchmarkData.SEED);
+        assertBudget("Tier roll", 1024, i -> sink += handler.rollLoot(0, random).collector.stacks.size());
+    }
+
+    @Test
+    public void testPlacementValidation()
+    {
+        //Positions picked the same way as SpawnCheckBenchmark
+        final Random random = new Random(LootBenchmarkData.SEED);
+        final SimulatedWorld world = new SimulatedWorld(WORLD_SIZE, SimulatedWorld.Terrain.HILLS.heights(WORLD_SIZE), 0, LootBenchmarkData.SEED);
+        final BoxSpawnSettings settings = SpawnerBenchmarkData.createSettings(world, 1, 16);
+        final int[] x = new int[CANDIDATES];
+        final int[] y = new int[CANDIDATES];
+        final int[] z = new int[CANDIDATES];
+        final int min = world.getMinChunk() * 16;
+        for (int i = 0; i < CANDIDATES; i++)
+        {
+            x[i] = min + random.nextInt(world.size * 16);
+            z[i] = min + random.nextInt(world.size * 16);
+            final int height = world.getChunk(x[i] >> 4, z[i] >> 4).getHeightValue(x[i] & 15, z[i] & 15);
+            y[i] = Math.max(1, random.nextInt(height) - settings.placementCheckHeightAdjust + random.nextInt(settings.placementCheckHeightAdjust * 2));
+        }
+
+        assertBudget("Placement validation", 0, i -> {
+            final int c = i & (CANDIDATES - 1);
+            if (BoxSpawnerWorld.checkSpawn(world, settings, x[c], y[c], z[c]) == null)
+            {
+                sink++;
+            }
+        });
+    }
+
+    @Test
+    public void testPlacementQueueRoundTrip()
+    {
+        //Queue from the scanner thread to the main thread, the placement and the queue node
+        final BoxSpawnerWorld spawnerWorld = new BoxSpawnerWorld(0);
+        assertBudget("Placement queue round trip", 64, i -> {
+            spawnerWorld.placementQueue.add(new BoxSpawnerPlacement(i, 64, i, i % WJLootBoxes.NUMBER_OF_TIERS));
+            sink += spawnerWorld.placementQueue.poll().tier;
+        });
+    }
+
+    @Test
+    public void testNBTTemplateCopy()
+    {
+        //Stacks copying a shared NBT template, every entry has NBT
+        final LootTable table = LootBenchmarkData.createItemTable(0, TABLE_SIZE, 1);
+        final Random random = new Random(LootBenchmarkData.SEED);
+        assertBudget("NBT template copy", 8192, i -> sink += table.rollStack(i % TABLE_SIZE, random).stackSize);
+    }
+
+    /**
+     * Warms up then measures the operation on the calling thread
+     *
+     * @param name      - name of the check, used in the failure message
+     * @param budget    - most bytes the operation may allocate on average per call
+     * @param operation - operation to measure
+     */
+    private static void assertBudget(String name, long budget, Operation operation)
+    {
+        final long thread = Thread.currentThread().getId();
+        for (int i = 0; i < OPERATIONS / 2; i++)
+        {
+            operation.run(i);
+        }
+
+        final long start = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < OPERATIONS; i++)
+        {
+            operation.run(i);
+        }
+        final double bytes = (threads.getThreadAllocatedBytes(thread) - start) / (double) OPERATIONS;
+        assertTrue(String.format("%s allocated %.1f bytes/op, budget %d", name, bytes, budget), bytes <= budget);
+    }
+
+    /**
+     * Operation measured by a check
+     */
+    private interface Operation
+    {
+        /**
+         * @param i - number of the call, used to vary the input
+         */
+        void run(int i);
+    }
+}